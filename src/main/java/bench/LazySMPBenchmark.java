@@ -0,0 +1,91 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import engine.Player.MoveTransition;
+import engine.Player.ai.LazySMP;
+import engine.Player.ai.TranspositionTable;
+import engine.board.Board;
+import engine.board.BoardUtils;
+import engine.board.Move.MoveFactory;
+
+/*
+ * Time-to-depth scaling of the Lazy SMP search. Every thread count searches the same positions
+ * to the same depth with a fresh transposition table, and the total wall time is reported next
+ * to the speedup over one thread.
+ *
+ * usage: java -cp scorpion.jar bench.LazySMPBenchmark [depth] [maxThreads] [tableMB]
+ */
+public final class LazySMPBenchmark {
+
+    private static final String[][] OPENINGS = {
+            {},
+            {"e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "b5"},
+            {"d2", "d4", "d7", "d5", "c2", "c4", "e7", "e6", "b1", "c3", "g8", "f6"},
+            {"e2", "e4", "c7", "c5", "g1", "f3", "d7", "d6", "d2", "d4", "c5", "d4", "f3", "d4"}
+    };
+
+    private LazySMPBenchmark() {
+        throw new RuntimeException("Not instantiatable!");
+    }
+
+    public static void main(final String[] args) {
+        final int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int tableSize = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        final List<Board> positions = createPositions();
+        // warm up the JIT so the single thread run is not charged for it
+        for (final Board position : positions) {
+            new LazySMP(depth, 1, new TranspositionTable(tableSize)).execute(position);
+        }
+
+        final List<String> results = new ArrayList<>();
+        long baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            long elapsed = 0;
+            long boards = 0;
+            for (final Board position : positions) {
+                final LazySMP strategy = new LazySMP(depth, threads, new TranspositionTable(tableSize));
+                final long start = System.nanoTime();
+                strategy.execute(position);
+                elapsed += System.nanoTime() - start;
+                boards += strategy.getNumBoardsEvaluated();
+            }
+            final long elapsedMillis = Math.max(1, elapsed / 1_000_000);
+            if (threads == 1) {
+                baseline = elapsedMillis;
+            }
+            results.add(String.format("%7d %12d %8.2f %14d", threads, elapsedMillis,
+                    (double) baseline / elapsedMillis, boards));
+        }
+
+        System.out.printf("%nLazy SMP time to depth %d over %d positions%n", depth, positions.size());
+        System.out.printf("%7s %12s %8s %14s%n", "threads", "time (ms)", "speedup", "boards");
+        results.forEach(System.out::println);
+    }
+
+    private static int nextThreadCount(final int threads,
+                                       final int maxThreads) {
+        return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+    }
+
+    private static List<Board> createPositions() {
+        final List<Board> positions = new ArrayList<>();
+        for (final String[] opening : OPENINGS) {
+            Board board = Board.createStandardBoard();
+            for (int i = 0; i < opening.length; i += 2) {
+                final MoveTransition transition = board.currentPlayer().makeMove(
+                        MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(opening[i]),
+                                BoardUtils.INSTANCE.getCoordinateAtPosition(opening[i + 1])));
+                if (!transition.getMoveStatus().isDone()) {
+                    throw new RuntimeException("Illegal benchmark move " + opening[i] + "-" + opening[i + 1]);
+                }
+                board = transition.getToBoard();
+            }
+            positions.add(board);
+        }
+        return positions;
+    }
+
+}
@@ -15,10 +15,8 @@ import static engine.pieces.Piece.PieceType.ROOK;
 
 public class BlackPlayer extends Player {
 
-    public BlackPlayer(final Board board, 
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-        super(board, blackStandardLegalMoves,  whiteStandardLegalMoves);
+    public BlackPlayer(final Board board) {
+        super(board);
     }
 
     @Override
@@ -37,8 +35,7 @@ public class BlackPlayer extends Player {
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals, 
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
         
         final List<Move> kingCastles = new ArrayList<>();
         
@@ -47,8 +44,8 @@ public class BlackPlayer extends Player {
             if(this.board.getPiece(5) == null && this.board.getPiece(6) == null) {
                 final Piece kingSideRook = this.board.getPiece(7);
                 if(kingSideRook != null && kingSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(5, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(6, opponentLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(5, Alliance.WHITE) &&
+                       !this.board.isSquareAttacked(6, Alliance.WHITE) &&
                        kingSideRook.getPieceType() == ROOK) {
                         
                         if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
@@ -65,8 +62,8 @@ public class BlackPlayer extends Player {
                     this.board.getPiece(3) == null) {
                 final Piece queenSideRook = this.board.getPiece(0);
                 if (queenSideRook != null && queenSideRook.isFirstMove() &&
-                        Player.calculateAttacksOnTile(2, opponentLegals).isEmpty() &&
-                        Player.calculateAttacksOnTile(3, opponentLegals).isEmpty() &&
+                        !this.board.isSquareAttacked(2, Alliance.WHITE) &&
+                        !this.board.isSquareAttacked(3, Alliance.WHITE) &&
                         queenSideRook.getPieceType() == ROOK) {
                     if (!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 12)) {
                         kingCastles.add(
@@ -1,46 +1,67 @@
 package engine.Player;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import engine.pieces.King;
 import engine.Alliance;
 import engine.board.Board;
+import engine.board.Board.GameState;
 import engine.board.Move;
 import engine.board.Move.MoveStatus;
+import engine.board.ZobristUtils;
 import engine.pieces.Piece;
 
 import static engine.pieces.Piece.PieceType.KING;
-import static java.util.stream.Collectors.collectingAndThen;
-import java.util.stream.Collectors;
 
 public abstract class Player {
 
     protected final Board board;
     protected final King playerKing;
-    protected final Collection<Move> legalMoves;
-    protected final boolean isInCheck;
+    // worked out on first use; search threads share boards, and a race only computes an equal value twice
+    private volatile Collection<Move> legalMoves;
+    private volatile Boolean isInCheck;
+    private volatile GameState gameState;
 
-    Player(final Board board,
-           final Collection<Move> playerLegals,
-           final Collection<Move> opponentLegals) {
+    Player(final Board board) {
         this.board = board;
         this.playerKing = establishKing();
-        this.isInCheck = !calculateAttacksOnTile(this.playerKing.getPiecePosition(), opponentLegals).isEmpty();
-        playerLegals.addAll(calculateKingCastles(playerLegals, opponentLegals));
-        this.legalMoves = Collections.unmodifiableCollection(playerLegals);
     }
 
     public boolean isInCheck() {
-        return this.isInCheck;
+        Boolean isInCheck = this.isInCheck;
+        if (isInCheck == null) {
+            isInCheck = this.board.isSquareAttacked(this.playerKing.getPiecePosition(), getOpponent().getAlliance());
+            this.isInCheck = isInCheck;
+        }
+        return isInCheck;
     }
 
+    // a player not in check cannot be mated, so the legal moves are only looked at when in check
     public boolean isInCheckMate() {
-       return this.isInCheck && !hasEscapeMoves();
+       return isInCheck() && getGameState() == GameState.CHECKMATE;
     }
 
     public boolean isInStaleMate() {
-        return !this.isInCheck && !hasEscapeMoves();
+        return getGameState() == GameState.STALEMATE;
+    }
+
+    /*
+     * Whether the player is mated, stalemated or can still move, found once per board. The check
+     * test comes first, being an attack lookup; the legal moves are then tested in turn with
+     * Board.leavesKingInCheck until one is playable, without building the boards they lead to.
+     */
+    public GameState getGameState() {
+        GameState gameState = this.gameState;
+        if (gameState == null) {
+            final boolean isInCheck = isInCheck();
+            gameState = hasEscapeMoves() ? GameState.ONGOING :
+                        isInCheck ? GameState.CHECKMATE : GameState.STALEMATE;
+            this.gameState = gameState;
+        }
+        return gameState;
     }
 
     public boolean isCastled() {
@@ -64,37 +85,47 @@ public abstract class Player {
     }
 
     private King establishKing() {
-        return (King) getActivePieces().stream()
-                                       .filter(piece -> piece.getPieceType() == KING)
-                                       .findAny()
-                                       .orElseThrow(() -> new RuntimeException("Error: King not found for player!"));
+        final long king = this.board.getPieceBitboard(getAlliance(), KING);
+        if (king == 0L) {
+            throw new RuntimeException("Error: King not found for player!");
+        }
+        return (King) this.board.getPiece(ZobristUtils.toBitSquare(Long.numberOfTrailingZeros(king)));
     }
 
     private boolean hasEscapeMoves() {
-        return this.legalMoves.stream()
-                              .anyMatch(move -> makeMove(move)
-                              .getMoveStatus().isDone());
+        return getLegalMoves().stream()
+                              .anyMatch(move -> !this.board.leavesKingInCheck(move));
     }
 
+    // the pieces' moves plus castling, looked for only when the king may still castle
     public Collection<Move> getLegalMoves() {
-        return this.legalMoves;
-    }
-
-    static Collection<Move> calculateAttacksOnTile(final int tile,
-                                                   final Collection<Move> moves) {
-        return moves.stream()
-                    .filter(move -> move.getDestinationCoordinate() == tile)
-                    .collect(collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        Collection<Move> legalMoves = this.legalMoves;
+        if (legalMoves == null) {
+            final Collection<Move> standardMoves = this.board.getStandardMoves(getAlliance());
+            final Collection<Move> kingCastles = hasCastleOpportunities() ?
+                    calculateKingCastles() :
+                    Collections.emptyList();
+            if (kingCastles.isEmpty()) {
+                legalMoves = standardMoves;
+            } else {
+                final List<Move> moves = new ArrayList<>(standardMoves);
+                moves.addAll(kingCastles);
+                legalMoves = Collections.unmodifiableList(moves);
+            }
+            this.legalMoves = legalMoves;
+        }
+        return legalMoves;
     }
 
     public MoveTransition makeMove(final Move move) {
-        if (!this.legalMoves.contains(move)) {
+        if (!getLegalMoves().contains(move)) {
             return new MoveTransition(this.board, this.board, move, MoveStatus.ILLEGAL_MOVE);
         }
-        final Board transitionedBoard = move.execute();
-        return transitionedBoard.currentPlayer().getOpponent().isInCheck() ?
-                new MoveTransition(this.board, this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK) :
-                new MoveTransition(this.board, transitionedBoard, move, MoveStatus.DONE);
+        // judged on the board the move was made for, the board it is executed on
+        if (move.getBoard().leavesKingInCheck(move)) {
+            return new MoveTransition(this.board, this.board, move, MoveStatus.LEAVES_PLAYER_IN_CHECK);
+        }
+        return new MoveTransition(this.board, move.execute(), move, MoveStatus.DONE);
     }
 
     public MoveTransition unMakeMove(final Move move) {
@@ -104,11 +135,11 @@ public abstract class Player {
     public abstract Collection<Piece> getActivePieces();
     public abstract Alliance getAlliance();
     public abstract Player getOpponent();
-    protected abstract Collection<Move> calculateKingCastles(Collection<Move> playerLegals,
-                                                             Collection<Move> opponentLegals);
+    protected abstract Collection<Move> calculateKingCastles();
     protected boolean hasCastleOpportunities() {
-        return !this.isInCheck && !this.playerKing.isCastled() &&
-                (this.playerKing.isKingSideCastleCapable() || this.playerKing.isQueenSideCastleCapable());
+        return !this.playerKing.isCastled() &&
+                (this.playerKing.isKingSideCastleCapable() || this.playerKing.isQueenSideCastleCapable()) &&
+                !isInCheck();
     }
 
 }
@@ -15,16 +15,12 @@ import static engine.pieces.Piece.PieceType.ROOK;
 
 public class WhitePlayer extends Player{
 
-    public WhitePlayer(final Board board, 
-                       final Collection<Move> whiteStandardLegalMoves,
-                       final Collection<Move> blackStandardLegalMoves) {
-
-        super(board, whiteStandardLegalMoves, blackStandardLegalMoves);
+    public WhitePlayer(final Board board) {
+        super(board);
     }
 
     @Override
-    protected Collection<Move> calculateKingCastles(final Collection<Move> playerLegals,
-                                                    final Collection<Move> opponentLegals) {
+    protected Collection<Move> calculateKingCastles() {
 
         if(!hasCastleOpportunities()) {
             return Collections.emptyList();
@@ -37,8 +33,8 @@ public class WhitePlayer extends Player{
             if(this.board.getPiece(61) == null && this.board.getPiece(62) == null) {
                 final Piece kingSideRook = this.board.getPiece(63);
                 if(kingSideRook != null && kingSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(61, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(62, opponentLegals).isEmpty() &&
+                    if(!this.board.isSquareAttacked(61, Alliance.BLACK) &&
+                       !this.board.isSquareAttacked(62, Alliance.BLACK) &&
                        kingSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new KingSideCastleMove(this.board, this.playerKing, 62, (Rook) kingSideRook, kingSideRook.getPiecePosition(), 61));
@@ -51,8 +47,8 @@ public class WhitePlayer extends Player{
                this.board.getPiece(57) == null) {
                 final Piece queenSideRook = this.board.getPiece(56);
                 if(queenSideRook != null && queenSideRook.isFirstMove()) {
-                    if(Player.calculateAttacksOnTile(58, opponentLegals).isEmpty() &&
-                       Player.calculateAttacksOnTile(59, opponentLegals).isEmpty() && queenSideRook.getPieceType() == ROOK) {
+                    if(!this.board.isSquareAttacked(58, Alliance.BLACK) &&
+                       !this.board.isSquareAttacked(59, Alliance.BLACK) && queenSideRook.getPieceType() == ROOK) {
                         if(!BoardUtils.isKingPawnTrap(this.board, this.playerKing, 52)) {
                             kingCastles.add(new QueenSideCastleMove(this.board, this.playerKing, 58, (Rook) queenSideRook, queenSideRook.getPiecePosition(), 59));
                         }
@@ -0,0 +1,292 @@
+package engine.Player.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import engine.Player.MoveTransition;
+import engine.Player.ai.TranspositionTable.BoundType;
+import engine.board.Board;
+import engine.board.BoardUtils;
+import engine.board.Move;
+import engine.board.MoveUtils;
+
+/*
+ * Interruptible alpha-beta over white-relative scores, shared by the iterative deepening
+ * strategies. One instance belongs to one thread; threads cooperate only through the
+ * transposition table. The stop condition is polled every 128 nodes and, once it
+ * fires, the current iteration is abandoned without touching the table. Killers, history
+ * and counter moves live as long as the instance, so later iterations order by what the
+ * earlier ones learned. Below the root a null move is tried before the real moves, and late
+ * quiet moves get a reduced null window search that is repeated at full depth if it fails high.
+ */
+final class AlphaBetaSearch {
+
+    private static final int STOP_CHECK_MASK = 0x7F;
+
+    private final BoardEvaluator evaluator;
+    private final TranspositionTable transpositionTable;
+    private final BooleanSupplier stopCondition;
+    private final QuiescenceSearch quiescenceSearch;
+    private final SearchHeuristics heuristics;
+    private long boardsEvaluated;
+    private long nodesSearched;
+    private long nullMoveCutoffs;
+    private long lateMoveReductions;
+    private long lateMoveResearches;
+    private boolean aborted;
+
+    AlphaBetaSearch(final BoardEvaluator evaluator,
+                    final TranspositionTable transpositionTable,
+                    final BooleanSupplier stopCondition) {
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+        this.stopCondition = stopCondition;
+        this.quiescenceSearch = new QuiescenceSearch(evaluator, QuiescenceSearch.DEFAULT_MAX_DEPTH);
+        this.heuristics = new SearchHeuristics();
+        this.boardsEvaluated = 0;
+        this.nodesSearched = 0;
+        this.nullMoveCutoffs = 0;
+        this.lateMoveReductions = 0;
+        this.lateMoveResearches = 0;
+        this.aborted = false;
+    }
+
+    long getBoardsEvaluated() {
+        return this.boardsEvaluated + this.quiescenceSearch.getBoardsEvaluated();
+    }
+
+    long getCutoffsRecorded() {
+        return this.heuristics.getCutoffsRecorded();
+    }
+
+    long getNullMoveCutoffs() {
+        return this.nullMoveCutoffs;
+    }
+
+    long getLateMoveReductions() {
+        return this.lateMoveReductions;
+    }
+
+    long getLateMoveResearches() {
+        return this.lateMoveResearches;
+    }
+
+    boolean isAborted() {
+        return this.aborted;
+    }
+
+    /*
+     * Searches the root moves in their current order. When the iteration completes the moves
+     * are re-sorted best first, so the next iteration starts from this one's ordering.
+     */
+    boolean searchRoot(final Board board,
+                       final int depth,
+                       final List<RootMove> rootMoves) {
+        final boolean isWhite = board.currentPlayer().getAlliance().isWhite();
+        int highest = Integer.MIN_VALUE;
+        int lowest = Integer.MAX_VALUE;
+        for (final RootMove rootMove : rootMoves) {
+            if (shouldStop()) {
+                return false;
+            }
+            if (isWhite) {
+                rootMove.score = min(rootMove.toBoard, depth - 1, 1, highest, lowest);
+                highest = Math.max(highest, rootMove.score);
+            } else {
+                rootMove.score = max(rootMove.toBoard, depth - 1, 1, highest, lowest);
+                lowest = Math.min(lowest, rootMove.score);
+            }
+        }
+        if (this.aborted || rootMoves.isEmpty()) {
+            return false;
+        }
+        rootMoves.sort(isWhite ? Comparator.comparingInt((RootMove rootMove) -> rootMove.score).reversed() :
+                                 Comparator.comparingInt((RootMove rootMove) -> rootMove.score));
+        final RootMove best = rootMoves.get(0);
+        this.transpositionTable.store(board.getZobristKey(), depth, best.score, BoundType.EXACT,
+                MoveUtils.encode(best.move));
+        return true;
+    }
+
+    static List<RootMove> createRootMoves(final Board board,
+                                          final TranspositionTable transpositionTable) {
+        final int hashMove = TranspositionTable.move(transpositionTable.probe(board.getZobristKey()));
+        final List<RootMove> rootMoves = new ArrayList<>();
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), hashMove)) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                rootMoves.add(new RootMove(move, moveTransition.getToBoard()));
+            }
+        }
+        return rootMoves;
+    }
+
+    private boolean shouldStop() {
+        if (!this.aborted && (this.nodesSearched++ & STOP_CHECK_MASK) == 0 && this.stopCondition.getAsBoolean()) {
+            this.aborted = true;
+        }
+        return this.aborted;
+    }
+
+    private int max(final Board board,
+                    final int depth,
+                    final int ply,
+                    final int highest,
+                    final int lowest) {
+        if (shouldStop()) {
+            return 0;
+        }
+        if (BoardUtils.isEndGame(board)) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, Math.max(depth, 0));
+        }
+        if (depth <= 0) {
+            return this.quiescenceSearch.max(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
+        if (SearchHeuristics.canTryNullMove(board, depth)) {
+            final int value = min(board.makeNullMove(), depth - 1 - SearchHeuristics.nullMoveReduction(depth), ply + 1,
+                    lowest - 1, lowest);
+            if (this.aborted) {
+                return 0;
+            }
+            if (value >= lowest) {
+                this.nullMoveCutoffs++;
+                return lowest;
+            }
+        }
+        final boolean inCheck = board.currentPlayer().isInCheck();
+        int currentHighest = highest;
+        int bestMove = 0;
+        int movesSearched = 0;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                final Board toBoard = moveTransition.getToBoard();
+                final int reduction = SearchHeuristics.lateMoveReduction(depth, movesSearched++, inCheck, move, toBoard);
+                int value;
+                if (reduction > 0) {
+                    this.lateMoveReductions++;
+                    value = min(toBoard, depth - 1 - reduction, ply + 1, currentHighest, currentHighest + 1);
+                    if (value > currentHighest) {
+                        this.lateMoveResearches++;
+                        value = min(toBoard, depth - 1, ply + 1, currentHighest, lowest);
+                    }
+                } else {
+                    value = min(toBoard, depth - 1, ply + 1, currentHighest, lowest);
+                }
+                if (this.aborted) {
+                    return 0;
+                }
+                if (value > currentHighest) {
+                    currentHighest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
+                if (currentHighest >= lowest) {
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
+                    this.transpositionTable.store(board.getZobristKey(), depth, lowest, BoundType.LOWER, bestMove);
+                    return lowest;
+                }
+            }
+        }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentHighest,
+                currentHighest > highest ? BoundType.EXACT : BoundType.UPPER, bestMove);
+        return currentHighest;
+    }
+
+    private int min(final Board board,
+                    final int depth,
+                    final int ply,
+                    final int highest,
+                    final int lowest) {
+        if (shouldStop()) {
+            return 0;
+        }
+        if (BoardUtils.isEndGame(board)) {
+            this.boardsEvaluated++;
+            return this.evaluator.evaluate(board, Math.max(depth, 0));
+        }
+        if (depth <= 0) {
+            return this.quiescenceSearch.min(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
+        if (SearchHeuristics.canTryNullMove(board, depth)) {
+            final int value = max(board.makeNullMove(), depth - 1 - SearchHeuristics.nullMoveReduction(depth), ply + 1,
+                    highest, highest + 1);
+            if (this.aborted) {
+                return 0;
+            }
+            if (value <= highest) {
+                this.nullMoveCutoffs++;
+                return highest;
+            }
+        }
+        final boolean inCheck = board.currentPlayer().isInCheck();
+        int currentLowest = lowest;
+        int bestMove = 0;
+        int movesSearched = 0;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                final Board toBoard = moveTransition.getToBoard();
+                final int reduction = SearchHeuristics.lateMoveReduction(depth, movesSearched++, inCheck, move, toBoard);
+                int value;
+                if (reduction > 0) {
+                    this.lateMoveReductions++;
+                    value = max(toBoard, depth - 1 - reduction, ply + 1, currentLowest - 1, currentLowest);
+                    if (value < currentLowest) {
+                        this.lateMoveResearches++;
+                        value = max(toBoard, depth - 1, ply + 1, highest, currentLowest);
+                    }
+                } else {
+                    value = max(toBoard, depth - 1, ply + 1, highest, currentLowest);
+                }
+                if (this.aborted) {
+                    return 0;
+                }
+                if (value < currentLowest) {
+                    currentLowest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
+                if (currentLowest <= highest) {
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
+                    this.transpositionTable.store(board.getZobristKey(), depth, highest, BoundType.UPPER, bestMove);
+                    return highest;
+                }
+            }
+        }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentLowest,
+                currentLowest < lowest ? BoundType.EXACT : BoundType.LOWER, bestMove);
+        return currentLowest;
+    }
+
+    static final class RootMove {
+
+        final Move move;
+        final Board toBoard;
+        int score;
+
+        RootMove(final Move move,
+                 final Board toBoard) {
+            this.move = move;
+            this.toBoard = toBoard;
+            this.score = 0;
+        }
+
+        @Override
+        public String toString() {
+            return this.move + " : " + this.score;
+        }
+    }
+
+}
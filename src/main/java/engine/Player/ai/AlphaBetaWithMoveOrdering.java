@@ -1,15 +1,8 @@
 package engine.Player.ai;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 
-import org.checkerframework.checker.units.qual.s;
-
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-
 import engine.Alliance;
 import engine.Player.MoveTransition;
 import engine.Player.Player;
@@ -17,54 +10,39 @@ import engine.board.Board;
 import engine.board.BoardUtils;
 import engine.board.Move;
 import engine.board.Move.MoveFactory;
+import engine.board.MoveUtils;
+import engine.Player.ai.TranspositionTable.BoundType;
 
 @SuppressWarnings("unused")
 public class AlphaBetaWithMoveOrdering implements MoveStrategy {
 
     private final BoardEvaluator evaluator;
     private final int searchDepth;
-    private final MoveSorter moveSorter;
     private final int quiescenceFactor;
+    private final TranspositionTable transpositionTable;
+    private final QuiescenceSearch quiescenceSearch;
+    private final SearchHeuristics heuristics;
     private long boardsEvaluated;
     private long executionTime;
-    private int quiescenceCount;
     private int cutOffsProduced;
-    private static final int MAX_QUIESCENCE = 5000 * 5;
 
     private final List<AlphaBetaObserver> observers = new ArrayList<>();
 
-    private enum MoveSorter {
-
-        SORT {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from(SMART_SORT).immutableSortedCopy(moves);
-            }
-        };
-
-        public static Comparator<Move> SMART_SORT = new Comparator<Move>() {
-            @Override
-            public int compare(final Move move1, final Move move2) {
-                return ComparisonChain.start()
-                        .compareTrueFirst(BoardUtils.isThreatenedBoardImmediate(move1.getBoard()), BoardUtils.isThreatenedBoardImmediate(move2.getBoard()))
-                        .compareTrueFirst(move1.isAttack(), move2.isAttack())
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(move2.getMovedPiece().getPieceValue(), move1.getMovedPiece().getPieceValue())
-                        .result();
-            }
-        };
-
-        abstract Collection<Move> sort(Collection<Move> moves);
+    public AlphaBetaWithMoveOrdering(final int searchDepth,
+                                     final int quiescenceFactor) {
+        this(searchDepth, quiescenceFactor, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
     }
 
     public AlphaBetaWithMoveOrdering(final int searchDepth,
-                                     final int quiescenceFactor) {
+                                     final int quiescenceFactor,
+                                     final TranspositionTable transpositionTable) {
         this.evaluator = StandardBoardEvaluator.get();
         this.searchDepth = searchDepth;
         this.quiescenceFactor = quiescenceFactor;
-        this.moveSorter = MoveSorter.SORT;
+        this.transpositionTable = transpositionTable;
+        this.quiescenceSearch = new QuiescenceSearch(this.evaluator, quiescenceFactor);
+        this.heuristics = new SearchHeuristics();
         this.boardsEvaluated = 0;
-        this.quiescenceCount = 0;
         this.cutOffsProduced = 0;
     }
 
@@ -75,7 +53,7 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
 
     @Override
     public long getNumBoardsEvaluated() {
-        return this.boardsEvaluated;
+        return this.boardsEvaluated + this.quiescenceSearch.getBoardsEvaluated();
     }
 
     @Override
@@ -88,12 +66,17 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
         int lowestSeenValue = Integer.MAX_VALUE;
         int currentValue;
         int moveCounter = 1;
-        final int numMoves = this.moveSorter.sort(board.currentPlayer().getLegalMoves()).size();
+        final List<Move> orderedMoves = new ArrayList<>();
+        new MovePicker(board.currentPlayer().getLegalMoves(),
+                TranspositionTable.move(this.transpositionTable.probe(board.getZobristKey()))).forEach(orderedMoves::add);
+        final int numMoves = orderedMoves.size();
         System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
-        System.out.println("\tOrdered moves! : " + this.moveSorter.sort(board.currentPlayer().getLegalMoves()));
-        for (final Move move : this.moveSorter.sort(board.currentPlayer().getLegalMoves())) {
+        this.transpositionTable.newSearch();
+        this.heuristics.newSearch();
+        System.out.println("\tOrdered moves! : " + orderedMoves);
+        for (final Move move : orderedMoves) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            this.quiescenceCount = 0;
+            final long quiescenceBoards = this.quiescenceSearch.getBoardsEvaluated();
             final String s;
             if (moveTransition.getMoveStatus().isDone()) {
                 final long candidateMoveStartTime = System.nanoTime();
@@ -110,7 +93,7 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
                     bestMove = move;
                     notifyBestMoveSelected(bestMove);
                 }
-                final String quiescenceInfo = " [h: " +highestSeenValue+ " l: " +lowestSeenValue+ "] q: " +this.quiescenceCount;
+                final String quiescenceInfo = " [h: " +highestSeenValue+ " l: " +lowestSeenValue+ "] q: " +(this.quiescenceSearch.getBoardsEvaluated() - quiescenceBoards);
                 s = "\t" + toString() + "(" +this.searchDepth+ "), m: (" +moveCounter+ "/" +numMoves+ ") " + move + ", best:  " + bestMove
 
                         + quiescenceInfo + ", t: " +calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
@@ -123,12 +106,13 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
             moveCounter++;
         }
         this.executionTime = System.currentTimeMillis() - startTime;
+        final long boardsEvaluated = getNumBoardsEvaluated();
         System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d prune percent = %.2f\n", 
                           board.currentPlayer(),
-                          bestMove, this.boardsEvaluated, this.executionTime, 
-                          (1000 * ((double) this.boardsEvaluated / this.executionTime)), 
+                          bestMove, boardsEvaluated, this.executionTime, 
+                          (1000 * ((double) boardsEvaluated / this.executionTime)), 
                           this.cutOffsProduced, 
-                          100 * ((double) this.cutOffsProduced / this.boardsEvaluated));
+                          100 * ((double) this.cutOffsProduced / boardsEvaluated));
         return bestMove;
     }
 
@@ -136,22 +120,40 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        if (depth == 0) {
+            return this.quiescenceSearch.max(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
         int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int bestMove = 0;
+        final int ply = this.searchDepth - depth;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
-                        calculateQuiescenceDepth(board, depth), currentHighest, lowest));
+                final int value = min(moveTransition.getToBoard(),
+                        depth - 1, currentHighest, lowest);
+                if (value > currentHighest) {
+                    currentHighest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
                 if (lowest <= currentHighest) {
                     this.cutOffsProduced++;
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
                     break;
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentHighest,
+                currentHighest >= lowest ? BoundType.LOWER : currentHighest > highest ? BoundType.EXACT : BoundType.UPPER,
+                bestMove);
         return currentHighest;
     }
 
@@ -159,52 +161,43 @@ public class AlphaBetaWithMoveOrdering implements MoveStrategy {
                    final int depth,
                    final int highest,
                    final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        if (depth == 0) {
+            return this.quiescenceSearch.min(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
         int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
+        int bestMove = 0;
+        final int ply = this.searchDepth - depth;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
-                        calculateQuiescenceDepth(board, depth), highest, currentLowest));
+                final int value = max(moveTransition.getToBoard(),
+                        depth - 1, highest, currentLowest);
+                if (value < currentLowest) {
+                    currentLowest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
                 if (currentLowest <= highest) {
                     this.cutOffsProduced++;
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
                     break;
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentLowest,
+                currentLowest <= highest ? BoundType.UPPER : currentLowest < lowest ? BoundType.EXACT : BoundType.LOWER,
+                bestMove);
         return currentLowest;
     }
 
-    private int calculateQuiescenceDepth(final Board toBoard,
-                                         final int depth) {
-
-        boolean CalcSwitch = false;
-        if(CalcSwitch) {
-            if(depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-                int activityMeasure = 0;
-                if (toBoard.currentPlayer().isInCheck()) {
-                    activityMeasure += 1;
-                }
-                for(final Move move: BoardUtils.lastNMoves(toBoard, 2)) {
-                    if(move.isAttack()) {
-                        activityMeasure += 1;
-                    }
-                }
-                if(activityMeasure >= 2) {
-                    this.quiescenceCount++;
-                    return 2;
-                }
-            }
-            return depth - 1;
-        } else {
-            return 0;
-        }                      
-        
-    }
-
     private static String calculateTimeTaken(final long start, final long end) {
         final long timeTaken = (end - start) / 1000000;
         return timeTaken + " ms";
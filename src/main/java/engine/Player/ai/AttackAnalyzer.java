@@ -0,0 +1,118 @@
+package engine.Player.ai;
+
+import engine.Alliance;
+import engine.Player.Player;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.magics.Magic;
+import engine.board.Board;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * Mobility and attack counts read off attack bitboards instead of the players' legal move
+ * lists, so a leaf can be scored without building a single Move. A piece's targets are the
+ * squares it attacks that its own side does not occupy, plus pawn pushes onto empty squares.
+ * Pins and castling are not looked at, so the counts are those of the pseudo-legal moves.
+ *
+ * Squares are in the bitboard orientation (a1 = 0), as returned by Board.getPieceBitboard.
+ */
+public final class AttackAnalyzer {
+
+    private static final AttackAnalyzer INSTANCE = new AttackAnalyzer();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private AttackAnalyzer() {
+    }
+
+    public static AttackAnalyzer get() {
+        return INSTANCE;
+    }
+
+    // number of squares the player's pieces can move to
+    public int mobility(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final Alliance alliance = player.getAlliance();
+        int mobility = 0;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            long pieces = board.getPieceBitboard(alliance, pieceType);
+            while (pieces != 0) {
+                mobility += Long.bitCount(moveTargets(board, alliance, pieceType, Long.numberOfTrailingZeros(pieces)));
+                pieces &= pieces - 1;
+            }
+        }
+        return mobility;
+    }
+
+    // number of captures where the attacker is worth no more than the piece it takes
+    public int attackCount(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final Alliance alliance = player.getAlliance();
+        final Alliance enemy = player.getOpponent().getAlliance();
+        int attacks = 0;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            final long victims = victimsWorthAtLeast(board, enemy, pieceType.getPieceValue());
+            long pieces = board.getPieceBitboard(alliance, pieceType);
+            while (victims != 0 && pieces != 0) {
+                attacks += Long.bitCount(moveTargets(board, alliance, pieceType, Long.numberOfTrailingZeros(pieces)) & victims);
+                pieces &= pieces - 1;
+            }
+        }
+        return attacks;
+    }
+
+    // the enemy king is left out: it is never captured
+    private static long victimsWorthAtLeast(final Board board,
+                                            final Alliance enemy,
+                                            final int value) {
+        long victims = 0L;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            if (pieceType != PieceType.KING && pieceType.getPieceValue() >= value) {
+                victims |= board.getPieceBitboard(enemy, pieceType);
+            }
+        }
+        return victims;
+    }
+
+    static long moveTargets(final Board board,
+                            final Alliance alliance,
+                            final PieceType pieceType,
+                            final int square) {
+        final long occupied = board.getOccupancy();
+        final long notOwn = ~board.getOccupancy(alliance);
+        switch (pieceType) {
+            case PAWN:
+                return pawnTargets(board, alliance, square);
+            case KNIGHT:
+                return BitBoardUtility.KNIGHT_ATTACKS[square] & notOwn;
+            case BISHOP:
+                return Magic.getBishopAttacks(square, occupied) & notOwn;
+            case ROOK:
+                return Magic.getRookAttacks(square, occupied) & notOwn;
+            case QUEEN:
+                return (Magic.getRookAttacks(square, occupied) | Magic.getBishopAttacks(square, occupied)) & notOwn;
+            case KING:
+                return BitBoardUtility.KING_MOVES[square] & notOwn;
+            default:
+                throw new RuntimeException("Unknown piece type " + pieceType);
+        }
+    }
+
+    private static long pawnTargets(final Board board,
+                                    final Alliance alliance,
+                                    final int square) {
+        final long empty = ~board.getOccupancy();
+        final long pawn = 1L << square;
+        final long captures;
+        long pushes;
+        if (alliance.isWhite()) {
+            captures = BitBoardUtility.WHITE_PAWN_ATTACKS[square] & board.getOccupancy(Alliance.BLACK);
+            pushes = pawn << 8 & empty;
+            pushes |= (pushes & BitBoardUtility.RANK_3) << 8 & empty;
+        } else {
+            captures = BitBoardUtility.BLACK_PAWN_ATTACKS[square] & board.getOccupancy(Alliance.WHITE);
+            pushes = pawn >>> 8 & empty;
+            pushes |= (pushes & BitBoardUtility.RANK_6) >>> 8 & empty;
+        }
+        return captures | pushes;
+    }
+
+}
@@ -0,0 +1,272 @@
+package engine.Player.ai;
+
+import engine.Player.ai.nnue.Accumulator;
+import engine.Player.ai.nnue.Network;
+import engine.Player.ai.nnue.NetworkKernels;
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.bitMove;
+import engine.bitBoard.bitPiece;
+import engine.bitBoard.helpers.BoardHelper;
+import engine.bitBoard.moveGeneration.MoveGenerator;
+import engine.board.BitBoardConverter;
+import engine.board.Board;
+import engine.board.Move;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * Alpha-beta on the bitboard backend. The Board is converted to a bitBoard once at the root;
+ * below that the search makes and unmakes moves on that one bitBoard and generates legal moves
+ * into a preallocated short array per ply, so the inner loop creates no objects. Captures are
+ * tried first, most valuable victim then least valuable attacker, the leaves are settled by a
+ * captures only quiescence search, and positions are scored by the material on the bitboards,
+ * or by a network when one is given, its sums kept up to date move by move in an Accumulator.
+ *
+ * Each depth of the iterative deepening loop searches the previous depth's best move first.
+ */
+public class BitboardAlphaBeta implements MoveStrategy {
+
+    private static final int INFINITY = 1_000_000;
+    private static final int MATE_SCORE = 100_000;
+    private static final int BEST_MOVE_SCORE = 1 << 30;
+    private static final int TACTICAL_SCORE = 1 << 20;
+    // indexed by bitPiece type; the king is never captured, so it carries no material
+    private static final int[] PIECE_VALUES = {
+            0,
+            PieceType.PAWN.getPieceValue(),
+            PieceType.KNIGHT.getPieceValue(),
+            PieceType.BISHOP.getPieceValue(),
+            PieceType.ROOK.getPieceValue(),
+            PieceType.QUEEN.getPieceValue(),
+            0
+    };
+
+    private final int searchDepth;
+    private final MoveGenerator moveGenerator;
+    private final short[][] moves;
+    private final int[][] scores;
+    private final Accumulator accumulator;
+    private long boardsEvaluated;
+    private short bestRootMove;
+    private short iterationBestMove;
+
+    public BitboardAlphaBeta(final int searchDepth) {
+        this(searchDepth, null);
+    }
+
+    public BitboardAlphaBeta(final int searchDepth,
+                             final Network network) {
+        this.searchDepth = Math.max(1, searchDepth);
+        this.moveGenerator = new MoveGenerator();
+        this.moves = new short[SearchHeuristics.MAX_PLY][MoveGenerator.MAX_MOVES];
+        this.scores = new int[SearchHeuristics.MAX_PLY][MoveGenerator.MAX_MOVES];
+        this.accumulator = network == null ? null : new Accumulator(network, NetworkKernels.best(), SearchHeuristics.MAX_PLY);
+        this.boardsEvaluated = 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.accumulator == null ? "BitboardAB" : "BitboardAB-NNUE";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        final int sign = board.currentPlayer().getAlliance().isWhite() ? 1 : -1;
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        final bitBoard position = BitBoardConverter.toBitBoard(board);
+        if (this.accumulator != null) {
+            this.accumulator.refresh(position);
+        }
+        this.boardsEvaluated = 0;
+        this.bestRootMove = 0;
+
+        for (int depth = 1; depth <= this.searchDepth; depth++) {
+            final long depthStartTime = System.nanoTime();
+            this.iterationBestMove = 0;
+            final int score = search(position, depth, 0, -INFINITY, INFINITY);
+            if (this.iterationBestMove == 0) {
+                break;
+            }
+            this.bestRootMove = this.iterationBestMove;
+            System.out.println("\t" + toString() + "(" + depth + ") score: " + sign * score + " best: " +
+                    moveName(this.bestRootMove) + ", t: " + (System.nanoTime() - depthStartTime) / 1000000 + " ms");
+        }
+
+        final Move bestMove = BitBoardConverter.toMove(board, this.bestRootMove);
+        final long executionTime = Math.max(1, System.currentTimeMillis() - startTime);
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f]\n",
+                board.currentPlayer(), bestMove, this.boardsEvaluated, executionTime,
+                (1000 * ((double) this.boardsEvaluated / executionTime)));
+        return bestMove;
+    }
+
+    private int search(final bitBoard position,
+                       final int depth,
+                       final int ply,
+                       final int alpha,
+                       final int beta) {
+        if (depth <= 0 || ply >= SearchHeuristics.MAX_PLY - 1) {
+            return quiescence(position, ply, alpha, beta);
+        }
+        final int moveCount = this.moveGenerator.generateMoves(position, this.moves[ply], false);
+        if (moveCount == 0) {
+            this.boardsEvaluated++;
+            return this.moveGenerator.inCheck() ? -MATE_SCORE + ply : 0;
+        }
+        scoreMoves(position, ply, moveCount, ply == 0 ? this.bestRootMove : 0);
+        int currentAlpha = alpha;
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moveCount; i++) {
+            final short move = nextMove(ply, i, moveCount);
+            makeMove(position, move);
+            final int score = -search(position, depth - 1, ply + 1, -beta, -currentAlpha);
+            unmakeMove(position, move);
+            if (score > bestScore) {
+                bestScore = score;
+                if (ply == 0) {
+                    this.iterationBestMove = move;
+                }
+                if (score > currentAlpha) {
+                    currentAlpha = score;
+                    if (currentAlpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    // In check every evasion is searched, since standing pat is not an option there
+    private int quiescence(final bitBoard position,
+                           final int ply,
+                           final int alpha,
+                           final int beta) {
+        if (ply >= SearchHeuristics.MAX_PLY - 1) {
+            this.boardsEvaluated++;
+            return evaluate(position);
+        }
+        int moveCount = this.moveGenerator.generateMoves(position, this.moves[ply], true);
+        int currentAlpha = alpha;
+        int bestScore;
+        if (this.moveGenerator.inCheck()) {
+            moveCount = this.moveGenerator.generateMoves(position, this.moves[ply], false);
+            if (moveCount == 0) {
+                this.boardsEvaluated++;
+                return -MATE_SCORE + ply;
+            }
+            bestScore = -INFINITY;
+        } else {
+            this.boardsEvaluated++;
+            bestScore = evaluate(position);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            currentAlpha = Math.max(currentAlpha, bestScore);
+        }
+        scoreMoves(position, ply, moveCount, (short) 0);
+        for (int i = 0; i < moveCount; i++) {
+            final short move = nextMove(ply, i, moveCount);
+            makeMove(position, move);
+            final int score = -quiescence(position, ply + 1, -beta, -currentAlpha);
+            unmakeMove(position, move);
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > currentAlpha) {
+                    currentAlpha = score;
+                    if (currentAlpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private void makeMove(final bitBoard position,
+                          final short move) {
+        if (this.accumulator != null) {
+            this.accumulator.push(position, move);
+        }
+        position.makeMove(move, true);
+    }
+
+    private void unmakeMove(final bitBoard position,
+                            final short move) {
+        position.unmakeMove(move, true);
+        if (this.accumulator != null) {
+            this.accumulator.pop();
+        }
+    }
+
+    // from the point of view of the side to move
+    private int evaluate(final bitBoard position) {
+        return this.accumulator != null ? this.accumulator.evaluate(position) : materialBalance(position);
+    }
+
+    private static int materialBalance(final bitBoard position) {
+        final long[] pieceBitboards = position.pieceBitboards;
+        int score = 0;
+        for (int pieceType = bitPiece.PAWN; pieceType <= bitPiece.QUEEN; pieceType++) {
+            score += PIECE_VALUES[pieceType] *
+                     (Long.bitCount(pieceBitboards[bitPiece.makePiece(pieceType, bitPiece.WHITE)]) -
+                      Long.bitCount(pieceBitboards[bitPiece.makePiece(pieceType, bitPiece.BLACK)]));
+        }
+        return position.isWhiteToMove ? score : -score;
+    }
+
+    private void scoreMoves(final bitBoard position,
+                            final int ply,
+                            final int moveCount,
+                            final short bestMove) {
+        final short[] plyMoves = this.moves[ply];
+        final int[] plyScores = this.scores[ply];
+        for (int i = 0; i < moveCount; i++) {
+            final short move = plyMoves[i];
+            final int flag = bitMove.moveFlag(move);
+            final int victim = flag == bitMove.EnPassantCaptureFlag ? bitPiece.PAWN :
+                               bitPiece.pieceType(position.square[bitMove.targetSquare(move)]);
+            final int promotion = bitMove.promotionPieceType(move);
+            if (move == bestMove) {
+                plyScores[i] = BEST_MOVE_SCORE;
+            } else if (victim != bitPiece.NONE || promotion != bitPiece.NONE) {
+                final int attacker = bitPiece.pieceType(position.square[bitMove.startSquare(move)]);
+                plyScores[i] = TACTICAL_SCORE + (PIECE_VALUES[victim] + PIECE_VALUES[promotion]) * 8 - attacker;
+            } else {
+                plyScores[i] = 0;
+            }
+        }
+    }
+
+    // selection step: swap the best scored of the remaining moves into place
+    private short nextMove(final int ply,
+                           final int index,
+                           final int moveCount) {
+        final short[] plyMoves = this.moves[ply];
+        final int[] plyScores = this.scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moveCount; i++) {
+            if (plyScores[i] > plyScores[best]) {
+                best = i;
+            }
+        }
+        final short move = plyMoves[best];
+        plyMoves[best] = plyMoves[index];
+        plyMoves[index] = move;
+        final int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+        return move;
+    }
+
+    private static String moveName(final short move) {
+        return BoardHelper.squareNameFromIndex(bitMove.startSquare(move)) +
+               BoardHelper.squareNameFromIndex(bitMove.targetSquare(move));
+    }
+
+}
@@ -6,5 +6,15 @@ public interface BoardEvaluator {
     
     int evaluate(Board board, int depth);
 
-    
+    /*
+     * For callers that only need the exact score inside the alpha-beta window: outside it the
+     * evaluator may return an estimate that lies past the same window edge as the real score.
+     */
+    default int evaluate(final Board board,
+                         final int depth,
+                         final int alpha,
+                         final int beta) {
+        return evaluate(board, depth);
+    }
+
 }
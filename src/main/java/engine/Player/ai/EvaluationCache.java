@@ -0,0 +1,124 @@
+package engine.Player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import engine.board.Board;
+
+/*
+ * A direct mapped, lossy cache in front of another BoardEvaluator. The same leaf comes back
+ * through transpositions and again in every iteration of a deepening search, and a hit costs
+ * one array read instead of a full evaluation.
+ *
+ * StandardBoardEvaluator scales its mate bonus by depth, so the depth is mixed into the board's
+ * zobrist key. Each slot is the pair of longs the transposition table uses: the entry and the
+ * key XORed with it. A slot torn by two threads writing at once fails that check and reads as a
+ * miss, so one cache can be shared by search threads without locks. New entries always replace
+ * old ones. The hit and miss counters are adders, so threads sharing a cache neither lose
+ * counts nor contend on one field.
+ */
+public final class EvaluationCache implements BoardEvaluator {
+
+    public static final int DEFAULT_SIZE_MB = 8;
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final long DEPTH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // set in every stored entry, so that a cached score of 0 is not taken for an empty slot
+    private static final long VALID = 1L << Integer.SIZE;
+
+    private final BoardEvaluator evaluator;
+    private final long[] keys;
+    private final long[] entries;
+    private final long indexMask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public EvaluationCache(final BoardEvaluator evaluator,
+                           final int sizeInMegabytes) {
+        if (sizeInMegabytes < 1) {
+            throw new RuntimeException("Evaluation cache needs at least 1 MB, got " + sizeInMegabytes);
+        }
+        final long requestedEntries = ((long) sizeInMegabytes << 20) / BYTES_PER_ENTRY;
+        final int capacity = (int) Math.min(Long.highestOneBit(requestedEntries), 1 << 30);
+        this.evaluator = evaluator;
+        this.keys = new long[capacity];
+        this.entries = new long[capacity];
+        this.indexMask = capacity - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    @Override
+    public int evaluate(final Board board,
+                        final int depth) {
+        final long key = board.getZobristKey() ^ depth * DEPTH_MULTIPLIER;
+        final int index = (int) (key & this.indexMask);
+        final long entry = this.entries[index];
+        if ((entry & VALID) != 0 && (this.keys[index] ^ entry) == key) {
+            this.hits.increment();
+            return (int) entry;
+        }
+        this.misses.increment();
+        final int score = this.evaluator.evaluate(board, depth);
+        store(index, key, score);
+        return score;
+    }
+
+    // a score outside the window may be the inner evaluator's estimate, so only those inside are kept
+    @Override
+    public int evaluate(final Board board,
+                        final int depth,
+                        final int alpha,
+                        final int beta) {
+        final long key = board.getZobristKey() ^ depth * DEPTH_MULTIPLIER;
+        final int index = (int) (key & this.indexMask);
+        final long entry = this.entries[index];
+        if ((entry & VALID) != 0 && (this.keys[index] ^ entry) == key) {
+            this.hits.increment();
+            return (int) entry;
+        }
+        this.misses.increment();
+        final int score = this.evaluator.evaluate(board, depth, alpha, beta);
+        if (score >= alpha && score <= beta) {
+            store(index, key, score);
+        }
+        return score;
+    }
+
+    private void store(final int index,
+                       final long key,
+                       final int score) {
+        final long newEntry = VALID | (score & 0xFFFFFFFFL);
+        this.entries[index] = newEntry;
+        this.keys[index] = key ^ newEntry;
+    }
+
+    public int getCapacity() {
+        return this.entries.length;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public double hitRate() {
+        final long hits = getHits();
+        final long probes = hits + getMisses();
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void resetStatistics() {
+        this.hits.reset();
+        this.misses.reset();
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.entries, 0L);
+        resetStatistics();
+    }
+
+}
@@ -0,0 +1,342 @@
+package engine.Player.ai;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import engine.Alliance;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * Every weight of the hand-written evaluation, as a middlegame and an endgame value: the
+ * piece-square tables and piece values that PieceSquareTables packs, and the tapered terms of
+ * StandardBoardEvaluator. The defaults are the hand-picked values; a weights file written by
+ * the Texel tuner replaces them once, when the evaluator classes are first loaded. The file is
+ * taken from the scorpion.weights system property, or else evaluation.weights in the working
+ * directory if there is one.
+ *
+ * All weights sit in one array per game phase, so the tuner can treat them as one vector:
+ * piece-square entries first (piece type * 64 + coordinate, laid out for white with a8 = 0;
+ * black reads them mirrored), then the piece values, then the terms in TERM_NAMES order.
+ */
+public final class EvaluationWeights {
+
+    public static final String FILE_PROPERTY = "scorpion.weights";
+    public static final String DEFAULT_FILE = "evaluation.weights";
+
+    public static final int CHECK = 0;
+    public static final int CASTLE = 1;
+    public static final int MOBILITY = 2;
+    public static final int ATTACK = 3;
+    public static final int BISHOP_PAIR = 4;
+    public static final int PAWN_STRUCTURE = 5;
+    public static final int KING_SAFETY = 6;
+    public static final int PAWN_SHELTER = 7;
+    public static final int PASSED_PAWN = 8;
+    public static final int ROOK_OPEN_FILE = 9;
+    public static final int ROOK_SEMI_OPEN_FILE = 10;
+    public static final int CONNECTED_ROOKS = 11;
+    public static final int OUTPOST = 12;
+    public static final String[] TERM_NAMES = {
+            "check", "castle", "mobility", "attack", "bishop.pair", "pawn.structure", "king.safety", "pawn.shelter",
+            "passed.pawn", "rook.open.file", "rook.semi.open.file", "connected.rooks", "outpost"
+    };
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    public static final int SQUARES = 64;
+    public static final int PIECE_SQUARE_OFFSET = 0;
+    public static final int MATERIAL_OFFSET = PIECE_SQUARE_OFFSET + PIECE_TYPES.length * SQUARES;
+    public static final int TERM_OFFSET = MATERIAL_OFFSET + PIECE_TYPES.length;
+    public static final int SIZE = TERM_OFFSET + TERM_NAMES.length;
+
+    private final int[] middlegame;
+    private final int[] endgame;
+
+    public EvaluationWeights(final int[] middlegame,
+                             final int[] endgame) {
+        if (middlegame.length != SIZE || endgame.length != SIZE) {
+            throw new RuntimeException("Expected " + SIZE + " weights per phase");
+        }
+        this.middlegame = middlegame.clone();
+        this.endgame = endgame.clone();
+    }
+
+    public static EvaluationWeights get() {
+        return INSTANCE;
+    }
+
+    public int middlegame(final int index) {
+        return this.middlegame[index];
+    }
+
+    public int endgame(final int index) {
+        return this.endgame[index];
+    }
+
+    public int[] middlegameWeights() {
+        return this.middlegame.clone();
+    }
+
+    public int[] endgameWeights() {
+        return this.endgame.clone();
+    }
+
+    public static int pieceSquareIndex(final PieceType pieceType,
+                                       final int whiteCoordinate) {
+        return PIECE_SQUARE_OFFSET + pieceType.ordinal() * SQUARES + whiteCoordinate;
+    }
+
+    public static int materialIndex(final PieceType pieceType) {
+        return MATERIAL_OFFSET + pieceType.ordinal();
+    }
+
+    public static int termIndex(final int term) {
+        return TERM_OFFSET + term;
+    }
+
+    private static EvaluationWeights loadAtStartup() {
+        final String path = System.getProperty(FILE_PROPERTY);
+        final File file = new File(path != null ? path : DEFAULT_FILE);
+        if (path == null && !file.isFile()) {
+            return defaults();
+        }
+        try {
+            final EvaluationWeights weights = load(file);
+            System.out.println("Evaluation weights loaded from " + file);
+            return weights;
+        } catch (final IOException e) {
+            throw new RuntimeException("Could not read evaluation weights from " + file, e);
+        }
+    }
+
+    // weights missing from the file keep their defaults
+    public static EvaluationWeights load(final File file) throws IOException {
+        final Properties properties = new Properties();
+        try (final Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        final int[] middlegame = defaults().middlegame;
+        final int[] endgame = defaults().endgame;
+        for (final PieceType pieceType : PIECE_TYPES) {
+            final String name = pieceType.name().toLowerCase();
+            read(properties, "pst.mg." + name, middlegame, pieceSquareIndex(pieceType, 0), SQUARES);
+            read(properties, "pst.eg." + name, endgame, pieceSquareIndex(pieceType, 0), SQUARES);
+        }
+        read(properties, "material.mg", middlegame, MATERIAL_OFFSET, PIECE_TYPES.length);
+        read(properties, "material.eg", endgame, MATERIAL_OFFSET, PIECE_TYPES.length);
+        for (int term = 0; term < TERM_NAMES.length; term++) {
+            final String value = properties.getProperty(TERM_NAMES[term]);
+            if (value != null) {
+                final int[] pair = parse(TERM_NAMES[term], value, 2);
+                middlegame[termIndex(term)] = pair[0];
+                endgame[termIndex(term)] = pair[1];
+            }
+        }
+        return new EvaluationWeights(middlegame, endgame);
+    }
+
+    public void save(final File file) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("# ScorpionChess evaluation weights, middlegame and endgame\n");
+        builder.append("# piece-square tables are laid out for white, a8 first; black reads them mirrored\n");
+        for (final PieceType pieceType : PIECE_TYPES) {
+            final String name = pieceType.name().toLowerCase();
+            write(builder, "pst.mg." + name, this.middlegame, pieceSquareIndex(pieceType, 0), SQUARES);
+            write(builder, "pst.eg." + name, this.endgame, pieceSquareIndex(pieceType, 0), SQUARES);
+        }
+        write(builder, "material.mg", this.middlegame, MATERIAL_OFFSET, PIECE_TYPES.length);
+        write(builder, "material.eg", this.endgame, MATERIAL_OFFSET, PIECE_TYPES.length);
+        for (int term = 0; term < TERM_NAMES.length; term++) {
+            builder.append(TERM_NAMES[term]).append(" = ")
+                   .append(this.middlegame[termIndex(term)]).append(' ')
+                   .append(this.endgame[termIndex(term)]).append('\n');
+        }
+        Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void read(final Properties properties,
+                             final String key,
+                             final int[] weights,
+                             final int offset,
+                             final int length) throws IOException {
+        final String value = properties.getProperty(key);
+        if (value != null) {
+            System.arraycopy(parse(key, value, length), 0, weights, offset, length);
+        }
+    }
+
+    private static int[] parse(final String key,
+                               final String value,
+                               final int length) throws IOException {
+        final String[] fields = value.trim().split("[\\s,]+");
+        if (fields.length != length) {
+            throw new IOException(key + " has " + fields.length + " values, expected " + length);
+        }
+        final int[] values = new int[length];
+        try {
+            for (int i = 0; i < length; i++) {
+                values[i] = Integer.parseInt(fields[i]);
+            }
+        } catch (final NumberFormatException e) {
+            throw new IOException(key + ": " + e.getMessage(), e);
+        }
+        return values;
+    }
+
+    // one board row per line, continued with backslashes as Properties reads them
+    private static void write(final StringBuilder builder,
+                              final String key,
+                              final int[] weights,
+                              final int offset,
+                              final int length) {
+        builder.append(key).append(" =");
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && i % 8 == 0) {
+                builder.append(" \\\n   ");
+            }
+            builder.append(' ').append(weights[offset + i]);
+        }
+        builder.append('\n');
+    }
+
+    public static EvaluationWeights defaults() {
+        final int[] middlegame = new int[SIZE];
+        final int[] endgame = new int[SIZE];
+        for (final PieceType pieceType : PIECE_TYPES) {
+            for (int coordinate = 0; coordinate < SQUARES; coordinate++) {
+                middlegame[pieceSquareIndex(pieceType, coordinate)] = middlegameBonus(pieceType, coordinate);
+                endgame[pieceSquareIndex(pieceType, coordinate)] = ENDGAME_TABLES[pieceType.ordinal()][coordinate];
+            }
+            middlegame[materialIndex(pieceType)] = pieceType.getPieceValue();
+            endgame[materialIndex(pieceType)] = pieceType.getPieceValue();
+        }
+        setTerm(middlegame, endgame, CHECK, 20, 20);
+        setTerm(middlegame, endgame, CASTLE, 75, 0);
+        setTerm(middlegame, endgame, MOBILITY, 5, 3);
+        setTerm(middlegame, endgame, ATTACK, 1, 1);
+        setTerm(middlegame, endgame, BISHOP_PAIR, 25, 40);
+        setTerm(middlegame, endgame, PAWN_STRUCTURE, 1, 2);
+        setTerm(middlegame, endgame, KING_SAFETY, 2, 0);
+        setTerm(middlegame, endgame, PAWN_SHELTER, 6, 0);
+        setTerm(middlegame, endgame, PASSED_PAWN, 5, 12);
+        setTerm(middlegame, endgame, ROOK_OPEN_FILE, 30, 15);
+        setTerm(middlegame, endgame, ROOK_SEMI_OPEN_FILE, 15, 8);
+        setTerm(middlegame, endgame, CONNECTED_ROOKS, 15, 5);
+        setTerm(middlegame, endgame, OUTPOST, 10, 5);
+        return new EvaluationWeights(middlegame, endgame);
+    }
+
+    private static void setTerm(final int[] middlegame,
+                                final int[] endgame,
+                                final int term,
+                                final int middlegameWeight,
+                                final int endgameWeight) {
+        middlegame[termIndex(term)] = middlegameWeight;
+        endgame[termIndex(term)] = endgameWeight;
+    }
+
+    // the middlegame tables are the location bonuses Alliance has always given white's pieces
+    private static int middlegameBonus(final PieceType pieceType,
+                                       final int coordinate) {
+        switch (pieceType) {
+            case PAWN:
+                return Alliance.WHITE.pawnBonus(coordinate);
+            case KNIGHT:
+                return Alliance.WHITE.knightBonus(coordinate);
+            case BISHOP:
+                return Alliance.WHITE.bishopBonus(coordinate);
+            case ROOK:
+                return Alliance.WHITE.rookBonus(coordinate);
+            case QUEEN:
+                return Alliance.WHITE.queenBonus(coordinate);
+            case KING:
+                return Alliance.WHITE.kingBonus(coordinate);
+            default:
+                throw new RuntimeException("Unknown piece type " + pieceType);
+        }
+    }
+
+    private final static int[] ENDGAME_PAWN_TABLE = {
+            0,  0,  0,  0,  0,  0,  0,  0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5,  5,  5,  5,  5,  5,  5,  5,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    private final static int[] ENDGAME_KNIGHT_TABLE = {
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+    };
+
+    private final static int[] ENDGAME_BISHOP_TABLE = {
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5, 10, 15, 15, 10,  5,-10,
+            -10,  5, 10, 15, 15, 10,  5,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+    };
+
+    private final static int[] ENDGAME_ROOK_TABLE = {
+            5,  5,  5,  5,  5,  5,  5,  5,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0,
+            0,  0,  0,  0,  0,  0,  0,  0
+    };
+
+    private final static int[] ENDGAME_QUEEN_TABLE = {
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+            -10,  5, 10, 10, 10, 10,  5,-10,
+            -5,  5, 10, 15, 15, 10,  5, -5,
+            -5,  5, 10, 15, 15, 10,  5, -5,
+            -10,  5, 10, 10, 10, 10,  5,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+    };
+
+    private final static int[] ENDGAME_KING_TABLE = {
+            -50,-40,-30,-20,-20,-30,-40,-50,
+            -30,-20,-10,  0,  0,-10,-20,-30,
+            -30,-10, 20, 30, 30, 20,-10,-30,
+            -30,-10, 30, 40, 40, 30,-10,-30,
+            -30,-10, 30, 40, 40, 30,-10,-30,
+            -30,-10, 20, 30, 30, 20,-10,-30,
+            -30,-30,  0,  0,  0,  0,-30,-30,
+            -50,-30,-30,-30,-30,-30,-30,-50
+    };
+
+    // indexed by PieceType ordinal
+    private final static int[][] ENDGAME_TABLES = {
+            ENDGAME_PAWN_TABLE,
+            ENDGAME_KNIGHT_TABLE,
+            ENDGAME_BISHOP_TABLE,
+            ENDGAME_ROOK_TABLE,
+            ENDGAME_QUEEN_TABLE,
+            ENDGAME_KING_TABLE
+    };
+
+    // declared after the tables the defaults are built from
+    private static final EvaluationWeights INSTANCE = loadAtStartup();
+
+}
@@ -1,44 +1,48 @@
-/* package engine.Player.ai;
+package engine.Player.ai;
 
-public class IterativeDeepening extends Observable implements MoveStrategy {
+import java.util.List;
 
-    private final BoardEvaluator evaluator;
-    private final int searchDepth;
-    private final MoveSorter moveSorter;
+import engine.Player.ai.AlphaBetaSearch.RootMove;
+import engine.board.Board;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+
+/*
+ * Time managed iterative deepening. Each depth starts from the previous depth's root order
+ * (best move first) and the transposition table it filled. Once depth 1 is done the search can
+ * be stopped at any node by the hard deadline, and the move returned is always the best move of
+ * the last depth that finished.
+ */
+public class IterativeDeepening implements MoveStrategy {
+
+    public static final int MAX_SEARCH_DEPTH = 64;
+
+    private final EvaluationCache evaluator;
+    private final TimeControl timeControl;
+    private final int maxDepth;
+    private final TranspositionTable transpositionTable;
     private long boardsEvaluated;
     private long executionTime;
-    private int cutOffsProduced;
-
-    private enum MoveSorter {
+    private int completedDepth;
 
-        SORT {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return from(SMART_SORT).immutableSortedCopy(moves);
-            }
-        };
-
-        public static Comparator<Move> SMART_SORT = new Comparator<Move>() {
-            @Override
-            public int compare(final Move move1, final Move move2) {
-                return ComparisonChain.start()
-                        .compareTrueFirst(BoardUtils.isThreatenedBoardImmediate(move1.getBoard()), BoardUtils.isThreatenedBoardImmediate(move2.getBoard()))
-                        .compareTrueFirst(move1.isAttack(), move2.isAttack())
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(move2.getMovedPiece().getPieceValue(), move1.getMovedPiece().getPieceValue())
-                        .result();
-            }
-        };
+    public IterativeDeepening(final TimeControl timeControl) {
+        this(timeControl, MAX_SEARCH_DEPTH);
+    }
 
-        abstract Collection<Move> sort(Collection<Move> moves);
+    public IterativeDeepening(final TimeControl timeControl,
+                              final int maxDepth) {
+        this(timeControl, maxDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
     }
 
-    public IterativeDeepening(final int searchDepth) {
-        this.evaluator = StandardBoardEvaluator.get();
-        this.searchDepth = searchDepth;
-        this.moveSorter = MoveSorter.SORT;
+    public IterativeDeepening(final TimeControl timeControl,
+                              final int maxDepth,
+                              final TranspositionTable transpositionTable) {
+        this.evaluator = new EvaluationCache(StandardBoardEvaluator.get(), EvaluationCache.DEFAULT_SIZE_MB);
+        this.timeControl = timeControl;
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_SEARCH_DEPTH));
+        this.transpositionTable = transpositionTable;
         this.boardsEvaluated = 0;
-        this.cutOffsProduced = 0;
+        this.completedDepth = 0;
     }
 
     @Override
@@ -52,188 +56,59 @@ public class IterativeDeepening extends Observable implements MoveStrategy {
     }
 
     @Override
-    public Move execute(final Board board) {
-
-        final long startTime = System.currentTimeMillis();
-        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
-
-        MoveOrderingBuilder builder = new MoveOrderingBuilder();
-        builder.setOrder(board.currentPlayer().getAlliance().isWhite() ? Ordering.DESC : Ordering.ASC);
-        for(final Move move : board.currentPlayer().getLegalMoves()) {
-            builder.addMoveOrderingRecord(move, 0);
-        }
-
-        Move bestMove = MoveFactory.getNullMove();
-        int currentDepth = 1;
-
-        int highestSeenValue = Integer.MIN_VALUE;
-        int lowestSeenValue = Integer.MAX_VALUE;
-
-        while (currentDepth <= this.searchDepth) {
-            final long subTimeStart = System.currentTimeMillis();
-            //int highestSeenValue = Integer.MIN_VALUE;
-            //int lowestSeenValue = Integer.MAX_VALUE;
-            int currentValue;
-            final List<MoveScoreRecord> records = builder.build();
-            builder = new MoveOrderingBuilder();
-            builder.setOrder(board.currentPlayer().getAlliance().isWhite() ? Ordering.DESC : Ordering.ASC);
-            for (final MoveScoreRecord record : records) {
-                final Move move = record.getMove();
-                final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-                if (moveTransition.getMoveStatus().isDone()) {
-                    currentValue = board.currentPlayer().getAlliance().isWhite() ?
-                            min(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue) :
-                            max(moveTransition.getToBoard(), currentDepth - 1, highestSeenValue, lowestSeenValue);
-                    builder.addMoveOrderingRecord(move, currentValue);
-                    if (board.currentPlayer().getAlliance().isWhite() && currentValue > highestSeenValue) {
-                        highestSeenValue = currentValue;
-                        bestMove = move;
-                    } else if (board.currentPlayer().getAlliance().isBlack() && currentValue < lowestSeenValue) {
-                        lowestSeenValue = currentValue;
-                        bestMove = move;
-                    }
-                }
-            }
-            final long subTime = System.currentTimeMillis()- subTimeStart;
-            System.out.println("\t" +toString()+ " bestMove = " +bestMove+ " Depth = " +currentDepth+ " took " +(subTime) + " ms, ordered moves : " +records);
-            setChanged();
-            notifyObservers(bestMove);
-            currentDepth++;
-        }
-        this.executionTime = System.currentTimeMillis() - startTime;
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, eval rate = %.1f cutoffCount = %d prune percent = %.2f\n", board.currentPlayer(),
-                bestMove, this.boardsEvaluated, this.executionTime, (1000 * ((double)this.boardsEvaluated/this.executionTime)), this.cutOffsProduced, 100 * ((double)this.cutOffsProduced/this.boardsEvaluated));
-        return bestMove;
-    }
-
-    public int max(final Board board,
-                   final int depth,
-                   final int highest,
-                   final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
-        }
-        int currentHighest = highest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(),
-                        depth - 1, currentHighest, lowest));
-                if (lowest <= currentHighest) {
-                    this.cutOffsProduced++;
-                    break;
-                }
-            }
-        }
-        return currentHighest;
-    }
-
-    public int min(final Board board,
-                   final int depth,
-                   final int highest,
-                   final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
-            this.boardsEvaluated++;
-            return this.evaluator.evaluate(board, depth);
-        }
-        int currentLowest = lowest;
-        for (final Move move : this.moveSorter.sort((board.currentPlayer().getLegalMoves()))) {
-            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            if (moveTransition.getMoveStatus().isDone()) {
-                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(),
-                        depth - 1, highest, currentLowest));
-                if (currentLowest <= highest) {
-                    this.cutOffsProduced++;
-                    break;
-                }
-            }
-        }
-        return currentLowest;
+    public void newGame() {
+        this.transpositionTable.clear();
+        this.evaluator.clear();
     }
 
-    private static class MoveScoreRecord implements Comparable<MoveScoreRecord> {
-        final Move move;
-        final int score;
-
-        MoveScoreRecord(final Move move, final int score) {
-            this.move = move;
-            this.score = score;
-        }
-
-        Move getMove() {
-            return this.move;
-        }
-
-        int getScore() {
-            return this.score;
-        }
-
-        @Override
-        public int compareTo(MoveScoreRecord o) {
-            return Integer.compare(this.score, o.score);
-        }
-
-        @Override
-        public String toString() {
-            return this.move + " : " +this.score;
-        }
+    public int getCompletedDepth() {
+        return this.completedDepth;
     }
 
-    enum Ordering {
-        ASC {
-            @Override
-            List<MoveScoreRecord> order(final List<MoveScoreRecord> moveScoreRecords) {
-                Collections.sort(moveScoreRecords, new Comparator<MoveScoreRecord>() {
-                    @Override
-                    public int compare(final MoveScoreRecord o1,
-                                       final MoveScoreRecord o2) {
-                        return Ints.compare(o1.getScore(), o2.getScore());
-                    }
-                });
-                return moveScoreRecords;
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.nanoTime();
+        final long hardDeadline = startTime + this.timeControl.getMaximumMillis() * 1_000_000L;
+        System.out.println(board.currentPlayer() + " THINKING with " + this.timeControl + ", max depth = " + this.maxDepth);
+        this.transpositionTable.newSearch();
+        PawnStructureAnalyzer.get().getPawnHashTable().resetStatistics();
+        this.evaluator.resetStatistics();
+        this.completedDepth = 0;
+
+        final List<RootMove> rootMoves = AlphaBetaSearch.createRootMoves(board, this.transpositionTable);
+        final AlphaBetaSearch search = new AlphaBetaSearch(this.evaluator, this.transpositionTable,
+                () -> this.completedDepth > 0 && System.nanoTime() >= hardDeadline);
+        Move bestMove = rootMoves.isEmpty() ? MoveFactory.getNullMove() : rootMoves.get(0).move;
+
+        for (int depth = 1; depth <= this.maxDepth && !rootMoves.isEmpty(); depth++) {
+            final long depthStartTime = System.nanoTime();
+            if (!search.searchRoot(board, depth, rootMoves)) {
+                System.out.println("\t" + toString() + " stopped during depth " + depth + " at the deadline");
+                break;
             }
-        },
-        DESC {
-            @Override
-            List<MoveScoreRecord> order(final List<MoveScoreRecord> moveScoreRecords) {
-                Collections.sort(moveScoreRecords, new Comparator<MoveScoreRecord>() {
-                    @Override
-                    public int compare(final MoveScoreRecord o1,
-                                       final MoveScoreRecord o2) {
-                        return Ints.compare(o2.getScore(), o1.getScore());
-                    }
-                });
-                return moveScoreRecords;
+            this.completedDepth = depth;
+            bestMove = rootMoves.get(0).move;
+            System.out.println("\t" + toString() + " bestMove = " + bestMove + " depth = " + depth +
+                               " score = " + rootMoves.get(0).score + " took " + millisSince(depthStartTime) + " ms");
+            // a deeper iteration costs more than all of the previous ones together
+            if (rootMoves.size() == 1 || millisSince(startTime) >= this.timeControl.getOptimumMillis() / 2) {
+                break;
             }
-        };
-
-        abstract List<MoveScoreRecord> order(final List<MoveScoreRecord> moveScoreRecords);
-    }
-
-
-    private static class MoveOrderingBuilder {
-        List<MoveScoreRecord> moveScoreRecords;
-        Ordering ordering;
-
-        MoveOrderingBuilder() {
-            this.moveScoreRecords = new ArrayList<>();
-        }
-
-        void addMoveOrderingRecord(final Move move,
-                                   final int score) {
-            this.moveScoreRecords.add(new MoveScoreRecord(move, score));
-        }
-
-        void setOrder(final Ordering order) {
-            this.ordering = order;
-        }
-
-        List<MoveScoreRecord> build() {
-            return this.ordering.order(moveScoreRecords);
         }
+        this.boardsEvaluated = search.getBoardsEvaluated();
+        this.executionTime = Math.max(1, millisSince(startTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, depth = %d, eval rate = %.1f, quiet cutoffs = %d, " +
+                          "null move cutoffs = %d, reductions = %d, reduction re-searches = %d, pawn hash hits = %.1f%%, " +
+                          "eval cache hits = %.1f%%]\n",
+                board.currentPlayer(), bestMove, this.boardsEvaluated, this.executionTime, this.completedDepth,
+                (1000 * ((double) this.boardsEvaluated / this.executionTime)), search.getCutoffsRecorded(),
+                search.getNullMoveCutoffs(), search.getLateMoveReductions(), search.getLateMoveResearches(),
+                100 * PawnStructureAnalyzer.get().getPawnHashTable().hitRate(), 100 * this.evaluator.hitRate());
+        return bestMove;
     }
 
+    private static long millisSince(final long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
 
 }
- */
\ No newline at end of file
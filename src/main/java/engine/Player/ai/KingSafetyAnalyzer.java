@@ -1,20 +1,49 @@
 package engine.Player.ai;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
-import com.google.common.collect.ImmutableList;
-
+import engine.Alliance;
 import engine.Player.Player;
-import engine.board.BoardUtils;
-import engine.board.Move;
-import engine.pieces.Piece;
-
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.Bits;
+import engine.board.Board;
+import engine.board.ZobristUtils;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * King safety read off bitboards, in two parts. The danger counts the enemy pieces whose
+ * attacks reach the king zone (the king's square and those around it), each attacked square
+ * weighted by the attacker's type; a single attacker is not counted, and more attackers make
+ * the same units weigh more. The shelter counts the player's pawns on the king's file and
+ * the two beside it, one and two ranks in front of the king, less the enemy pawns storming
+ * those files two to four ranks ahead.
+ *
+ * Squares are in the bitboard orientation (a1 = 0), as returned by Board.getPieceBitboard.
+ */
 public final class KingSafetyAnalyzer {
 
     private static final KingSafetyAnalyzer INSTANCE = new KingSafetyAnalyzer();
-    private static final List<List<Boolean>> COLUMNS = initColumns();
+    private static final PieceType[] ATTACKERS = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+    // indexed by PieceType ordinal
+    private static final int[] ATTACK_UNITS = {0, 2, 2, 3, 5, 0};
+
+    // [alliance][king square]
+    private static final long[][] SHELTER_NEAR = new long[2][64];
+    private static final long[][] SHELTER_FAR = new long[2][64];
+    private static final long[][] STORM = new long[2][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            final long files = Bits.TripleFileMask[square & 7];
+            final int rank = square >>> 3;
+            for (final Alliance alliance : Alliance.values()) {
+                final int forward = alliance.isWhite() ? 1 : -1;
+                SHELTER_NEAR[alliance.ordinal()][square] = files & rankMask(rank + forward);
+                SHELTER_FAR[alliance.ordinal()][square] = files & rankMask(rank + 2 * forward);
+                STORM[alliance.ordinal()][square] = files & (rankMask(rank + 2 * forward) |
+                                                             rankMask(rank + 3 * forward) |
+                                                             rankMask(rank + 4 * forward));
+            }
+        }
+    }
 
     private KingSafetyAnalyzer() {
     }
@@ -23,106 +52,43 @@ public final class KingSafetyAnalyzer {
         return INSTANCE;
     }
 
-    private static List<List<Boolean>> initColumns() {
-        final List<List<Boolean>> columns = new ArrayList<>();
-        columns.add(BoardUtils.INSTANCE.FIRST_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SECOND_COLUMN);
-        columns.add(BoardUtils.INSTANCE.THIRD_COLUMN);
-        columns.add(BoardUtils.INSTANCE.FOURTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.FIFTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SIXTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.SEVENTH_COLUMN);
-        columns.add(BoardUtils.INSTANCE.EIGHTH_COLUMN);
-        return ImmutableList.copyOf(columns);
-    }
-
-    public KingDistance calculateKingTropism(final Player player) {
-        final int playerKingSquare = player.getPlayerKing().getPiecePosition();
-        final Collection<Move> enemyMoves = player.getOpponent().getLegalMoves();
-        Piece closestPiece = null;
-        int closestDistance = Integer.MAX_VALUE;
-        for(final Move move : enemyMoves) {
-            final int currentDistance = calculateChebyshevDistance(playerKingSquare, move.getDestinationCoordinate());
-            if(currentDistance < closestDistance) {
-                closestDistance = currentDistance;
-                closestPiece = move.getMovedPiece();
+    public int kingDanger(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final Alliance enemy = player.getOpponent().getAlliance();
+        final long kingZone = Bits.KingSafetyMask[kingSquare(player)];
+        int attackUnits = 0;
+        int attackers = 0;
+        for (final PieceType pieceType : ATTACKERS) {
+            long pieces = board.getPieceBitboard(enemy, pieceType);
+            while (pieces != 0) {
+                final int hits = Long.bitCount(AttackAnalyzer.moveTargets(board, enemy, pieceType, Long.numberOfTrailingZeros(pieces)) & kingZone);
+                if (hits != 0) {
+                    attackUnits += ATTACK_UNITS[pieceType.ordinal()] * hits;
+                    attackers++;
+                }
+                pieces &= pieces - 1;
             }
         }
-        return new KingDistance(closestPiece, closestDistance);
+        return attackers < 2 ? 0 : attackUnits * attackers;
     }
 
-    private static int calculateChebyshevDistance(final int kingTileId,
-                                           final int enemyAttackTileId) {
-        final int rankDistance = Math.abs(getRank(enemyAttackTileId) - getRank(kingTileId));
-        final int fileDistance = Math.abs(getFile(enemyAttackTileId) - getFile(kingTileId));
-        return Math.max(rankDistance, fileDistance);
-    }
-
-    private static int getFile(final int coordinate) {
-        if(BoardUtils.INSTANCE.FIRST_COLUMN.get(coordinate)) {
-            return 1;
-        } else if(BoardUtils.INSTANCE.SECOND_COLUMN.get(coordinate)) {
-            return 2;
-        } else if(BoardUtils.INSTANCE.THIRD_COLUMN.get(coordinate)) {
-            return 3;
-        } else if(BoardUtils.INSTANCE.FOURTH_COLUMN.get(coordinate)) {
-            return 4;
-        } else if(BoardUtils.INSTANCE.FIFTH_COLUMN.get(coordinate)) {
-            return 5;
-        } else if(BoardUtils.INSTANCE.SIXTH_COLUMN.get(coordinate)) {
-            return 6;
-        } else if(BoardUtils.INSTANCE.SEVENTH_COLUMN.get(coordinate)) {
-            return 7;
-        } else if(BoardUtils.INSTANCE.EIGHTH_COLUMN.get(coordinate)) {
-            return 8;
-        }
-        throw new RuntimeException("should not reach here!");
+    public int pawnShelter(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final int side = player.getAlliance().ordinal();
+        final int kingSquare = kingSquare(player);
+        final long pawns = board.getPieceBitboard(player.getAlliance(), PieceType.PAWN);
+        final long enemyPawns = board.getPieceBitboard(player.getOpponent().getAlliance(), PieceType.PAWN);
+        return 2 * Long.bitCount(pawns & SHELTER_NEAR[side][kingSquare]) +
+               Long.bitCount(pawns & SHELTER_FAR[side][kingSquare]) -
+               Long.bitCount(enemyPawns & STORM[side][kingSquare]);
     }
 
-    private static int getRank(final int coordinate) {
-        if(BoardUtils.INSTANCE.FIRST_ROW.get(coordinate)) {
-            return 1;
-        } else if(BoardUtils.INSTANCE.SECOND_ROW.get(coordinate)) {
-            return 2;
-        } else if(BoardUtils.INSTANCE.THIRD_ROW.get(coordinate)) {
-            return 3;
-        } else if(BoardUtils.INSTANCE.FOURTH_ROW.get(coordinate)) {
-            return 4;
-        } else if(BoardUtils.INSTANCE.FIFTH_ROW.get(coordinate)) {
-            return 5;
-        } else if(BoardUtils.INSTANCE.SIXTH_ROW.get(coordinate)) {
-            return 6;
-        } else if(BoardUtils.INSTANCE.SEVENTH_ROW.get(coordinate)) {
-            return 7;
-        } else if(BoardUtils.INSTANCE.EIGHTH_ROW.get(coordinate)) {
-            return 8;
-        }
-        throw new RuntimeException("should not reach here!");
+    private static int kingSquare(final Player player) {
+        return ZobristUtils.toBitSquare(player.getPlayerKing().getPiecePosition());
     }
 
-    static class KingDistance {
-
-        final Piece enemyPiece;
-        final int distance;
-
-        KingDistance(final Piece enemyDistance,
-                     final int distance) {
-            this.enemyPiece = enemyDistance;
-            this.distance = distance;
-        }
-
-        public Piece getEnemyPiece() {
-            return enemyPiece;
-        }
-
-        public int getDistance() {
-            return distance;
-        }
-
-        public int tropismScore() {
-            return (enemyPiece.getPieceValue()/10) * distance;
-        }
-
+    private static long rankMask(final int rank) {
+        return rank < 0 || rank > 7 ? 0L : BitBoardUtility.RANK_1 << 8 * rank;
     }
 
-}
\ No newline at end of file
+}
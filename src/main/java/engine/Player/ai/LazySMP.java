@@ -0,0 +1,156 @@
+package engine.Player.ai;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import engine.Player.ai.AlphaBetaSearch.RootMove;
+import engine.board.Board;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+
+/*
+ * Lazy SMP: every thread runs its own iterative deepening alpha-beta over the same root and
+ * they only cooperate through the shared transposition table. Helpers start on staggered
+ * depths and rotate the root moves by their id before every iteration, so they fill the table
+ * ahead of the main thread, whose result is the one returned. Given a time control, the main
+ * thread stops deepening the way IterativeDeepening does and the helpers stop with it.
+ */
+public class LazySMP implements MoveStrategy {
+
+    private final EvaluationCache evaluator;
+    // null for a fixed depth search
+    private final TimeControl timeControl;
+    private final int searchDepth;
+    private final int threadCount;
+    private final TranspositionTable transpositionTable;
+    private final AtomicBoolean stopSearch;
+    private final AtomicLong boardsEvaluated;
+
+    public LazySMP(final int searchDepth,
+                   final int threadCount) {
+        this(searchDepth, threadCount, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    public LazySMP(final int searchDepth,
+                   final int threadCount,
+                   final TranspositionTable transpositionTable) {
+        this(null, searchDepth, threadCount, transpositionTable);
+    }
+
+    public LazySMP(final TimeControl timeControl,
+                   final int maxDepth,
+                   final int threadCount,
+                   final TranspositionTable transpositionTable) {
+        if (threadCount < 1) {
+            throw new RuntimeException("Lazy SMP needs at least one thread, got " + threadCount);
+        }
+        this.evaluator = new EvaluationCache(StandardBoardEvaluator.get(), EvaluationCache.DEFAULT_SIZE_MB);
+        this.timeControl = timeControl;
+        this.searchDepth = timeControl == null ? maxDepth : Math.max(1, Math.min(maxDepth, IterativeDeepening.MAX_SEARCH_DEPTH));
+        this.threadCount = threadCount;
+        this.transpositionTable = transpositionTable;
+        this.stopSearch = new AtomicBoolean(false);
+        this.boardsEvaluated = new AtomicLong(0);
+    }
+
+    @Override
+    public String toString() {
+        return "LazySMP";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated.get();
+    }
+
+    @Override
+    public void newGame() {
+        this.transpositionTable.clear();
+        this.evaluator.clear();
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        final long hardDeadline = this.timeControl == null ? Long.MAX_VALUE :
+                startNanos + this.timeControl.getMaximumMillis() * 1_000_000L;
+        System.out.println(board.currentPlayer() + " THINKING with " +
+                           (this.timeControl == null ? "depth = " : this.timeControl + ", max depth = ") + this.searchDepth +
+                           " threads = " + this.threadCount);
+        this.transpositionTable.newSearch();
+        this.stopSearch.set(false);
+        this.boardsEvaluated.set(0);
+        this.evaluator.resetStatistics();
+        final ExecutorService helpers = this.threadCount > 1 ?
+                Executors.newFixedThreadPool(this.threadCount - 1,
+                        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("lazy-smp-helper-%d").build()) :
+                null;
+        for (int id = 1; id < this.threadCount; id++) {
+            final SearchWorker helper = new SearchWorker(id, startNanos, hardDeadline);
+            helpers.execute(() -> helper.search(board));
+        }
+        final Move bestMove = new SearchWorker(0, startNanos, hardDeadline).search(board);
+        this.stopSearch.set(true);
+        if (helpers != null) {
+            helpers.shutdown();
+            try {
+                helpers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final long executionTime = Math.max(1, System.currentTimeMillis() - startTime);
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f, threads = %d, " +
+                          "eval cache hits = %.1f%%]\n",
+                board.currentPlayer(), bestMove, this.boardsEvaluated.get(), executionTime,
+                (1000 * ((double) this.boardsEvaluated.get() / executionTime)), this.threadCount,
+                100 * this.evaluator.hitRate());
+        return bestMove;
+    }
+
+    private final class SearchWorker {
+
+        private final int id;
+        private final long startNanos;
+        private final AlphaBetaSearch search;
+        private int completedDepth;
+
+        SearchWorker(final int id,
+                     final long startNanos,
+                     final long hardDeadline) {
+            this.id = id;
+            this.startNanos = startNanos;
+            this.search = new AlphaBetaSearch(evaluator, transpositionTable,
+                    id == 0 ? () -> this.completedDepth > 0 && System.nanoTime() >= hardDeadline : stopSearch::get);
+        }
+
+        Move search(final Board board) {
+            final List<RootMove> rootMoves = AlphaBetaSearch.createRootMoves(board, transpositionTable);
+            Move bestMove = MoveFactory.getNullMove();
+            for (int depth = 1 + (this.id & 1); depth <= searchDepth; depth++) {
+                // searchRoot sorts the moves best first, so a helper rotates them again; the main thread (id 0) keeps that order
+                Collections.rotate(rootMoves, this.id);
+                if (!this.search.searchRoot(board, depth, rootMoves)) {
+                    break;
+                }
+                this.completedDepth = depth;
+                bestMove = rootMoves.get(0).move;
+                if (this.id == 0 && timeControl != null && (rootMoves.size() == 1 ||
+                        (System.nanoTime() - this.startNanos) / 1_000_000L >= timeControl.getOptimumMillis() / 2)) {
+                    break;
+                }
+            }
+            LazySMP.this.boardsEvaluated.addAndGet(this.search.getBoardsEvaluated());
+            return bestMove;
+        }
+    }
+
+}
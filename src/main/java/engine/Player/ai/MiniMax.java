@@ -5,6 +5,8 @@ import engine.board.Board;
 import engine.board.BoardUtils;
 import engine.board.Move;
 import engine.board.Move.MoveFactory;
+import engine.board.MoveUtils;
+import engine.Player.ai.TranspositionTable.BoundType;
 
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -14,13 +16,20 @@ public class MiniMax implements MoveStrategy {
     private final BoardEvaluator evaluator;
     private long boardsEvaluated;
     private final int searchDepth;
+    private final TranspositionTable transpositionTable;
     private long executionTime;
     private FreqTableRow[] freqTable;
     private int freqTableIndex;
 
     public MiniMax(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    public MiniMax(final int searchDepth,
+                   final TranspositionTable transpositionTable) {
         this.evaluator = new StandardBoardEvaluator();
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
         this.boardsEvaluated = 0;
     }
 
@@ -44,6 +53,7 @@ public class MiniMax implements MoveStrategy {
         int currentValue;
 
         System.out.println(board.currentPlayer() + " is thinking with depth = " + this.searchDepth);
+        this.transpositionTable.newSearch();
         this.freqTable = new FreqTableRow[board.currentPlayer().getLegalMoves().size()];
         this.freqTableIndex = 0;
         int moveCounter = 1;
@@ -99,16 +109,23 @@ public class MiniMax implements MoveStrategy {
             return this.evaluator.evaluate(board, depth);
         }
 
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if(TranspositionTable.canCutOff(entry, depth, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            return TranspositionTable.score(entry);
+        }
         int lowestSeenValue = Integer.MAX_VALUE;
+        int bestMove = 0;
         for(final Move move : board.currentPlayer().getLegalMoves()) {
             final MoveTransition transition = board.currentPlayer().makeMove(move);
             if(transition.getMoveStatus().isDone()) {
                 final int currentValue = max(transition.getToBoard(), depth - 1);
                 if(currentValue < lowestSeenValue) {
                     lowestSeenValue = currentValue;
+                    bestMove = MoveUtils.encode(move);
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, lowestSeenValue, BoundType.EXACT, bestMove);
         return lowestSeenValue;
     }
 
@@ -122,21 +139,28 @@ public class MiniMax implements MoveStrategy {
         if(isEndGameScenario(board)) {
             return this.evaluator.evaluate(board, depth);
         }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if(TranspositionTable.canCutOff(entry, depth, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            return TranspositionTable.score(entry);
+        }
         int highestSeenValue = Integer.MIN_VALUE;
+        int bestMove = 0;
         for(final Move move : board.currentPlayer().getLegalMoves()) {
             final MoveTransition transition = board.currentPlayer().makeMove(move);
             if(transition.getMoveStatus().isDone()) {
                 final int currentValue = min(transition.getToBoard(), depth - 1);
                 if(currentValue >= highestSeenValue) {
                     highestSeenValue = currentValue;
+                    bestMove = MoveUtils.encode(move);
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, highestSeenValue, BoundType.EXACT, bestMove);
         return highestSeenValue;
     }
 
     private static boolean isEndGameScenario(final Board board) {
-        return board.currentPlayer().isInCheckMate() || board.currentPlayer().isInStaleMate();
+        return board.getGameState().isOver();
     }
 
     private static class FreqTableRow {
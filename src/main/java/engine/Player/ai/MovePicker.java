@@ -0,0 +1,158 @@
+package engine.Player.ai;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import engine.board.Move;
+import engine.board.MoveUtils;
+import engine.board.StaticExchangeEvaluator;
+
+/*
+ * Move ordering for one node. Every move is scored exactly once into an int array (hash move,
+ * then captures and promotions that do not lose material by static exchange, then killers, the
+ * counter move, losing captures, castling and the remaining quiet moves by history) and iteration
+ * hands them out best first with a selection step, so a node that is cut off after one or two
+ * moves never pays for a full sort. The score band also tells a caller whether the move it was
+ * just handed is a losing capture, so the static exchange is never evaluated twice.
+ */
+final class MovePicker implements Iterable<Move> {
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int TACTICAL_SCORE = 1 << 24;
+    private static final int FIRST_KILLER_SCORE = 1 << 20;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+    private static final int COUNTER_MOVE_SCORE = 1 << 19;
+    private static final int LOSING_CAPTURE_SCORE = 1 << 17;
+    private static final int CASTLE_SCORE = 1 << 15;
+
+    private final Move[] moves;
+    private final int[] scores;
+    private int size;
+    private int current;
+
+    MovePicker(final Collection<Move> moves,
+               final int hashMove) {
+        this(moves, hashMove, false);
+    }
+
+    MovePicker(final Collection<Move> moves,
+               final int hashMove,
+               final boolean tacticalOnly) {
+        this(moves, hashMove, tacticalOnly, null, 0, null);
+    }
+
+    MovePicker(final Collection<Move> moves,
+               final int hashMove,
+               final SearchHeuristics heuristics,
+               final int ply,
+               final Move previousMove) {
+        this(moves, hashMove, false, heuristics, ply, previousMove);
+    }
+
+    private MovePicker(final Collection<Move> moves,
+                       final int hashMove,
+                       final boolean tacticalOnly,
+                       final SearchHeuristics heuristics,
+                       final int ply,
+                       final Move previousMove) {
+        final int firstKiller = heuristics != null ? heuristics.killer(ply, 0) : 0;
+        final int secondKiller = heuristics != null ? heuristics.killer(ply, 1) : 0;
+        final int counterMove = heuristics != null ? heuristics.counterMove(previousMove) : 0;
+        this.moves = new Move[moves.size()];
+        this.scores = new int[moves.size()];
+        this.size = 0;
+        this.current = -1;
+        for (final Move move : moves) {
+            final boolean isTactical = isTactical(move);
+            if (tacticalOnly && !isTactical) {
+                continue;
+            }
+            this.moves[this.size] = move;
+            this.scores[this.size] = MoveUtils.matches(move, hashMove) ? HASH_MOVE_SCORE :
+                                     isTactical ? tacticalScore(move) :
+                                     quietScore(move, heuristics, firstKiller, secondKiller, counterMove);
+            this.size++;
+        }
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    @Override
+    public Iterator<Move> iterator() {
+        return new Iterator<Move>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < size;
+            }
+
+            @Override
+            public Move next() {
+                if (this.next >= size) {
+                    throw new NoSuchElementException();
+                }
+                int best = this.next;
+                for (int i = this.next + 1; i < size; i++) {
+                    if (scores[i] > scores[best]) {
+                        best = i;
+                    }
+                }
+                swap(this.next, best);
+                current = this.next;
+                return moves[this.next++];
+            }
+        };
+    }
+
+    // whether the move last handed out is a capture or promotion that loses material by static exchange
+    boolean isLosingCapture() {
+        return isTactical(this.moves[this.current]) && this.scores[this.current] < TACTICAL_SCORE;
+    }
+
+    static boolean isTactical(final Move move) {
+        return move.isAttack() || move.getPromotionPiece() != null;
+    }
+
+    // exchange value first, then the bigger victim among exchanges that come out even
+    private static int tacticalScore(final Move move) {
+        final int exchangeValue = StaticExchangeEvaluator.evaluate(move);
+        final int victimOrdinal = move.isAttack() ? move.getAttackedPiece().getPieceType().ordinal() : 0;
+        return (exchangeValue >= 0 ? TACTICAL_SCORE : LOSING_CAPTURE_SCORE) + exchangeValue * 8 + victimOrdinal;
+    }
+
+    private static int quietScore(final Move move,
+                                  final SearchHeuristics heuristics,
+                                  final int firstKiller,
+                                  final int secondKiller,
+                                  final int counterMove) {
+        final int encodedMove = MoveUtils.encode(move);
+        if (encodedMove == firstKiller) {
+            return FIRST_KILLER_SCORE;
+        }
+        if (encodedMove == secondKiller) {
+            return SECOND_KILLER_SCORE;
+        }
+        if (encodedMove == counterMove) {
+            return COUNTER_MOVE_SCORE;
+        }
+        if (move.isCastlingMove()) {
+            return CASTLE_SCORE;
+        }
+        return heuristics != null ? heuristics.history(move) : 0;
+    }
+
+    private void swap(final int i,
+                      final int j) {
+        final Move move = this.moves[i];
+        this.moves[i] = this.moves[j];
+        this.moves[j] = move;
+        final int score = this.scores[i];
+        this.scores[i] = this.scores[j];
+        this.scores[j] = score;
+    }
+
+}
@@ -8,4 +8,8 @@ public interface MoveStrategy {
     long getNumBoardsEvaluated();
     
     Move execute(Board board);
+
+    // forgets whatever earlier searches left behind, for strategies that are reused across a game
+    default void newGame() {
+    }
 }
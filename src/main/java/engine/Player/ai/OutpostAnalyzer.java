@@ -0,0 +1,63 @@
+package engine.Player.ai;
+
+import static engine.pieces.Piece.PieceType.BISHOP;
+import static engine.pieces.Piece.PieceType.KNIGHT;
+import static engine.pieces.Piece.PieceType.PAWN;
+
+import engine.Player.Player;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.Bits;
+import engine.board.Board;
+
+/*
+ * Knights and bishops on outposts: on the fourth to sixth rank from their side, defended by
+ * one of their pawns, and on a square no enemy pawn can ever attack, as no enemy pawn is left
+ * ahead of it on the files beside it. A knight counts twice, since it gains more from a square
+ * it cannot be driven from than a bishop does.
+ *
+ * Squares are in the bitboard orientation (a1 = 0), as returned by Board.getPieceBitboard.
+ */
+public final class OutpostAnalyzer {
+
+    private static final OutpostAnalyzer INSTANCE = new OutpostAnalyzer();
+    private static final long WHITE_OUTPOST_RANKS = BitBoardUtility.RANK_4 | BitBoardUtility.RANK_5 | BitBoardUtility.RANK_6;
+    private static final long BLACK_OUTPOST_RANKS = BitBoardUtility.RANK_5 | BitBoardUtility.RANK_4 | BitBoardUtility.RANK_3;
+
+    private OutpostAnalyzer() {
+    }
+
+    public static OutpostAnalyzer get() {
+        return INSTANCE;
+    }
+
+    public int outpostScore(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final boolean isWhite = player.getAlliance().isWhite();
+        final long outpostRanks = isWhite ? WHITE_OUTPOST_RANKS : BLACK_OUTPOST_RANKS;
+        final long ownPawns = board.getPieceBitboard(player.getAlliance(), PAWN);
+        final long enemyPawns = board.getPieceBitboard(player.getOpponent().getAlliance(), PAWN);
+        return 2 * outposts(board.getPieceBitboard(player.getAlliance(), KNIGHT) & outpostRanks, isWhite, ownPawns, enemyPawns) +
+               outposts(board.getPieceBitboard(player.getAlliance(), BISHOP) & outpostRanks, isWhite, ownPawns, enemyPawns);
+    }
+
+    private static int outposts(final long candidates,
+                                final boolean isWhite,
+                                final long ownPawns,
+                                final long enemyPawns) {
+        int count = 0;
+        long pieces = candidates;
+        while (pieces != 0) {
+            final int square = Long.numberOfTrailingZeros(pieces);
+            // a pawn defends the square from where an enemy pawn on it would capture
+            final long defenders = (isWhite ? BitBoardUtility.BLACK_PAWN_ATTACKS[square] : BitBoardUtility.WHITE_PAWN_ATTACKS[square]) & ownPawns;
+            final long attackers = (isWhite ? Bits.WhitePassedPawnMask[square] : Bits.BlackPassedPawnMask[square]) &
+                                   Bits.AdjacentFileMask[square & 7] & enemyPawns;
+            if (defenders != 0 && attackers == 0) {
+                count++;
+            }
+            pieces &= pieces - 1;
+        }
+        return count;
+    }
+
+}
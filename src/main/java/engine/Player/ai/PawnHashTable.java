@@ -0,0 +1,112 @@
+package engine.Player.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import engine.Alliance;
+
+/*
+ * Pawn structure scores cached by the board's pawn key. The pawns change only on pawn moves,
+ * captures of pawns and promotions, so nearly every leaf of a search finds the entry a sibling
+ * left. One entry holds the structure score and the passed pawn score of both sides; a probe
+ * returns it packed (0 on a miss), and score() and passedPawns() read one side out of it.
+ *
+ * Like the transposition table each slot stores the key XORed with the entry, so a slot torn
+ * by two threads writing at once reads as a miss. The probe and hit counters are adders, so
+ * threads sharing a table neither lose counts nor contend on one field.
+ */
+public final class PawnHashTable {
+
+    public static final int DEFAULT_SIZE_MB = 1;
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int SCORE_BITS = 24;
+    private static final long SCORE_MASK = (1L << SCORE_BITS) - 1;
+    // set in every stored entry, so that an entry whose scores are both 0 is not taken for a miss
+    private static final long VALID = 1L << (2 * SCORE_BITS);
+    // passed pawn scores sit above the valid bit; eight pawns on the seventh rank score 40
+    private static final int PASSED_BITS = 6;
+    private static final long PASSED_MASK = (1L << PASSED_BITS) - 1;
+    private static final int WHITE_PASSED_SHIFT = 2 * SCORE_BITS + 1;
+    private static final int BLACK_PASSED_SHIFT = WHITE_PASSED_SHIFT + PASSED_BITS;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final long indexMask;
+    private final LongAdder probes;
+    private final LongAdder hits;
+
+    public PawnHashTable(final int sizeInMegabytes) {
+        if (sizeInMegabytes < 1) {
+            throw new RuntimeException("Pawn hash table needs at least 1 MB, got " + sizeInMegabytes);
+        }
+        final long requestedEntries = ((long) sizeInMegabytes << 20) / BYTES_PER_ENTRY;
+        final int capacity = (int) Math.min(Long.highestOneBit(requestedEntries), 1 << 30);
+        this.keys = new long[capacity];
+        this.entries = new long[capacity];
+        this.indexMask = capacity - 1;
+        this.probes = new LongAdder();
+        this.hits = new LongAdder();
+    }
+
+    public long probe(final long pawnKey) {
+        this.probes.increment();
+        final int index = (int) (pawnKey & this.indexMask);
+        final long entry = this.entries[index];
+        if ((entry & VALID) != 0 && (this.keys[index] ^ entry) == pawnKey) {
+            this.hits.increment();
+            return entry;
+        }
+        return 0L;
+    }
+
+    // always replaces: a pawn entry costs little to recompute, and the newest one is the likeliest to be probed again
+    public long store(final long pawnKey,
+                      final int whiteScore,
+                      final int blackScore,
+                      final int whitePassedPawns,
+                      final int blackPassedPawns) {
+        final long entry = VALID | (whiteScore & SCORE_MASK) << SCORE_BITS | (blackScore & SCORE_MASK) |
+                           (whitePassedPawns & PASSED_MASK) << WHITE_PASSED_SHIFT |
+                           (blackPassedPawns & PASSED_MASK) << BLACK_PASSED_SHIFT;
+        final int index = (int) (pawnKey & this.indexMask);
+        this.entries[index] = entry;
+        this.keys[index] = pawnKey ^ entry;
+        return entry;
+    }
+
+    public static int score(final long entry,
+                            final Alliance alliance) {
+        final long bits = alliance.isWhite() ? entry >>> SCORE_BITS : entry;
+        return (int) (bits << (Long.SIZE - SCORE_BITS) >> (Long.SIZE - SCORE_BITS));
+    }
+
+    public static int passedPawns(final long entry,
+                                  final Alliance alliance) {
+        return (int) (entry >>> (alliance.isWhite() ? WHITE_PASSED_SHIFT : BLACK_PASSED_SHIFT) & PASSED_MASK);
+    }
+
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public double hitRate() {
+        final long probes = getProbes();
+        return probes == 0 ? 0.0 : (double) getHits() / probes;
+    }
+
+    public void resetStatistics() {
+        this.probes.reset();
+        this.hits.reset();
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.entries, 0L);
+        resetStatistics();
+    }
+
+}
@@ -1,11 +1,21 @@
 package engine.Player.ai;
 
+import engine.Alliance;
 import engine.Player.Player;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.Bits;
+import engine.board.Board;
 import engine.pieces.Piece;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-
+/*
+ * Doubled and isolated pawn penalties and passed pawns. Both sides are scored together from the
+ * pawn bitboards and kept in a pawn hash table under the board's pawn key, so the structure is
+ * only worked out again when a pawn has moved, been captured or promoted.
+ *
+ * Passed pawns are stored apart from the penalties, since their weight is tuned on its own: one
+ * mask per pawn covers its file and the two beside it ahead of it, and the pawn is passed when
+ * no enemy pawn stands there.
+ */
 public final class PawnStructureAnalyzer {
 
     private static final PawnStructureAnalyzer INSTANCE = new PawnStructureAnalyzer();
@@ -13,28 +23,80 @@ public final class PawnStructureAnalyzer {
     public static final int ISOLATED_PAWN_PENALTY = -10;
     public static final int DOUBLED_PAWN_PENALTY = -10;
 
+    private final PawnHashTable pawnHashTable;
+
     private PawnStructureAnalyzer() {
+        this.pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_SIZE_MB);
     }
 
     public static PawnStructureAnalyzer get() {
         return INSTANCE;
     }
 
+    public PawnHashTable getPawnHashTable() {
+        return this.pawnHashTable;
+    }
+
     public int isolatedPawnPenalty(final Player player) {
-        return calculateIsolatedPawnPenalty(createPawnColumnTable(calculatePlayerPawns(player)));
+        return calculateIsolatedPawnPenalty(createPawnColumnTable(playerPawns(player)));
     }
 
     public int doubledPawnPenalty(final Player player) {
-        return calculatePawnColumnStack(createPawnColumnTable(calculatePlayerPawns(player)));
+        return calculatePawnColumnStack(createPawnColumnTable(playerPawns(player)));
     }
 
     public int pawnStructureScore(final Player player) {
-        final int[] pawnsOnColumnTable = createPawnColumnTable(calculatePlayerPawns(player));
+        return PawnHashTable.score(probe(player.getCurrentBoard()), player.getAlliance());
+    }
+
+    // each passed pawn counts its ranks from its starting rank, 1 on the third up to 5 on the seventh
+    public int passedPawnScore(final Player player) {
+        return PawnHashTable.passedPawns(probe(player.getCurrentBoard()), player.getAlliance());
+    }
+
+    /*
+     * The board's pawn hash entry, worked out and stored on a miss. An evaluation probes once
+     * and reads both sides' scores out of the entry with PawnHashTable.score and passedPawns.
+     */
+    public long probe(final Board board) {
+        final long pawnKey = board.getPawnKey();
+        final long entry = this.pawnHashTable.probe(pawnKey);
+        if (entry != 0L) {
+            return entry;
+        }
+        final long whitePawns = board.getPieceBitboard(Alliance.WHITE, Piece.PieceType.PAWN);
+        final long blackPawns = board.getPieceBitboard(Alliance.BLACK, Piece.PieceType.PAWN);
+        return this.pawnHashTable.store(pawnKey,
+                calculatePawnStructureScore(board, Alliance.WHITE),
+                calculatePawnStructureScore(board, Alliance.BLACK),
+                calculatePassedPawnScore(whitePawns, blackPawns, true),
+                calculatePassedPawnScore(blackPawns, whitePawns, false));
+    }
+
+    private static int calculatePassedPawnScore(final long playerPawns,
+                                                final long enemyPawns,
+                                                final boolean isWhite) {
+        final long[] passedPawnMask = isWhite ? Bits.WhitePassedPawnMask : Bits.BlackPassedPawnMask;
+        long pawns = playerPawns;
+        int score = 0;
+        while (pawns != 0) {
+            final int square = Long.numberOfTrailingZeros(pawns);
+            if ((enemyPawns & passedPawnMask[square]) == 0) {
+                score += (isWhite ? square >>> 3 : 7 - (square >>> 3)) - 1;
+            }
+            pawns &= pawns - 1;
+        }
+        return score;
+    }
+
+    private static int calculatePawnStructureScore(final Board board,
+                                                   final Alliance alliance) {
+        final int[] pawnsOnColumnTable = createPawnColumnTable(board.getPieceBitboard(alliance, Piece.PieceType.PAWN));
         return calculatePawnColumnStack(pawnsOnColumnTable) + calculateIsolatedPawnPenalty(pawnsOnColumnTable);
     }
 
-    private static Collection<Piece> calculatePlayerPawns(final Player player) {
-        return player.getActivePieces().stream().filter(piece -> piece.getPieceType() == Piece.PieceType.PAWN).collect(Collectors.toList());
+    private static long playerPawns(final Player player) {
+        return player.getCurrentBoard().getPieceBitboard(player.getAlliance(), Piece.PieceType.PAWN);
     }
 
     private static int calculatePawnColumnStack(final int[] pawnsOnColumnTable) {
@@ -63,13 +125,13 @@ public final class PawnStructureAnalyzer {
         return numIsolatedPawns * ISOLATED_PAWN_PENALTY;
     }
 
-    private static int[] createPawnColumnTable(final Collection<Piece> playerPawns) {
+    // the bitboard's files line up with the mailbox columns (square & 7), so column 0 is the a-file
+    private static int[] createPawnColumnTable(final long pawns) {
         final int[] table = new int[8];
-        for(final Piece playerPawn : playerPawns) {
-            table[playerPawn.getPiecePosition() % 8]++;
+        for(int column = 0; column < table.length; column++) {
+            table[column] = Long.bitCount(pawns & (BitBoardUtility.FILE_A << column));
         }
         return table;
     }
 
 }
-
@@ -0,0 +1,309 @@
+package engine.Player.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import engine.Player.MoveTransition;
+import engine.Player.ai.TranspositionTable.BoundType;
+import engine.board.Board;
+import engine.board.BoardUtils;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+import engine.board.MoveUtils;
+
+/*
+ * Negamax principal variation search. The first move of every node is searched with the full
+ * window and the rest with a null window around alpha, re-searched only when they fail high.
+ * Each iteration of the depth loop starts with an aspiration window around the previous score
+ * and widens it on failure. The principal variation is collected in a triangular table and
+ * handed to observers after every completed depth.
+ *
+ * Non-PV nodes first try a null move searched with a reduced depth, and late quiet moves are
+ * searched one or two plies shallower, with a full depth re-search when they beat alpha.
+ *
+ * Scores inside the search are relative to the side to move; everything stored in the
+ * transposition table or reported to observers is white relative like the other strategies.
+ */
+public class PrincipalVariationSearch implements MoveStrategy {
+
+    private static final int INFINITY = Integer.MAX_VALUE - 1;
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int MAX_ASPIRATION_WINDOW = 1600;
+
+    private final EvaluationCache evaluator;
+    private final int searchDepth;
+    private final TranspositionTable transpositionTable;
+    private final QuiescenceSearch quiescenceSearch;
+    private final SearchHeuristics heuristics;
+    private final Move[][] pvTable;
+    private final int[] pvLength;
+    private long boardsEvaluated;
+    private long researches;
+    private long nullMoveCutoffs;
+    private long lateMoveReductions;
+    private long lateMoveResearches;
+    private List<Move> principalVariation;
+
+    private final List<AlphaBetaObserver> observers = new ArrayList<>();
+
+    public PrincipalVariationSearch(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
+    }
+
+    public PrincipalVariationSearch(final int searchDepth,
+                                    final TranspositionTable transpositionTable) {
+        this.evaluator = new EvaluationCache(StandardBoardEvaluator.get(), EvaluationCache.DEFAULT_SIZE_MB);
+        this.searchDepth = Math.max(1, Math.min(searchDepth, IterativeDeepening.MAX_SEARCH_DEPTH));
+        this.transpositionTable = transpositionTable;
+        this.quiescenceSearch = new QuiescenceSearch(this.evaluator, QuiescenceSearch.DEFAULT_MAX_DEPTH);
+        this.heuristics = new SearchHeuristics();
+        this.pvTable = new Move[SearchHeuristics.MAX_PLY][SearchHeuristics.MAX_PLY];
+        this.pvLength = new int[SearchHeuristics.MAX_PLY];
+        this.boardsEvaluated = 0;
+        this.researches = 0;
+        this.nullMoveCutoffs = 0;
+        this.lateMoveReductions = 0;
+        this.lateMoveResearches = 0;
+        this.principalVariation = Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return "PVS";
+    }
+
+    @Override
+    public long getNumBoardsEvaluated() {
+        return this.boardsEvaluated + this.quiescenceSearch.getBoardsEvaluated();
+    }
+
+    @Override
+    public void newGame() {
+        this.transpositionTable.clear();
+        this.evaluator.clear();
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    @Override
+    public Move execute(final Board board) {
+        final long startTime = System.currentTimeMillis();
+        final int sign = board.currentPlayer().getAlliance().isWhite() ? 1 : -1;
+        System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        this.transpositionTable.newSearch();
+        this.heuristics.newSearch();
+        PawnStructureAnalyzer.get().getPawnHashTable().resetStatistics();
+        this.evaluator.resetStatistics();
+        this.researches = 0;
+        this.nullMoveCutoffs = 0;
+        this.lateMoveReductions = 0;
+        this.lateMoveResearches = 0;
+        this.principalVariation = Collections.emptyList();
+        Move bestMove = MoveFactory.getNullMove();
+        int score = 0;
+
+        for (int depth = 1; depth <= this.searchDepth; depth++) {
+            final long depthStartTime = System.nanoTime();
+            score = depth == 1 ? search(board, depth, 0, -INFINITY, INFINITY, true) : aspirationSearch(board, depth, score);
+            if (this.pvLength[0] == 0) {
+                break;
+            }
+            this.principalVariation = extractPrincipalVariation();
+            bestMove = this.principalVariation.get(0);
+            final String s = "\t" + toString() + "(" + depth + ") score: " + sign * score + " pv: " +
+                    MoveUtils.toLineString(this.principalVariation) + ", t: " + calculateTimeTaken(depthStartTime, System.nanoTime());
+            System.out.println(s);
+            notifyMoveEvaluated(s);
+            notifyPrincipalVariation(depth, sign * score, this.principalVariation);
+        }
+
+        final long executionTime = Math.max(1, System.currentTimeMillis() - startTime);
+        final long boardsEvaluated = getNumBoardsEvaluated();
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f, re-searches = %d, " +
+                        "null move cutoffs = %d, reductions = %d, reduction re-searches = %d, losing captures pruned = %d, " +
+                        "pawn hash hits = %.1f%%, eval cache hits = %.1f%%]\n",
+                board.currentPlayer(), bestMove, boardsEvaluated, executionTime,
+                (1000 * ((double) boardsEvaluated / executionTime)), this.researches,
+                this.nullMoveCutoffs, this.lateMoveReductions, this.lateMoveResearches,
+                this.quiescenceSearch.getLosingCapturePrunes(),
+                100 * PawnStructureAnalyzer.get().getPawnHashTable().hitRate(), 100 * this.evaluator.hitRate());
+        notifyBestMoveSelected(bestMove);
+        return bestMove;
+    }
+
+    /*
+     * Searches a window of ASPIRATION_WINDOW around the previous depth's score. A fail low or
+     * fail high widens only the side that failed, four times as much each time, until the
+     * window passes MAX_ASPIRATION_WINDOW and the search falls back to the full window.
+     */
+    private int aspirationSearch(final Board board,
+                                 final int depth,
+                                 final int previousScore) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = clamp((long) previousScore - delta);
+        int beta = clamp((long) previousScore + delta);
+        while (true) {
+            final int score = search(board, depth, 0, alpha, beta, true);
+            if (score > alpha && score < beta) {
+                return score;
+            }
+            this.researches++;
+            delta *= 4;
+            if (score <= alpha) {
+                alpha = delta > MAX_ASPIRATION_WINDOW ? -INFINITY : clamp((long) score - delta);
+            } else {
+                beta = delta > MAX_ASPIRATION_WINDOW ? INFINITY : clamp((long) score + delta);
+            }
+        }
+    }
+
+    private int search(final Board board,
+                       final int depth,
+                       final int ply,
+                       final int alpha,
+                       final int beta,
+                       final boolean pvNode) {
+        this.pvLength[ply] = ply;
+        final int sign = board.currentPlayer().getAlliance().isWhite() ? 1 : -1;
+        if (BoardUtils.isEndGame(board)) {
+            this.boardsEvaluated++;
+            return sign * this.evaluator.evaluate(board, Math.max(depth, 0));
+        }
+        if (depth <= 0 || ply >= SearchHeuristics.MAX_PLY - 1) {
+            return sign > 0 ? this.quiescenceSearch.max(board, alpha, beta) :
+                              -this.quiescenceSearch.min(board, -beta, -alpha);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (!pvNode && (sign > 0 ? TranspositionTable.canCutOff(entry, depth, alpha, beta) :
+                                   TranspositionTable.canCutOff(entry, depth, -beta, -alpha))) {
+            return sign * TranspositionTable.score(entry);
+        }
+        final boolean inCheck = board.currentPlayer().isInCheck();
+        if (!pvNode && SearchHeuristics.canTryNullMove(board, depth)) {
+            final int score = -search(board.makeNullMove(), depth - 1 - SearchHeuristics.nullMoveReduction(depth),
+                    ply + 1, -beta, -beta + 1, false);
+            if (score >= beta) {
+                this.nullMoveCutoffs++;
+                return beta;
+            }
+        }
+        int currentAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = 0;
+        int movesSearched = 0;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (!moveTransition.getMoveStatus().isDone()) {
+                continue;
+            }
+            final Board toBoard = moveTransition.getToBoard();
+            int score;
+            if (movesSearched == 0) {
+                score = -search(toBoard, depth - 1, ply + 1, -beta, -currentAlpha, pvNode);
+            } else {
+                final int reduction = SearchHeuristics.lateMoveReduction(depth, movesSearched, inCheck, move, toBoard);
+                if (reduction > 0) {
+                    this.lateMoveReductions++;
+                }
+                score = -search(toBoard, depth - 1 - reduction, ply + 1, -currentAlpha - 1, -currentAlpha, false);
+                if (reduction > 0 && score > currentAlpha) {
+                    this.lateMoveResearches++;
+                    score = -search(toBoard, depth - 1, ply + 1, -currentAlpha - 1, -currentAlpha, false);
+                }
+                if (score > currentAlpha && score < beta) {
+                    this.researches++;
+                    score = -search(toBoard, depth - 1, ply + 1, -beta, -currentAlpha, true);
+                }
+            }
+            movesSearched++;
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > currentAlpha) {
+                    currentAlpha = score;
+                    bestMove = MoveUtils.encode(move);
+                    updatePrincipalVariation(ply, move);
+                    if (currentAlpha >= beta) {
+                        this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
+                        store(board, depth, sign, bestScore, BoundType.LOWER, bestMove);
+                        return bestScore;
+                    }
+                }
+            }
+        }
+        store(board, depth, sign, bestScore, currentAlpha > alpha ? BoundType.EXACT : BoundType.UPPER, bestMove);
+        return bestScore;
+    }
+
+    // the table keeps white relative scores, so a bound from black's point of view flips
+    private void store(final Board board,
+                       final int depth,
+                       final int sign,
+                       final int score,
+                       final BoundType bound,
+                       final int bestMove) {
+        final BoundType whiteBound = sign > 0 || bound == BoundType.EXACT ? bound :
+                                     bound == BoundType.LOWER ? BoundType.UPPER : BoundType.LOWER;
+        this.transpositionTable.store(board.getZobristKey(), depth, sign * score, whiteBound, bestMove);
+    }
+
+    private void updatePrincipalVariation(final int ply,
+                                          final Move move) {
+        this.pvTable[ply][ply] = move;
+        final int childLength = this.pvLength[ply + 1];
+        System.arraycopy(this.pvTable[ply + 1], ply + 1, this.pvTable[ply], ply + 1, childLength - (ply + 1));
+        this.pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private List<Move> extractPrincipalVariation() {
+        final List<Move> pv = new ArrayList<>(this.pvLength[0]);
+        for (int i = 0; i < this.pvLength[0]; i++) {
+            pv.add(this.pvTable[0][i]);
+        }
+        return Collections.unmodifiableList(pv);
+    }
+
+    private static int clamp(final long score) {
+        return (int) Math.max(-INFINITY, Math.min(INFINITY, score));
+    }
+
+    private static String calculateTimeTaken(final long start, final long end) {
+        final long timeTaken = (end - start) / 1000000;
+        return timeTaken + " ms";
+    }
+
+    public interface AlphaBetaObserver {
+        void onMoveEvaluated(String message);
+        void onBestMoveSelected(Move bestMove);
+        void onPrincipalVariation(int depth, int score, List<Move> principalVariation);
+    }
+
+    public void addObserver(AlphaBetaObserver observer) {
+        this.observers.add(observer);
+    }
+
+    public void removeObserver(AlphaBetaObserver observer) {
+        this.observers.remove(observer);
+    }
+
+    private void notifyMoveEvaluated(String message) {
+        for (AlphaBetaObserver observer : observers) {
+            observer.onMoveEvaluated(message);
+        }
+    }
+
+    private void notifyBestMoveSelected(Move bestMove) {
+        for (AlphaBetaObserver observer : observers) {
+            observer.onBestMoveSelected(bestMove);
+        }
+    }
+
+    private void notifyPrincipalVariation(int depth, int score, List<Move> principalVariation) {
+        for (AlphaBetaObserver observer : observers) {
+            observer.onPrincipalVariation(depth, score, principalVariation);
+        }
+    }
+}
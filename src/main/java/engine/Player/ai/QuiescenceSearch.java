@@ -0,0 +1,154 @@
+package engine.Player.ai;
+
+import engine.Player.MoveTransition;
+import engine.board.Board;
+import engine.board.Move;
+import engine.pieces.Piece;
+
+/*
+ * Capture search run at the leaves of the main search so that it never stops in the middle of
+ * an exchange. The side to move may stand pat on the static evaluation; otherwise only
+ * captures and promotions are tried, best static exchange first. Captures that cannot bring
+ * the score back up to alpha even with a safety margin are skipped (delta pruning), and so are
+ * captures that lose material by static exchange, since standing pat is never worse.
+ * When the side to move is in check every evasion is searched instead. Scores are white
+ * relative, like the rest of the searches, so there is a max and a min flavour.
+ */
+final class QuiescenceSearch {
+
+    static final int DEFAULT_MAX_DEPTH = 6;
+    private static final int DELTA_MARGIN = 200;
+
+    private final BoardEvaluator evaluator;
+    private final int maxDepth;
+    private long boardsEvaluated;
+    private long deltaPrunes;
+    private long losingCapturePrunes;
+
+    QuiescenceSearch(final BoardEvaluator evaluator,
+                     final int maxDepth) {
+        this.evaluator = evaluator;
+        this.maxDepth = maxDepth;
+        this.boardsEvaluated = 0;
+        this.deltaPrunes = 0;
+        this.losingCapturePrunes = 0;
+    }
+
+    long getBoardsEvaluated() {
+        return this.boardsEvaluated;
+    }
+
+    long getDeltaPrunes() {
+        return this.deltaPrunes;
+    }
+
+    long getLosingCapturePrunes() {
+        return this.losingCapturePrunes;
+    }
+
+    int max(final Board board,
+            final int alpha,
+            final int beta) {
+        return max(board, alpha, beta, 0);
+    }
+
+    int min(final Board board,
+            final int alpha,
+            final int beta) {
+        return min(board, alpha, beta, 0);
+    }
+
+    private int max(final Board board,
+                    final int alpha,
+                    final int beta,
+                    final int ply) {
+        final boolean inCheck = board.currentPlayer().isInCheck();
+        int currentHighest = alpha;
+        int standPat = Integer.MIN_VALUE;
+        if (!inCheck || ply >= this.maxDepth) {
+            standPat = evaluate(board, alpha, beta);
+            if (standPat >= beta || ply >= this.maxDepth) {
+                return standPat;
+            }
+            currentHighest = Math.max(currentHighest, standPat);
+        }
+        boolean hasLegalMove = false;
+        final MovePicker movePicker = new MovePicker(board.currentPlayer().getLegalMoves(), 0, !inCheck);
+        for (final Move move : movePicker) {
+            if (!inCheck && standPat + materialGain(move) + DELTA_MARGIN <= currentHighest) {
+                this.deltaPrunes++;
+                continue;
+            }
+            if (!inCheck && movePicker.isLosingCapture()) {
+                this.losingCapturePrunes++;
+                continue;
+            }
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                hasLegalMove = true;
+                currentHighest = Math.max(currentHighest, min(moveTransition.getToBoard(), currentHighest, beta, ply + 1));
+                if (currentHighest >= beta) {
+                    return currentHighest;
+                }
+            }
+        }
+        return inCheck && !hasLegalMove ? evaluate(board) : currentHighest;
+    }
+
+    private int min(final Board board,
+                    final int alpha,
+                    final int beta,
+                    final int ply) {
+        final boolean inCheck = board.currentPlayer().isInCheck();
+        int currentLowest = beta;
+        int standPat = Integer.MAX_VALUE;
+        if (!inCheck || ply >= this.maxDepth) {
+            standPat = evaluate(board, alpha, beta);
+            if (standPat <= alpha || ply >= this.maxDepth) {
+                return standPat;
+            }
+            currentLowest = Math.min(currentLowest, standPat);
+        }
+        boolean hasLegalMove = false;
+        final MovePicker movePicker = new MovePicker(board.currentPlayer().getLegalMoves(), 0, !inCheck);
+        for (final Move move : movePicker) {
+            if (!inCheck && standPat - materialGain(move) - DELTA_MARGIN >= currentLowest) {
+                this.deltaPrunes++;
+                continue;
+            }
+            if (!inCheck && movePicker.isLosingCapture()) {
+                this.losingCapturePrunes++;
+                continue;
+            }
+            final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
+            if (moveTransition.getMoveStatus().isDone()) {
+                hasLegalMove = true;
+                currentLowest = Math.min(currentLowest, max(moveTransition.getToBoard(), alpha, currentLowest, ply + 1));
+                if (currentLowest <= alpha) {
+                    return currentLowest;
+                }
+            }
+        }
+        return inCheck && !hasLegalMove ? evaluate(board) : currentLowest;
+    }
+
+    private int evaluate(final Board board) {
+        this.boardsEvaluated++;
+        return this.evaluator.evaluate(board, 0);
+    }
+
+    // standing pat only needs the exact score inside the window, so the evaluator may stop early
+    private int evaluate(final Board board,
+                         final int alpha,
+                         final int beta) {
+        this.boardsEvaluated++;
+        return this.evaluator.evaluate(board, 0, alpha, beta);
+    }
+
+    private static int materialGain(final Move move) {
+        final Piece promotionPiece = move.getPromotionPiece();
+        return (move.isAttack() ? move.getAttackedPiece().getPieceValue() : 0) +
+               (promotionPiece != null ? promotionPiece.getPieceValue() - Piece.PieceType.PAWN.getPieceValue() : 0);
+    }
+
+}
@@ -1,21 +1,21 @@
 package engine.Player.ai;
 
+import static engine.pieces.Piece.PieceType.PAWN;
 import static engine.pieces.Piece.PieceType.ROOK;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-
 import engine.Player.Player;
-import engine.pieces.Piece;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.Bits;
+import engine.bitBoard.moveGeneration.magics.Magic;
 import engine.board.Board;
 
+/*
+ * Rooks on open files (no pawns at all), on semi-open files (no pawns of their own side) and
+ * rooks that defend each other along a rank or file. Each is a file mask or one rook attack
+ * lookup against the board's bitboards, so the terms cost a few popcounts per rook.
+ */
 public final class RookStructureAnalyzer {
 
     private static final RookStructureAnalyzer INSTANCE = new RookStructureAnalyzer();
-    private static final int OPEN_COLUMN_ROOK_BONUS = 45;
-    private static final int SEMI_OPEN_COLUMN_ROOK_BONUS = 20;
-    private static final int CONNECTED_ROOK_BONUS = 20;
-    private static final int NO_BONUS = 0;
 
     private RookStructureAnalyzer() {
     }
@@ -24,65 +24,42 @@ public final class RookStructureAnalyzer {
         return INSTANCE;
     }
 
-    public int rookStructureScore(final Player player, final Board board) {
-        final Collection<Piece> playerRooks = getPlayerRooks(player);
-
-        if (playerRooks.isEmpty()) {
-            return NO_BONUS; // no rooks, no bonus
-        }
-
-        final int[] piecesOnColumns = getPiecesOnColumns(board);
-        return calculateRookBonus(playerRooks, piecesOnColumns);
+    public int openFileRooks(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final long pawns = board.getPieceBitboard(player.getAlliance(), PAWN) |
+                           board.getPieceBitboard(player.getOpponent().getAlliance(), PAWN);
+        return rooksOnFilesWithout(board.getPieceBitboard(player.getAlliance(), ROOK), pawns);
     }
 
-    private Collection<Piece> getPlayerRooks(final Player player) {
-        return player.getActivePieces().stream()
-                .filter(piece -> piece.getPieceType() == ROOK)
-                .collect(Collectors.toList());
-    }
-
-    private int[] getPiecesOnColumns(final Board board) {
-        final int[] piecesOnColumns = new int[8]; // 8 columns
-
-        for (final Piece piece : board.getAllPieces()) {
-            int column = piece.getPiecePosition() % 8;
-            piecesOnColumns[column]++;
-        }
-        return piecesOnColumns;
+    public int semiOpenFileRooks(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final long ownPawns = board.getPieceBitboard(player.getAlliance(), PAWN);
+        final long enemyPawns = board.getPieceBitboard(player.getOpponent().getAlliance(), PAWN);
+        return rooksOnFilesWithout(board.getPieceBitboard(player.getAlliance(), ROOK), ownPawns) -
+               rooksOnFilesWithout(board.getPieceBitboard(player.getAlliance(), ROOK), ownPawns | enemyPawns);
     }
 
-    private int calculateRookBonus(final Collection<Piece> rooks, final int[] piecesOnColumns) {
-        int bonus = NO_BONUS;
-
-        for (final Piece rook : rooks) {
-            int column = rook.getPiecePosition() % 8;
-            if (piecesOnColumns[column] == 1) { // Rook is alone on the file
-                bonus += OPEN_COLUMN_ROOK_BONUS;
-            } else if (piecesOnColumns[column] == 2) { // Semi-open file (only one opposing piece)
-                bonus += SEMI_OPEN_COLUMN_ROOK_BONUS;
-            }
-            bonus += calculateConnectedRookBonus(rooks, rook);
+    // 1 when a rook sees another of its rooks down a rank or file with nothing in between
+    public int connectedRooks(final Player player) {
+        final Board board = player.getCurrentBoard();
+        final long rooks = board.getPieceBitboard(player.getAlliance(), ROOK);
+        if (Long.bitCount(rooks) < 2) {
+            return 0;
         }
-        return bonus;
+        return (Magic.getRookAttacks(Long.numberOfTrailingZeros(rooks), board.getOccupancy()) & rooks) != 0 ? 1 : 0;
     }
 
-    private int calculateConnectedRookBonus(final Collection<Piece> rooks, final Piece rook) {
-        for (final Piece otherRook : rooks) {
-            if (otherRook != rook) {
-                if (isConnectedHorizontally(rook, otherRook) || isConnectedVertically(rook, otherRook)) {
-                    return CONNECTED_ROOK_BONUS;
-                }
+    private static int rooksOnFilesWithout(final long playerRooks,
+                                           final long pawns) {
+        int count = 0;
+        long rooks = playerRooks;
+        while (rooks != 0) {
+            if ((pawns & Bits.FileMask[Long.numberOfTrailingZeros(rooks) & 7]) == 0) {
+                count++;
             }
+            rooks &= rooks - 1;
         }
-        return NO_BONUS;
+        return count;
     }
 
-    private boolean isConnectedHorizontally(final Piece rook1, final Piece rook2) {
-        return rook1.getPiecePosition() / 8 == rook2.getPiecePosition() / 8; 
-    }
-
-    private boolean isConnectedVertically(final Piece rook1, final Piece rook2) {
-        return rook1.getPiecePosition() % 8 == rook2.getPiecePosition() % 8;
-    }
 }
-
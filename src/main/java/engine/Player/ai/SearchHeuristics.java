@@ -0,0 +1,134 @@
+package engine.Player.ai;
+
+import java.util.Arrays;
+
+import engine.board.Board;
+import engine.board.BoardUtils;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+import engine.board.MoveUtils;
+import engine.board.ZobristUtils;
+
+/*
+ * What a search learns from its beta cutoffs, used to order the quiet moves of later nodes:
+ * two killer slots per ply, a [piece][to square] butterfly history table and a counter move
+ * table indexed by the opponent's previous move. One instance belongs to one search thread.
+ * The static helpers hold the conditions for null move pruning and late move reductions
+ * shared by the searches.
+ */
+final class SearchHeuristics {
+
+    static final int MAX_PLY = 128;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_DEPTH_MOVES = 3;
+    private static final int PIECE_INDICES = 16;
+    private static final int MAX_HISTORY = 1 << 14;
+
+    private final int[][] killers;
+    private final int[][] history;
+    private final int[][] counterMoves;
+    private long cutoffsRecorded;
+
+    SearchHeuristics() {
+        this.killers = new int[MAX_PLY][2];
+        this.history = new int[PIECE_INDICES][64];
+        this.counterMoves = new int[PIECE_INDICES][64];
+        this.cutoffsRecorded = 0;
+    }
+
+    long getCutoffsRecorded() {
+        return this.cutoffsRecorded;
+    }
+
+    // killers only make sense inside one search; history is kept but its weight halved
+    void newSearch() {
+        for (final int[] slots : this.killers) {
+            Arrays.fill(slots, 0);
+        }
+        for (final int[] row : this.history) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] /= 2;
+            }
+        }
+    }
+
+    void recordCutoff(final Move move,
+                      final int depth,
+                      final int ply,
+                      final Move previousMove) {
+        if (MovePicker.isTactical(move)) {
+            return;
+        }
+        this.cutoffsRecorded++;
+        final int encodedMove = MoveUtils.encode(move);
+        if (ply < MAX_PLY && this.killers[ply][0] != encodedMove) {
+            this.killers[ply][1] = this.killers[ply][0];
+            this.killers[ply][0] = encodedMove;
+        }
+        final int[] row = this.history[ZobristUtils.bitPieceIndex(move.getMovedPiece())];
+        final int to = move.getDestinationCoordinate();
+        row[to] += depth * depth;
+        if (row[to] >= MAX_HISTORY) {
+            for (final int[] pieceRow : this.history) {
+                for (int i = 0; i < pieceRow.length; i++) {
+                    pieceRow[i] /= 2;
+                }
+            }
+        }
+        if (hasPiece(previousMove)) {
+            this.counterMoves[ZobristUtils.bitPieceIndex(previousMove.getMovedPiece())]
+                             [previousMove.getDestinationCoordinate()] = encodedMove;
+        }
+    }
+
+    int killer(final int ply,
+               final int slot) {
+        return ply < MAX_PLY ? this.killers[ply][slot] : 0;
+    }
+
+    int counterMove(final Move previousMove) {
+        return hasPiece(previousMove) ?
+               this.counterMoves[ZobristUtils.bitPieceIndex(previousMove.getMovedPiece())]
+                                [previousMove.getDestinationCoordinate()] : 0;
+    }
+
+    // always below MAX_HISTORY (1 << 14), so it never outranks a killer or counter move
+    int history(final Move move) {
+        return this.history[ZobristUtils.bitPieceIndex(move.getMovedPiece())][move.getDestinationCoordinate()];
+    }
+
+    /*
+     * Passing is only tried where it cannot hide a zugzwang or a mate: not in check, not right
+     * after the opponent passed, and not when the side to move has nothing but pawns left.
+     */
+    static boolean canTryNullMove(final Board board,
+                                  final int depth) {
+        return depth >= NULL_MOVE_MIN_DEPTH &&
+               !board.currentPlayer().isInCheck() &&
+               board.getTransitionMove() != MoveFactory.getNullMove() &&
+               BoardUtils.totalPieceCountWithoutPawnsAndKings(board.currentPlayer()) > 0;
+    }
+
+    static int nullMoveReduction(final int depth) {
+        return depth >= 7 ? 3 : 2;
+    }
+
+    // quiet moves late in the ordering that neither escape nor give check are searched shallower
+    static int lateMoveReduction(final int depth,
+                                 final int movesSearched,
+                                 final boolean inCheck,
+                                 final Move move,
+                                 final Board toBoard) {
+        if (depth < LMR_MIN_DEPTH || movesSearched < LMR_FULL_DEPTH_MOVES || inCheck ||
+            MovePicker.isTactical(move) || toBoard.currentPlayer().isInCheck()) {
+            return 0;
+        }
+        return movesSearched >= 2 * LMR_FULL_DEPTH_MOVES && depth >= 6 ? 2 : 1;
+    }
+
+    private static boolean hasPiece(final Move move) {
+        return move != null && move.getMovedPiece() != null;
+    }
+
+}
@@ -1,14 +1,13 @@
 package engine.Player.ai;
 
 import engine.Player.Player;
-import engine.Player.ai.KingSafetyAnalyzer.KingDistance;
 import engine.board.Board;
-import engine.pieces.Piece;
+import engine.board.Board.GameState;
+import engine.board.PieceSquareTables;
 import static engine.pieces.Piece.PieceType.BISHOP;
 
-import engine.board.Move;
 
-import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.atomic.LongAdder;
 
 //import java.util.*;
 
@@ -18,102 +17,207 @@ public final class StandardBoardEvaluator
 
     //BONUSES
     private final static int CHECK_MATE_BONUS = 10000;
-    private final static int CHECK_BONUS = 20;
-    private final static int CASTLE_BONUS = 75;
-    private final static int MOBILITY_MULTIPLIER = 5;
-    private final static int ATTACK_MULTIPLIER = 1;
-    private final static int TWO_BISHOPS_BONUS = 25;
+    // what checkStatus finds of the opponent's king
+    private final static int NOT_IN_CHECK = 0;
+    private final static int IN_CHECK = 1;
+    private final static int MATED = 2;
+    //TAPERED BONUSES AND WEIGHTS, packed as middlegame and endgame values by PieceSquareTables.pack
+    private final static EvaluationWeights WEIGHTS = EvaluationWeights.get();
+    private final static int CHECK_BONUS = packedTerm(EvaluationWeights.CHECK);
+    private final static int CASTLE_BONUS = packedTerm(EvaluationWeights.CASTLE);
+    private final static int MOBILITY_MULTIPLIER = packedTerm(EvaluationWeights.MOBILITY);
+    private final static int ATTACK_MULTIPLIER = packedTerm(EvaluationWeights.ATTACK);
+    private final static int TWO_BISHOPS_BONUS = packedTerm(EvaluationWeights.BISHOP_PAIR);
+    private final static int PAWN_STRUCTURE_MULTIPLIER = packedTerm(EvaluationWeights.PAWN_STRUCTURE);
+    private final static int KING_SAFETY_MULTIPLIER = packedTerm(EvaluationWeights.KING_SAFETY);
+    private final static int PAWN_SHELTER_MULTIPLIER = packedTerm(EvaluationWeights.PAWN_SHELTER);
+    private final static int PASSED_PAWN_MULTIPLIER = packedTerm(EvaluationWeights.PASSED_PAWN);
+    private final static int OPEN_FILE_ROOK_BONUS = packedTerm(EvaluationWeights.ROOK_OPEN_FILE);
+    private final static int SEMI_OPEN_FILE_ROOK_BONUS = packedTerm(EvaluationWeights.ROOK_SEMI_OPEN_FILE);
+    private final static int CONNECTED_ROOKS_BONUS = packedTerm(EvaluationWeights.CONNECTED_ROOKS);
+    private final static int OUTPOST_MULTIPLIER = packedTerm(EvaluationWeights.OUTPOST);
     //private final static int COORDINATED_ATTACK_MULTIPLIER = 20;
     //private static final int TRADE_BONUS = 10;
     //private static final int TRADE_PENALTY = 40;
     //private static final int VULNERABLE_PENALTY = 2;
 
+    //LAZY EVALUATION: a leaf whose cheap terms miss the window by more than this skips the rest
+    public static final int DEFAULT_LAZY_MARGIN = 300;
+
     private static final StandardBoardEvaluator INSTANCE = new StandardBoardEvaluator();
 
+    private final int lazyMargin;
+    // shared by every search thread using the evaluator, hence adders rather than plain fields
+    private final LongAdder lazyCutoffs;
+    private final LongAdder fullEvaluations;
+
     StandardBoardEvaluator() {
+        this(DEFAULT_LAZY_MARGIN);
+    }
+
+    public StandardBoardEvaluator(final int lazyMargin) {
+        if (lazyMargin < 0) {
+            throw new RuntimeException("Lazy evaluation margin cannot be negative, got " + lazyMargin);
+        }
+        this.lazyMargin = lazyMargin;
+        this.lazyCutoffs = new LongAdder();
+        this.fullEvaluations = new LongAdder();
     }
 
     public static StandardBoardEvaluator get() {
         return INSTANCE;
     }
 
+    private static int packedTerm(final int term) {
+        return PieceSquareTables.pack(WEIGHTS.middlegame(EvaluationWeights.termIndex(term)),
+                                      WEIGHTS.endgame(EvaluationWeights.termIndex(term)));
+    }
+
+    /*
+     * How many times each tapered term's weight is counted for the player, in EvaluationWeights
+     * term order, so the tuner can fit the weights to the same features this evaluator scores.
+     */
+    public static int[] termCounts(final Player player) {
+        final int[] counts = new int[EvaluationWeights.TERM_NAMES.length];
+        final long pawnEntry = PawnStructureAnalyzer.get().probe(player.getCurrentBoard());
+        counts[EvaluationWeights.CHECK] = checkCount(checkStatus(player));
+        counts[EvaluationWeights.CASTLE] = castleCount(player);
+        counts[EvaluationWeights.MOBILITY] = mobilityRatio(player);
+        counts[EvaluationWeights.ATTACK] = AttackAnalyzer.get().attackCount(player);
+        counts[EvaluationWeights.BISHOP_PAIR] = bishopPairCount(player);
+        counts[EvaluationWeights.PAWN_STRUCTURE] = PawnHashTable.score(pawnEntry, player.getAlliance());
+        counts[EvaluationWeights.KING_SAFETY] = -KingSafetyAnalyzer.get().kingDanger(player);
+        counts[EvaluationWeights.PAWN_SHELTER] = KingSafetyAnalyzer.get().pawnShelter(player);
+        counts[EvaluationWeights.PASSED_PAWN] = PawnHashTable.passedPawns(pawnEntry, player.getAlliance());
+        counts[EvaluationWeights.ROOK_OPEN_FILE] = RookStructureAnalyzer.getInstance().openFileRooks(player);
+        counts[EvaluationWeights.ROOK_SEMI_OPEN_FILE] = RookStructureAnalyzer.getInstance().semiOpenFileRooks(player);
+        counts[EvaluationWeights.CONNECTED_ROOKS] = RookStructureAnalyzer.getInstance().connectedRooks(player);
+        counts[EvaluationWeights.OUTPOST] = OutpostAnalyzer.get().outpostScore(player);
+        return counts;
+    }
+
     @Override
     public int evaluate(final Board board,
                         final int depth) {
-        return score(board.whitePlayer(), depth) - score(board.blackPlayer(), depth);
+        final int gamePhase = PieceSquareTables.gamePhase(board);
+        final long pawnEntry = PawnStructureAnalyzer.get().probe(board);
+        return score(board.whitePlayer(), depth, gamePhase, cheapTerms(board.whitePlayer(), pawnEntry), pawnEntry) -
+               score(board.blackPlayer(), depth, gamePhase, cheapTerms(board.blackPlayer(), pawnEntry), pawnEntry);
+    }
+
+    /*
+     * Material, piece-square and pawn structure come first, being carried on the board or kept
+     * in the pawn hash. When those alone are more than the lazy margin below alpha or above
+     * beta, the leaf cannot matter to the search and that score is returned. A side in check
+     * is always scored in full, as only the full evaluation looks for mate. The counters stay
+     * exact when search threads share the evaluator.
+     */
+    @Override
+    public int evaluate(final Board board,
+                        final int depth,
+                        final int alpha,
+                        final int beta) {
+        final int gamePhase = PieceSquareTables.gamePhase(board);
+        final long pawnEntry = PawnStructureAnalyzer.get().probe(board);
+        final int whiteCheapTerms = cheapTerms(board.whitePlayer(), pawnEntry);
+        final int blackCheapTerms = cheapTerms(board.blackPlayer(), pawnEntry);
+        if (!board.currentPlayer().isInCheck()) {
+            final int lazyScore = PieceSquareTables.taper(whiteCheapTerms, gamePhase) -
+                                  PieceSquareTables.taper(blackCheapTerms, gamePhase);
+            if (lazyScore < alpha - this.lazyMargin || lazyScore > beta + this.lazyMargin) {
+                this.lazyCutoffs.increment();
+                return lazyScore;
+            }
+        }
+        this.fullEvaluations.increment();
+        return score(board.whitePlayer(), depth, gamePhase, whiteCheapTerms, pawnEntry) -
+               score(board.blackPlayer(), depth, gamePhase, blackCheapTerms, pawnEntry);
+    }
+
+    public int getLazyMargin() {
+        return this.lazyMargin;
+    }
+
+    public long getLazyCutoffs() {
+        return this.lazyCutoffs.sum();
+    }
+
+    public long getFullEvaluations() {
+        return this.fullEvaluations.sum();
+    }
+
+    public double lazyCutoffRate() {
+        final long lazyCutoffs = getLazyCutoffs();
+        final long evaluations = lazyCutoffs + getFullEvaluations();
+        return evaluations == 0 ? 0.0 : (double) lazyCutoffs / evaluations;
+    }
+
+    public void resetStatistics() {
+        this.lazyCutoffs.reset();
+        this.fullEvaluations.reset();
     }
 
     public String evaluationDetails(final Board board, final int depth) {
+        final int gamePhase = PieceSquareTables.gamePhase(board);
+        final long pawnEntry = PawnStructureAnalyzer.get().probe(board);
         return
-               ("White Mobility : " + mobility(board.whitePlayer()) + "\n") +
-                "White kingThreats : " + kingThreats(board.whitePlayer(), depth) + "\n" +
-                "White attacks : " + attacks(board.whitePlayer()) + "\n" +
-                "White castle : " + castle(board.whitePlayer()) + "\n" +
-                "White pieceEval : " + pieceEvaluations(board.whitePlayer()) + "\n" +
-                "White pawnStructure : " + pawnStructure(board.whitePlayer()) + "\n" +
+               ("Game Phase : " + gamePhase + "/" + PieceSquareTables.MAX_PHASE + "\n") +
+                "White Mobility : " + PieceSquareTables.taper(mobility(board.whitePlayer()), gamePhase) + "\n" +
+                "White kingThreats : " + kingThreats(board.whitePlayer(), depth, gamePhase) + "\n" +
+                "White attacks : " + PieceSquareTables.taper(attacks(board.whitePlayer()), gamePhase) + "\n" +
+                "White castle : " + PieceSquareTables.taper(castle(board.whitePlayer()), gamePhase) + "\n" +
+                "White pieceEval : " + PieceSquareTables.taper(pieceEvaluations(board.whitePlayer()), gamePhase) + "\n" +
+                "White pawnStructure : " + PieceSquareTables.taper(pawnStructure(board.whitePlayer(), pawnEntry), gamePhase) + "\n" +
+                "White passedPawns : " + PieceSquareTables.taper(passedPawns(board.whitePlayer(), pawnEntry), gamePhase) + "\n" +
+                "White rookStructure : " + PieceSquareTables.taper(rookStructure(board.whitePlayer()), gamePhase) + "\n" +
+                "White outposts : " + PieceSquareTables.taper(outposts(board.whitePlayer()), gamePhase) + "\n" +
+                "White kingSafety : " + PieceSquareTables.taper(kingSafety(board.whitePlayer()), gamePhase) + "\n" +
                 "---------------------\n" +
-                "Black Mobility : " + mobility(board.blackPlayer()) + "\n" +
-                "Black kingThreats : " + kingThreats(board.blackPlayer(), depth) + "\n" +
-                "Black attacks : " + attacks(board.blackPlayer()) + "\n" +
-                "Black castle : " + castle(board.blackPlayer()) + "\n" +
-                "Black pieceEval : " + pieceEvaluations(board.blackPlayer()) + "\n" +
-                "Black pawnStructure : " + pawnStructure(board.blackPlayer()) + "\n\n" +
+                "Black Mobility : " + PieceSquareTables.taper(mobility(board.blackPlayer()), gamePhase) + "\n" +
+                "Black kingThreats : " + kingThreats(board.blackPlayer(), depth, gamePhase) + "\n" +
+                "Black attacks : " + PieceSquareTables.taper(attacks(board.blackPlayer()), gamePhase) + "\n" +
+                "Black castle : " + PieceSquareTables.taper(castle(board.blackPlayer()), gamePhase) + "\n" +
+                "Black pieceEval : " + PieceSquareTables.taper(pieceEvaluations(board.blackPlayer()), gamePhase) + "\n" +
+                "Black pawnStructure : " + PieceSquareTables.taper(pawnStructure(board.blackPlayer(), pawnEntry), gamePhase) + "\n" +
+                "Black passedPawns : " + PieceSquareTables.taper(passedPawns(board.blackPlayer(), pawnEntry), gamePhase) + "\n" +
+                "Black rookStructure : " + PieceSquareTables.taper(rookStructure(board.blackPlayer()), gamePhase) + "\n" +
+                "Black outposts : " + PieceSquareTables.taper(outposts(board.blackPlayer()), gamePhase) + "\n" +
+                "Black kingSafety : " + PieceSquareTables.taper(kingSafety(board.blackPlayer()), gamePhase) + "\n\n" +
                 "Final Score = " + evaluate(board, depth);
     }
 
-    @VisibleForTesting
+    /*
+     * Every term but the mate bonus is a packed middlegame/endgame pair. They are summed as packed
+     * ints and blended once by the game phase, so the tapering costs one multiply-add per side.
+     * The mate bonus grows with depth past what a packed half can hold, so it is added as is.
+     */
     private static int score(final Player player,
-                             final int depth) {
-
-        //GamePhase gamePhase = determineGamePhase(player);
-
-        return  mobility(player) +
-                kingThreats(player, depth) +
-                attacks(player) +
-                castle(player) +
-                pieceEvaluations(player) + 
-                pawnStructure(player) +
-                kingSafety(player);
-
-        /* switch (gamePhase) {
-            case OPENING:
-                score += pieceActivity(player);
-                break;
-
-            case MIDDLEGAME:
-                //MID GAME NO BONUSES
-                break;
+                             final int depth,
+                             final int gamePhase,
+                             final int cheapTerms,
+                             final long pawnEntry) {
+        final int checkStatus = checkStatus(player);
+        return  checkMate(checkStatus, depth) +
+                PieceSquareTables.taper(cheapTerms +
+                                        check(checkStatus) +
+                                        mobility(player) +
+                                        attacks(player) +
+                                        passedPawns(player, pawnEntry) +
+                                        rookStructure(player) +
+                                        outposts(player) +
+                                        kingSafety(player), gamePhase);
+    }
 
-            case ENDGAME:
-                score += kingSafety(player); 
-                score += pawnStructure(player);
-                score += pieceActivity(player) / 2;
-                break;
-            default:
-                throw new IllegalStateException("Unknown game phase: " + gamePhase); 
-        return score;*/
+    // the terms that need no attack bitboards, packed; pawnEntry is the board's pawn hash entry
+    private static int cheapTerms(final Player player,
+                                  final long pawnEntry) {
+        return pieceEvaluations(player) +
+               castle(player) +
+               pawnStructure(player, pawnEntry);
     }
 
     private static int attacks(final Player player) {
-        int attackScore = 0;
-        //int materialDifference = calculateMaterialBalance(player); // Get current material balance
-        
-        for (final Move move : player.getLegalMoves()) {
-            if (move.isAttack()) {
-                final Piece movedPiece = move.getMovedPiece();
-                final Piece attackedPiece = move.getAttackedPiece();
-    
-                if (movedPiece.getPieceValue() <= attackedPiece.getPieceValue()) {
-                    attackScore ++;
-                }
-    
-               /*  if (materialDifference > 0) {
-                    attackScore += TRADE_BONUS;
-                } else if (materialDifference < 0) {
-                    attackScore -= TRADE_PENALTY;
-                } */
-            }
-        }
+        final int attackScore = AttackAnalyzer.get().attackCount(player);
 
         // Penalize for vulnerable pieces
         /* for (Piece piece : player.getActivePieces()) {
@@ -126,33 +230,53 @@ public final class StandardBoardEvaluator
         return attackScore * ATTACK_MULTIPLIER;
     }
 
+    // material and piece-square bonus are carried on the board, so only the bishop pair is counted here
     private static int pieceEvaluations(final Player player) {
-        int pieceValuationScore = 0;
-        int numBishops = 0;
-        for (final Piece piece : player.getActivePieces()) {
-            pieceValuationScore += piece.getPieceValue() + piece.locationBonus();
-            if(piece.getPieceType() == BISHOP) {
-                numBishops++;
-            }
-        }
-        return pieceValuationScore + (numBishops == 2 ? TWO_BISHOPS_BONUS : 0);
+        return player.getCurrentBoard().getPieceSquareScore(player.getAlliance()) + bishopPairCount(player) * TWO_BISHOPS_BONUS;
+    }
+
+    private static int bishopPairCount(final Player player) {
+        return Long.bitCount(player.getCurrentBoard().getPieceBitboard(player.getAlliance(), BISHOP)) == 2 ? 1 : 0;
     }
 
     private static int mobility(final Player player) {
         return MOBILITY_MULTIPLIER * mobilityRatio(player);
     }
 
+    // counted off attack bitboards, so no moves are generated; an enemy with nothing to move counts as one
     private static int mobilityRatio(final Player player) {
-        return (int)((player.getLegalMoves().size() * 10.0f) / player.getOpponent().getLegalMoves().size());
+        final AttackAnalyzer attackAnalyzer = AttackAnalyzer.get();
+        return (int)((attackAnalyzer.mobility(player) * 10.0f) / Math.max(1, attackAnalyzer.mobility(player.getOpponent())));
     }
 
     private static int kingThreats(final Player player,
-                                   final int depth) {
-        return player.getOpponent().isInCheckMate() ? CHECK_MATE_BONUS * depthBonus(depth) : check(player);
+                                   final int depth,
+                                   final int gamePhase) {
+        final int checkStatus = checkStatus(player);
+        return checkMate(checkStatus, depth) + PieceSquareTables.taper(check(checkStatus), gamePhase);
+    }
+
+    // only a side in check can be mated, so the opponent's legal moves are looked at only then
+    private static int checkStatus(final Player player) {
+        final Player opponent = player.getOpponent();
+        if (!opponent.isInCheck()) {
+            return NOT_IN_CHECK;
+        }
+        return opponent.getGameState() == GameState.CHECKMATE ? MATED : IN_CHECK;
+    }
+
+    private static int checkMate(final int checkStatus,
+                                 final int depth) {
+        return checkStatus == MATED ? CHECK_MATE_BONUS * depthBonus(depth) : 0;
+    }
+
+    private static int check(final int checkStatus) {
+        return checkCount(checkStatus) * CHECK_BONUS;
     }
 
-    private static int check(final Player player) {
-        return player.getOpponent().isInCheck() ? CHECK_BONUS : 0;
+    // a mate is scored by the mate bonus alone
+    private static int checkCount(final int checkStatus) {
+        return checkStatus == IN_CHECK ? 1 : 0;
     }
 
     private static int depthBonus(final int depth) {
@@ -160,21 +284,40 @@ public final class StandardBoardEvaluator
     }
 
     private static int castle(final Player player) {
-        return player.isCastled() ? CASTLE_BONUS : 0;
+        return castleCount(player) * CASTLE_BONUS;
     }
 
-    private static int pawnStructure(final Player player) {
-        return PawnStructureAnalyzer.get().pawnStructureScore(player);
+    private static int castleCount(final Player player) {
+        return player.isCastled() ? 1 : 0;
     }
 
+    private static int pawnStructure(final Player player,
+                                     final long pawnEntry) {
+        return PAWN_STRUCTURE_MULTIPLIER * PawnHashTable.score(pawnEntry, player.getAlliance());
+    }
+
+    // the danger weighs against the player, so its weight is applied negated
     private static int kingSafety(final Player player) {
-        final KingDistance kingDistance = KingSafetyAnalyzer.get().calculateKingTropism(player);
-        return ((kingDistance.getEnemyPiece().getPieceValue() / 100) * kingDistance.getDistance());
+        final KingSafetyAnalyzer kingSafetyAnalyzer = KingSafetyAnalyzer.get();
+        return PAWN_SHELTER_MULTIPLIER * kingSafetyAnalyzer.pawnShelter(player) -
+               KING_SAFETY_MULTIPLIER * kingSafetyAnalyzer.kingDanger(player);
     }
 
-/*  private static int rookStructure(final Player player, final Board board) {
-        return RookStructureAnalyzer.getInstance().rookStructureScore(player, board);
-    } */
+    private static int passedPawns(final Player player,
+                                   final long pawnEntry) {
+        return PASSED_PAWN_MULTIPLIER * PawnHashTable.passedPawns(pawnEntry, player.getAlliance());
+    }
+
+    private static int rookStructure(final Player player) {
+        final RookStructureAnalyzer rookStructureAnalyzer = RookStructureAnalyzer.getInstance();
+        return OPEN_FILE_ROOK_BONUS * rookStructureAnalyzer.openFileRooks(player) +
+               SEMI_OPEN_FILE_ROOK_BONUS * rookStructureAnalyzer.semiOpenFileRooks(player) +
+               CONNECTED_ROOKS_BONUS * rookStructureAnalyzer.connectedRooks(player);
+    }
+
+    private static int outposts(final Player player) {
+        return OUTPOST_MULTIPLIER * OutpostAnalyzer.get().outpostScore(player);
+    }
 
     /* private static int pieceActivity(final Player player) {
         int activityScore = 0;
@@ -251,26 +394,6 @@ public final class StandardBoardEvaluator
             materialValue += piece.getPieceType().getPieceValue();
         }
         return materialValue;
-    }
-
-
-    //KEEP THIS AS LAST METHOD
-    private static GamePhase determineGamePhase(final Player player) {
-        int totalPieces = player.getActivePieces().size() + player.getOpponent().getActivePieces().size();
-    
-        if (totalPieces > 24) {
-            return GamePhase.OPENING;
-        } else if (totalPieces > 16) {
-            return GamePhase.MIDDLEGAME;
-        } else {
-            return GamePhase.ENDGAME;
-        }
-    }
-    
-    private enum GamePhase {
-        OPENING,
-        MIDDLEGAME,
-        ENDGAME
     } */
 }
     
@@ -1,65 +1,42 @@
 package engine.Player.ai;
 
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Observable;
 
 import engine.Player.MoveTransition;
 import engine.Player.Player;
 import engine.board.Board;
+import engine.board.Board.GameState;
 import engine.board.BoardUtils;
 import engine.board.Move;
 import engine.board.Move.MoveFactory;
-
-import static engine.board.BoardUtils.mvvlva;
+import engine.board.MoveUtils;
+import engine.Player.ai.TranspositionTable.BoundType;
 
 @SuppressWarnings("unused")
 public class StockAlphaBeta implements MoveStrategy {
 
     private final BoardEvaluator evaluator;
     private final int searchDepth;
+    private final TranspositionTable transpositionTable;
+    private final QuiescenceSearch quiescenceSearch;
+    private final SearchHeuristics heuristics;
     private long boardsEvaluated;
-    private int quiescenceCount;
-    private static final int MAX_QUIESCENCE = 5000 * 5;
 
     private final List<AlphaBetaObserver> observers = new ArrayList<>();
 
-    private enum MoveSorter {
-
-        STANDARD {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>) (move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
-            }
-        },
-        EXPENSIVE {
-            @Override
-            Collection<Move> sort(final Collection<Move> moves) {
-                return Ordering.from((Comparator<Move>) (move1, move2) -> ComparisonChain.start()
-                        .compareTrueFirst(BoardUtils.kingThreat(move1), BoardUtils.kingThreat(move2))
-                        .compareTrueFirst(move1.isCastlingMove(), move2.isCastlingMove())
-                        .compare(mvvlva(move2), mvvlva(move1))
-                        .result()).immutableSortedCopy(moves);
-            }
-        };
-
-        abstract  Collection<Move> sort(Collection<Move> moves);
+    public StockAlphaBeta(final int searchDepth) {
+        this(searchDepth, new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB));
     }
 
-
-    public StockAlphaBeta(final int searchDepth) {
+    public StockAlphaBeta(final int searchDepth,
+                          final TranspositionTable transpositionTable) {
         this.evaluator = StandardBoardEvaluator.get();
         this.searchDepth = searchDepth;
+        this.transpositionTable = transpositionTable;
+        this.quiescenceSearch = new QuiescenceSearch(this.evaluator, QuiescenceSearch.DEFAULT_MAX_DEPTH);
+        this.heuristics = new SearchHeuristics();
         this.boardsEvaluated = 0;
-        this.quiescenceCount = 0;
     }
 
     @Override
@@ -69,7 +46,7 @@ public class StockAlphaBeta implements MoveStrategy {
 
     @Override
     public long getNumBoardsEvaluated() {
-        return this.boardsEvaluated;
+        return this.boardsEvaluated + this.quiescenceSearch.getBoardsEvaluated();
     }
 
     @Override
@@ -81,11 +58,14 @@ public class StockAlphaBeta implements MoveStrategy {
         int lowestSeenValue = Integer.MAX_VALUE;
         int currentValue;
         System.out.println(board.currentPlayer() + " THINKING with depth = " + this.searchDepth);
+        this.transpositionTable.newSearch();
+        this.heuristics.newSearch();
         int moveCounter = 1;
         int numMoves = board.currentPlayer().getLegalMoves().size();
-        for (final Move move : MoveSorter.EXPENSIVE.sort((board.currentPlayer().getLegalMoves()))) {
+        final int hashMove = TranspositionTable.move(this.transpositionTable.probe(board.getZobristKey()));
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), hashMove)) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
-            this.quiescenceCount = 0;
+            final long quiescenceBoards = this.quiescenceSearch.getBoardsEvaluated();
             final String s;
             if (moveTransition.getMoveStatus().isDone()) {
                 final long candidateMoveStartTime = System.nanoTime();
@@ -95,19 +75,19 @@ public class StockAlphaBeta implements MoveStrategy {
                 if (currentPlayer.getAlliance().isWhite() && currentValue > highestSeenValue) {
                     highestSeenValue = currentValue;
                     bestMove = move;
-                    if(moveTransition.getToBoard().blackPlayer().isInCheckMate()) {
+                    if(moveTransition.getToBoard().getGameState() == GameState.CHECKMATE) {
                         break;
                     }
                 }
                 else if (currentPlayer.getAlliance().isBlack() && currentValue < lowestSeenValue) {
                     lowestSeenValue = currentValue;
                     bestMove = move;
-                    if(moveTransition.getToBoard().whitePlayer().isInCheckMate()) {
+                    if(moveTransition.getToBoard().getGameState() == GameState.CHECKMATE) {
                         break;
                     }
                 }
 
-                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " +this.quiescenceCount;
+                final String quiescenceInfo = " " + score(currentPlayer, highestSeenValue, lowestSeenValue) + " q: " +(this.quiescenceSearch.getBoardsEvaluated() - quiescenceBoards);
                 s = "\t" + toString() + "(" +this.searchDepth+ "), m: (" +moveCounter+ "/" +numMoves+ ") " + move + ", best:  " + bestMove
 
                         + quiescenceInfo + ", t: " +calculateTimeTaken(candidateMoveStartTime, System.nanoTime());
@@ -120,10 +100,12 @@ public class StockAlphaBeta implements MoveStrategy {
         }
 
         final long executionTime = System.currentTimeMillis() - startTime;
-        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +this.boardsEvaluated+
-                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)this.boardsEvaluated/ executionTime));
-        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f\n", board.currentPlayer(),
-                bestMove, this.boardsEvaluated, executionTime, (1000 * ((double)this.boardsEvaluated/ executionTime)));
+        final long boardsEvaluated = getNumBoardsEvaluated();
+        final String result = board.currentPlayer() + " SELECTS " +bestMove+ " [#boards evaluated = " +boardsEvaluated+
+                " time taken = " + executionTime /1000+ " rate = " +(1000 * ((double)boardsEvaluated/ executionTime));
+        System.out.printf("%s SELECTS %s [#boards evaluated = %d, time taken = %d ms, rate = %.1f, quiet cutoffs = %d\n", board.currentPlayer(),
+                bestMove, boardsEvaluated, executionTime, (1000 * ((double)boardsEvaluated/ executionTime)),
+                this.heuristics.getCutoffsRecorded());
         notifyMoveEvaluated(result);
         return bestMove;
     }
@@ -144,22 +126,39 @@ public class StockAlphaBeta implements MoveStrategy {
                     final int depth,
                     final int highest,
                     final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        if (depth == 0) {
+            return this.quiescenceSearch.max(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
         int currentHighest = highest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
+        int bestMove = 0;
+        final int ply = this.searchDepth - depth;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
                 final Board toBoard = moveTransition.getToBoard();
-                currentHighest = Math.max(currentHighest, min(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), currentHighest, lowest));
+                final int value = min(toBoard, depth - 1, currentHighest, lowest);
+                if (value > currentHighest) {
+                    currentHighest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
                 if (currentHighest >= lowest) {
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
+                    this.transpositionTable.store(board.getZobristKey(), depth, lowest, BoundType.LOWER, bestMove);
                     return lowest;
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentHighest,
+                currentHighest > highest ? BoundType.EXACT : BoundType.UPPER, bestMove);
         return currentHighest;
     }
 
@@ -167,45 +166,42 @@ public class StockAlphaBeta implements MoveStrategy {
                     final int depth,
                     final int highest,
                     final int lowest) {
-        if (depth == 0 || BoardUtils.isEndGame(board)) {
+        if (BoardUtils.isEndGame(board)) {
             this.boardsEvaluated++;
             return this.evaluator.evaluate(board, depth);
         }
+        if (depth == 0) {
+            return this.quiescenceSearch.min(board, highest, lowest);
+        }
+        final long entry = this.transpositionTable.probe(board.getZobristKey());
+        if (TranspositionTable.canCutOff(entry, depth, highest, lowest)) {
+            return TranspositionTable.score(entry);
+        }
         int currentLowest = lowest;
-        for (final Move move : MoveSorter.STANDARD.sort((board.currentPlayer().getLegalMoves()))) {
+        int bestMove = 0;
+        final int ply = this.searchDepth - depth;
+        for (final Move move : new MovePicker(board.currentPlayer().getLegalMoves(), TranspositionTable.move(entry),
+                this.heuristics, ply, board.getTransitionMove())) {
             final MoveTransition moveTransition = board.currentPlayer().makeMove(move);
             if (moveTransition.getMoveStatus().isDone()) {
                 final Board toBoard = moveTransition.getToBoard();
-                currentLowest = Math.min(currentLowest, max(toBoard,
-                        calculateQuiescenceDepth(toBoard, depth), highest, currentLowest));
+                final int value = max(toBoard, depth - 1, highest, currentLowest);
+                if (value < currentLowest) {
+                    currentLowest = value;
+                    bestMove = MoveUtils.encode(move);
+                }
                 if (currentLowest <= highest) {
+                    this.heuristics.recordCutoff(move, depth, ply, board.getTransitionMove());
+                    this.transpositionTable.store(board.getZobristKey(), depth, highest, BoundType.UPPER, bestMove);
                     return highest;
                 }
             }
         }
+        this.transpositionTable.store(board.getZobristKey(), depth, currentLowest,
+                currentLowest < lowest ? BoundType.EXACT : BoundType.LOWER, bestMove);
         return currentLowest;
     }
 
-    private int calculateQuiescenceDepth(final Board toBoard,
-                                         final int depth) {
-        if(depth == 1 && this.quiescenceCount < MAX_QUIESCENCE) {
-            int activityMeasure = 0;
-            if (toBoard.currentPlayer().isInCheck()) {
-                activityMeasure += 1;
-            }
-            for(final Move move: BoardUtils.lastNMoves(toBoard, 2)) {
-                if(move.isAttack()) {
-                    activityMeasure += 1;
-                }
-            }
-            if(activityMeasure >= 2) {
-                this.quiescenceCount++;
-                return 2;
-            }
-        }
-        return depth - 1;
-    }
-
     private static String calculateTimeTaken(final long start, final long end) {
         final long timeTaken = (end - start) / 1000000;
         return timeTaken + " ms";
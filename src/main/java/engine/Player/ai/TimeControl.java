@@ -0,0 +1,48 @@
+package engine.Player.ai;
+
+/*
+ * Thinking time for one move, either a fixed movetime or a share of a running clock. The
+ * optimum is what the search aims to spend; the maximum is the hard deadline it never passes.
+ */
+public final class TimeControl {
+
+    private static final int EXPECTED_MOVES_TO_GO = 30;
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final long MIN_THINK_MILLIS = 10;
+
+    private final long optimumMillis;
+    private final long maximumMillis;
+
+    private TimeControl(final long optimumMillis,
+                        final long maximumMillis) {
+        this.optimumMillis = optimumMillis;
+        this.maximumMillis = maximumMillis;
+    }
+
+    public static TimeControl moveTime(final long moveTimeMillis) {
+        final long budget = Math.max(MIN_THINK_MILLIS, moveTimeMillis - MOVE_OVERHEAD_MILLIS);
+        return new TimeControl(budget, budget);
+    }
+
+    public static TimeControl clock(final long remainingMillis,
+                                    final long incrementMillis) {
+        final long usable = Math.max(MIN_THINK_MILLIS, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        final long optimum = Math.min(usable, usable / EXPECTED_MOVES_TO_GO + (incrementMillis * 3) / 4);
+        final long maximum = Math.min(usable, Math.max(optimum, Math.min(optimum * 3, usable / 4)));
+        return new TimeControl(Math.max(MIN_THINK_MILLIS, optimum), Math.max(MIN_THINK_MILLIS, maximum));
+    }
+
+    public long getOptimumMillis() {
+        return this.optimumMillis;
+    }
+
+    public long getMaximumMillis() {
+        return this.maximumMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeControl[optimum = " + this.optimumMillis + " ms, maximum = " + this.maximumMillis + " ms]";
+    }
+
+}
@@ -0,0 +1,146 @@
+package engine.Player.ai;
+
+import java.util.Arrays;
+
+/*
+ * Fixed size, direct mapped transposition table. Each slot is a pair of longs: a packed entry
+ * holding the best move, search depth, bound, search generation and score, and the zobrist key
+ * XORed with that entry. A probe returns the packed entry (0 on a miss), which is read with
+ * the static accessors below so that no objects are created during search.
+ *
+ * The table is shared by search threads without locking. A slot torn by two concurrent writers
+ * no longer satisfies key ^ entry == stored key, so it reads as a miss rather than as a wrong
+ * entry.
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_SIZE_MB = 16;
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int MAX_DEPTH = 0xFF;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final long indexMask;
+    private volatile int generation;
+
+    public enum BoundType {
+        EXACT,
+        LOWER,
+        UPPER;
+
+        private static final BoundType[] VALUES = values();
+    }
+
+    public TranspositionTable(final int sizeInMegabytes) {
+        if (sizeInMegabytes < 1) {
+            throw new RuntimeException("Transposition table needs at least 1 MB, got " + sizeInMegabytes);
+        }
+        final long requestedEntries = ((long) sizeInMegabytes << 20) / BYTES_PER_ENTRY;
+        final int capacity = (int) Math.min(Long.highestOneBit(requestedEntries), 1 << 30);
+        this.keys = new long[capacity];
+        this.entries = new long[capacity];
+        this.indexMask = capacity - 1;
+        this.generation = 0;
+    }
+
+    public int getCapacity() {
+        return this.entries.length;
+    }
+
+    public long probe(final long key) {
+        final int index = (int) (key & this.indexMask);
+        final long entry = this.entries[index];
+        return (this.keys[index] ^ entry) == key ? entry : 0L;
+    }
+
+    public void store(final long key,
+                      final int depth,
+                      final int score,
+                      final BoundType bound,
+                      final int move) {
+        final int index = (int) (key & this.indexMask);
+        final long stored = this.entries[index];
+        final boolean sameKey = (this.keys[index] ^ stored) == key;
+        if (stored != 0L) {
+            final boolean replace = sameKey ?
+                    depth >= depth(stored) || bound == BoundType.EXACT :
+                    generation(stored) != this.generation || depth >= depth(stored);
+            if (!replace) {
+                return;
+            }
+        }
+        final int bestMove = move == 0 && sameKey ? move(stored) : move;
+        final long entry = pack(bestMove, depth, bound, this.generation, score);
+        this.entries[index] = entry;
+        this.keys[index] = key ^ entry;
+    }
+
+    // called once per root search so that entries left by earlier moves can be replaced first
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.entries, 0L);
+        this.generation = 0;
+    }
+
+    public static int move(final long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int depth(final long entry) {
+        return (int) ((entry >>> 16) & MAX_DEPTH);
+    }
+
+    public static BoundType bound(final long entry) {
+        return BoundType.VALUES[(int) ((entry >>> 24) & 0x3) - 1];
+    }
+
+    public static int score(final long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /*
+     * True when the entry was searched at least as deep as the node and its score settles the
+     * node for the [alpha, beta] window, in which case score(entry) can be returned directly.
+     */
+    public static boolean canCutOff(final long entry,
+                                    final int depth,
+                                    final int alpha,
+                                    final int beta) {
+        if (entry == 0L || depth(entry) < depth) {
+            return false;
+        }
+        final int score = score(entry);
+        switch (bound(entry)) {
+            case EXACT:
+                return true;
+            case LOWER:
+                return score >= beta;
+            case UPPER:
+                return score <= alpha;
+            default:
+                return false;
+        }
+    }
+
+    private static int generation(final long entry) {
+        return (int) ((entry >>> 26) & GENERATION_MASK);
+    }
+
+    private static long pack(final int move,
+                             final int depth,
+                             final BoundType bound,
+                             final int generation,
+                             final int score) {
+        return (move & 0xFFFFL) |
+               ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << 16) |
+               ((long) (bound.ordinal() + 1) << 24) |
+               ((long) generation << 26) |
+               ((long) score << 32);
+    }
+
+}
@@ -0,0 +1,147 @@
+package engine.Player.ai.nnue;
+
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.bitMove;
+import engine.bitBoard.bitPiece;
+
+/*
+ * The feature transformer sums of both sides for every ply of a bitboard search. push() is
+ * called with a move just before bitBoard.makeMove and works out the next ply's sums from this
+ * ply's by the inputs the move takes away and adds; pop() goes with unmakeMove and only steps
+ * back, since the earlier ply's sums are still there.
+ *
+ * A king move changes every input of its own side, so that side is only marked for a refresh,
+ * which evaluate() does from the position if the ply is ever evaluated. Interior nodes whose
+ * king moved therefore cost nothing.
+ */
+public final class Accumulator {
+
+    private static final int WHITE = bitBoard.WhiteIndex;
+    private static final int BLACK = bitBoard.BlackIndex;
+
+    private final Network network;
+    private final NetworkKernels kernels;
+    // [ply][side][hidden]
+    private final short[][][] sums;
+    // [ply][side]: the side's king has moved since its sums were last worked out in full
+    private final boolean[][] stale;
+    private int ply;
+
+    public Accumulator(final Network network,
+                       final NetworkKernels kernels,
+                       final int maxPly) {
+        this.network = network;
+        this.kernels = kernels;
+        this.sums = new short[maxPly + 1][2][network.hiddenSize];
+        this.stale = new boolean[maxPly + 1][2];
+    }
+
+    // starts over at ply 0 with the sums of the given position
+    public void refresh(final bitBoard position) {
+        this.ply = 0;
+        for (int side = WHITE; side <= BLACK; side++) {
+            refresh(this.network, this.kernels, this.sums[0][side], side == WHITE,
+                    position.kingSquare[side], position.pieceBitboards);
+            this.stale[0][side] = false;
+        }
+    }
+
+    public void push(final bitBoard position,
+                     final short move) {
+        final int start = bitMove.startSquare(move);
+        final int target = bitMove.targetSquare(move);
+        final int flag = bitMove.moveFlag(move);
+        final int piece = position.square[start];
+        final int colour = bitPiece.isWhite(piece) ? WHITE : BLACK;
+        final boolean kingMove = bitPiece.pieceType(piece) == bitPiece.KING;
+        final int promotionType = bitMove.promotionPieceType(move);
+        final int placedPiece = promotionType == bitPiece.NONE ? piece : bitPiece.makePiece(promotionType, colour == WHITE);
+        final int capturedSquare = flag == bitMove.EnPassantCaptureFlag ? target + (colour == WHITE ? -8 : 8) : target;
+        final int capturedPiece = position.square[capturedSquare];
+
+        for (int side = WHITE; side <= BLACK; side++) {
+            final boolean stale = this.stale[this.ply][side] || (kingMove && side == colour);
+            this.stale[this.ply + 1][side] = stale;
+            if (stale) {
+                continue;
+            }
+            final short[] next = this.sums[this.ply + 1][side];
+            System.arraycopy(this.sums[this.ply][side], 0, next, 0, next.length);
+            final int kingSquare = position.kingSquare[side];
+            if (!kingMove) {
+                subtract(next, side, kingSquare, piece, start);
+                add(next, side, kingSquare, placedPiece, target);
+            } else if (flag == bitMove.CastleFlag) {
+                final boolean kingSide = target > start;
+                final int rook = bitPiece.makePiece(bitPiece.ROOK, colour == WHITE);
+                subtract(next, side, kingSquare, rook, kingSide ? start + 3 : start - 4);
+                add(next, side, kingSquare, rook, kingSide ? start + 1 : start - 1);
+            }
+            if (capturedPiece != bitPiece.NONE) {
+                subtract(next, side, kingSquare, capturedPiece, capturedSquare);
+            }
+        }
+        this.ply++;
+    }
+
+    public void pop() {
+        this.ply--;
+    }
+
+    // centipawns from the point of view of the side to move
+    public int evaluate(final bitBoard position) {
+        for (int side = WHITE; side <= BLACK; side++) {
+            if (this.stale[this.ply][side]) {
+                refresh(this.network, this.kernels, this.sums[this.ply][side], side == WHITE,
+                        position.kingSquare[side], position.pieceBitboards);
+                this.stale[this.ply][side] = false;
+            }
+        }
+        final short[][] plySums = this.sums[this.ply];
+        return this.network.evaluate(this.kernels, plySums[position.moveColourIndex], plySums[position.opponentColourIndex]);
+    }
+
+    /*
+     * One side's sums from scratch: the biases plus the weights of every piece but the kings.
+     * The piece bitboards are indexed by bitPiece, as bitBoard.pieceBitboards is.
+     */
+    static void refresh(final Network network,
+                        final NetworkKernels kernels,
+                        final short[] sums,
+                        final boolean whitePerspective,
+                        final int kingSquare,
+                        final long[] pieceBitboards) {
+        System.arraycopy(network.featureBiases, 0, sums, 0, sums.length);
+        for (final int piece : bitPiece.PIECE_INDICES) {
+            if (bitPiece.pieceType(piece) == bitPiece.KING) {
+                continue;
+            }
+            long pieces = pieceBitboards[piece];
+            while (pieces != 0) {
+                final int square = Long.numberOfTrailingZeros(pieces);
+                kernels.addFeature(sums, network.featureWeights,
+                        Network.featureIndex(whitePerspective, kingSquare, piece, square) * network.hiddenSize);
+                pieces &= pieces - 1;
+            }
+        }
+    }
+
+    private void add(final short[] sums,
+                     final int side,
+                     final int kingSquare,
+                     final int piece,
+                     final int square) {
+        this.kernels.addFeature(sums, this.network.featureWeights,
+                Network.featureIndex(side == WHITE, kingSquare, piece, square) * this.network.hiddenSize);
+    }
+
+    private void subtract(final short[] sums,
+                          final int side,
+                          final int kingSquare,
+                          final int piece,
+                          final int square) {
+        this.kernels.subtractFeature(sums, this.network.featureWeights,
+                Network.featureIndex(side == WHITE, kingSquare, piece, square) * this.network.hiddenSize);
+    }
+
+}
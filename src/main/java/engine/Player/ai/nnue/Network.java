@@ -0,0 +1,123 @@
+package engine.Player.ai.nnue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import engine.bitBoard.bitPiece;
+
+/*
+ * Weights of a small HalfKP style network. Each side sees the board from its own king: an
+ * input is (own king square, piece other than a king, square), with the pieces split into own
+ * and enemy and black's view mirrored top to bottom, so both sides share one weight set. The
+ * feature transformer turns each side's active inputs into hiddenSize int16 sums; those are
+ * clipped to [0, ACTIVATION_MAX], the side to move's half first, and an int8 output layer maps
+ * the 2 * hiddenSize activations to a score.
+ *
+ * The file is little endian: magic, version, hidden size and output bias as ints, then the
+ * feature biases and feature weights as shorts and the output weights as bytes. Feature weights
+ * are laid out input by input, so adding one input is a run of hiddenSize shorts.
+ */
+public final class Network {
+
+    public static final int SQUARES = 64;
+    // pawn, knight, bishop, rook and queen, once for each side
+    public static final int PIECE_FEATURES = 10;
+    public static final int INPUTS = SQUARES * PIECE_FEATURES * SQUARES;
+    public static final int ACTIVATION_MAX = 127;
+    public static final int OUTPUT_QUANTIZATION = 64;
+    public static final int EVAL_SCALE = 400;
+    private static final int MAGIC = 0x4E4E4353; // "SCNN" read little endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    // int8 in the file, widened once so the kernels multiply shorts by shorts
+    final short[] outputWeights;
+    final int outputBias;
+
+    public Network(final int hiddenSize,
+                   final short[] featureWeights,
+                   final short[] featureBiases,
+                   final byte[] outputWeights,
+                   final int outputBias) {
+        if (hiddenSize < 1 ||
+            featureWeights.length != INPUTS * hiddenSize ||
+            featureBiases.length != hiddenSize ||
+            outputWeights.length != 2 * hiddenSize) {
+            throw new RuntimeException("Network weights do not match hidden size " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights.clone();
+        this.featureBiases = featureBiases.clone();
+        this.outputWeights = new short[outputWeights.length];
+        for (int i = 0; i < outputWeights.length; i++) {
+            this.outputWeights[i] = outputWeights[i];
+        }
+        this.outputBias = outputBias;
+    }
+
+    public static Network load(final File file) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException(file + " is not a version " + VERSION + " network file");
+        }
+        final int hiddenSize = buffer.getInt();
+        final int outputBias = buffer.getInt();
+        final long expectedBytes = HEADER_BYTES + (long) Short.BYTES * hiddenSize * (INPUTS + 1) + 2L * hiddenSize;
+        if (hiddenSize < 1 || buffer.capacity() != expectedBytes) {
+            throw new IOException(file + " has " + buffer.capacity() + " bytes, expected " + expectedBytes);
+        }
+        final short[] featureBiases = new short[hiddenSize];
+        final short[] featureWeights = new short[INPUTS * hiddenSize];
+        final byte[] outputWeights = new byte[2 * hiddenSize];
+        buffer.asShortBuffer().get(featureBiases).get(featureWeights);
+        buffer.position(buffer.position() + Short.BYTES * (featureBiases.length + featureWeights.length));
+        buffer.get(outputWeights);
+        return new Network(hiddenSize, featureWeights, featureBiases, outputWeights, outputBias);
+    }
+
+    public void save(final File file) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + Short.BYTES * (this.featureBiases.length + this.featureWeights.length) +
+                                                      this.outputWeights.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(this.hiddenSize).putInt(this.outputBias);
+        buffer.asShortBuffer().put(this.featureBiases).put(this.featureWeights);
+        buffer.position(buffer.position() + Short.BYTES * (this.featureBiases.length + this.featureWeights.length));
+        for (final short outputWeight : this.outputWeights) {
+            buffer.put((byte) outputWeight);
+        }
+        Files.write(file.toPath(), buffer.array());
+    }
+
+    public int getHiddenSize() {
+        return this.hiddenSize;
+    }
+
+    /*
+     * Input index of a piece as seen by one side, bitboard squares (a1 = 0). Black looks at the
+     * board mirrored, so its own pieces stand where white's would.
+     */
+    static int featureIndex(final boolean whitePerspective,
+                            final int kingSquare,
+                            final int piece,
+                            final int square) {
+        final int flip = whitePerspective ? 0 : 56;
+        final int side = bitPiece.isWhite(piece) == whitePerspective ? 0 : PIECE_FEATURES / 2;
+        return (((kingSquare ^ flip) * PIECE_FEATURES) + side + bitPiece.pieceType(piece) - bitPiece.PAWN) * SQUARES + (square ^ flip);
+    }
+
+    // score in centipawns for the side whose accumulator is passed first
+    int evaluate(final NetworkKernels kernels,
+                 final short[] us,
+                 final short[] them) {
+        final int output = this.outputBias +
+                           kernels.activateAndDot(us, this.outputWeights, 0) +
+                           kernels.activateAndDot(them, this.outputWeights, this.hiddenSize);
+        return (int) ((long) output * EVAL_SCALE / (ACTIVATION_MAX * OUTPUT_QUANTIZATION));
+    }
+
+}
@@ -0,0 +1,29 @@
+package engine.Player.ai.nnue;
+
+/*
+ * The inner loops of the network. VectorKernels runs them on the incubating Vector API when
+ * the jdk.incubator.vector module has been added to the JVM (--add-modules), ScalarKernels is
+ * the plain loop used otherwise. Both give the same results, since the sums are the same
+ * wrapping short and int arithmetic either way.
+ */
+public interface NetworkKernels {
+
+    // accumulator[i] += weights[offset + i] for the accumulator's length
+    void addFeature(short[] accumulator, short[] weights, int offset);
+
+    // accumulator[i] -= weights[offset + i] for the accumulator's length
+    void subtractFeature(short[] accumulator, short[] weights, int offset);
+
+    // sum of clamp(accumulator[i], 0, ACTIVATION_MAX) * weights[offset + i]
+    int activateAndDot(short[] accumulator, short[] weights, int offset);
+
+    static NetworkKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    // VectorKernels is only loaded when its module is there, so this is safe on a plain JVM
+    static NetworkKernels best() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() ? VectorKernels.INSTANCE : ScalarKernels.INSTANCE;
+    }
+
+}
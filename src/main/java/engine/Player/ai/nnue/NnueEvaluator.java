@@ -0,0 +1,71 @@
+package engine.Player.ai.nnue;
+
+import engine.Alliance;
+import engine.Player.ai.BoardEvaluator;
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.bitPiece;
+import engine.board.Board;
+import engine.board.ZobristUtils;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * The network behind the BoardEvaluator interface, for the searches on the mailbox Board. A
+ * Board is immutable and is not made and unmade, so each call works both sides' sums out in
+ * full from the board's piece bitboards; the incremental path is Accumulator, used by the
+ * bitboard search. The score is from white's point of view like every BoardEvaluator, and
+ * the depth is not used: the network knows nothing of mate, which the searches find themselves.
+ *
+ * The scratch arrays are per thread, so one evaluator can be shared by parallel searches.
+ */
+public final class NnueEvaluator implements BoardEvaluator {
+
+    private final Network network;
+    private final NetworkKernels kernels;
+    private final ThreadLocal<Scratch> scratch;
+
+    public NnueEvaluator(final Network network) {
+        this(network, NetworkKernels.best());
+    }
+
+    public NnueEvaluator(final Network network,
+                         final NetworkKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(network.hiddenSize));
+    }
+
+    @Override
+    public int evaluate(final Board board,
+                        final int depth) {
+        final Scratch scratch = this.scratch.get();
+        for (final PieceType pieceType : PieceType.values()) {
+            scratch.pieceBitboards[ZobristUtils.bitPieceIndex(Alliance.WHITE, pieceType)] = board.getPieceBitboard(Alliance.WHITE, pieceType);
+            scratch.pieceBitboards[ZobristUtils.bitPieceIndex(Alliance.BLACK, pieceType)] = board.getPieceBitboard(Alliance.BLACK, pieceType);
+        }
+        final int whiteKing = Long.numberOfTrailingZeros(scratch.pieceBitboards[bitPiece.WHITE_KING]);
+        final int blackKing = Long.numberOfTrailingZeros(scratch.pieceBitboards[bitPiece.BLACK_KING]);
+        Accumulator.refresh(this.network, this.kernels, scratch.sums[bitBoard.WhiteIndex], true, whiteKing, scratch.pieceBitboards);
+        Accumulator.refresh(this.network, this.kernels, scratch.sums[bitBoard.BlackIndex], false, blackKing, scratch.pieceBitboards);
+        if (board.currentPlayer().getAlliance().isWhite()) {
+            return this.network.evaluate(this.kernels, scratch.sums[bitBoard.WhiteIndex], scratch.sums[bitBoard.BlackIndex]);
+        }
+        return -this.network.evaluate(this.kernels, scratch.sums[bitBoard.BlackIndex], scratch.sums[bitBoard.WhiteIndex]);
+    }
+
+    @Override
+    public String toString() {
+        return "NNUE(" + this.network.hiddenSize + ", " + this.kernels + ")";
+    }
+
+    private static final class Scratch {
+
+        final long[] pieceBitboards = new long[bitPiece.MAX_PIECE_INDEX + 1];
+        final short[][] sums;
+
+        Scratch(final int hiddenSize) {
+            this.sums = new short[2][hiddenSize];
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package engine.Player.ai.nnue;
+
+enum ScalarKernels implements NetworkKernels {
+
+    INSTANCE;
+
+    @Override
+    public void addFeature(final short[] accumulator,
+                           final short[] weights,
+                           final int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtractFeature(final short[] accumulator,
+                                final short[] weights,
+                                final int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int activateAndDot(final short[] accumulator,
+                              final short[] weights,
+                              final int offset) {
+        int sum = 0;
+        for (int i = 0; i < accumulator.length; i++) {
+            sum += Math.min(Math.max(accumulator[i], 0), Network.ACTIVATION_MAX) * weights[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+
+}
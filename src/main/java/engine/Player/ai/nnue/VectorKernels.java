@@ -0,0 +1,83 @@
+package engine.Player.ai.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * The network loops on the platform's widest vectors. The activation times weight products
+ * fit in a short (127 * 127), and are widened to ints in two halves before they are summed.
+ * Whatever does not fill a whole vector at the end is done one lane at a time.
+ */
+final class VectorKernels implements NetworkKernels {
+
+    static final VectorKernels INSTANCE = new VectorKernels();
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorShape.preferredShape().withLanes(int.class);
+
+    private VectorKernels() {
+    }
+
+    @Override
+    public void addFeature(final short[] accumulator,
+                           final short[] weights,
+                           final int offset) {
+        final int bound = SHORTS.loopBound(accumulator.length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                       .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                       .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtractFeature(final short[] accumulator,
+                                final short[] weights,
+                                final int offset) {
+        final int bound = SHORTS.loopBound(accumulator.length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                       .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                       .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public int activateAndDot(final short[] accumulator,
+                              final short[] weights,
+                              final int offset) {
+        final int bound = SHORTS.loopBound(accumulator.length);
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            final ShortVector products = ShortVector.fromArray(SHORTS, accumulator, i)
+                                                    .max((short) 0)
+                                                    .min((short) Network.ACTIVATION_MAX)
+                                                    .mul(ShortVector.fromArray(SHORTS, weights, offset + i));
+            sums = sums.add(products.convertShape(VectorOperators.S2I, INTS, 0))
+                       .add(products.convertShape(VectorOperators.S2I, INTS, 1));
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < accumulator.length; i++) {
+            sum += Math.min(Math.max(accumulator[i], 0), Network.ACTIVATION_MAX) * weights[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return "vector x" + SHORTS.length();
+    }
+
+}
@@ -37,43 +37,64 @@ public class bitBoard {
     public bitPieceList[] knights;
     public bitPieceList[] pawns;
 
-    // Side to move info
+    // Side to move info (the colour fields are kept in step with isWhiteToMove by updateSideToMove)
     public boolean isWhiteToMove;
-    public int moveColour = isWhiteToMove ? bitPiece.WHITE : bitPiece.BLACK;
-    public int opponentColour =isWhiteToMove ? bitPiece.BLACK : bitPiece.WHITE;
-    public int moveColourIndex = isWhiteToMove ? WhiteIndex : BlackIndex;
-    public int opponentColourIndex = isWhiteToMove ? BlackIndex : WhiteIndex;
+    public int moveColour;
+    public int opponentColour;
+    public int moveColourIndex;
+    public int opponentColourIndex;
     // List of (hashed) positions since last pawn move or capture (for detecting repetitions)
     public Stack<Long> repetitionPositionHistory;
 
     // Total plies (half-moves) played in game
     public int plyCount;
     public bitGameState currentGameState;
-    public int fiftyMoveCounter = currentGameState.fiftyMoveCounter;
-    public long zobristKey = currentGameState.zobristKey;
 
     private FenUtility.PositionInfo startPositionInfo;
-    public String currentFEN = FenUtility.currentFen(this, true);
-    public String gameStartFEN = startPositionInfo.fen;
 
     public List<bitMove> allGameMoves;
 
     // Private fields
     private bitPieceList[] allPieceLists;
-    private Stack<bitGameState> gameStateHistory;
+    // Preallocated stack of game states, reused by make/unmake so that a search does not allocate
+    private bitGameState[] gameStateHistory;
+    private int gameStateCount;
     private boolean cachedInCheckValue;
     private boolean hasCachedInCheckValue;
 
+    private static final int INITIAL_GAME_STATE_CAPACITY = 512;
+
     public bitBoard() {
         square = new int[64];
     }
 
+    public long getZobristKey() {
+        return currentGameState.zobristKey;
+    }
+
+    public int getFiftyMoveCounter() {
+        return currentGameState.fiftyMoveCounter;
+    }
+
+    public String getCurrentFEN() {
+        return FenUtility.currentFen(this, true);
+    }
+
+    public String getGameStartFEN() {
+        return startPositionInfo == null ? null : startPositionInfo.fen;
+    }
+
     // Make a move on the board
     public void makeMove(bitMove move, boolean inSearch) {
-        int startSquare = move.getStartSquare();
-        int targetSquare = move.getTargetSquare();
-        int moveFlag = move.getMoveFlag();
-        boolean isPromotion = move.isPromotion();
+        makeMove(move.getValue(), inSearch);
+    }
+
+    // Make a move given as its 16 bit value (used by the search, which keeps moves in short arrays)
+    public void makeMove(short move, boolean inSearch) {
+        int startSquare = bitMove.startSquare(move);
+        int targetSquare = bitMove.targetSquare(move);
+        int moveFlag = bitMove.moveFlag(move);
+        boolean isPromotion = moveFlag >= bitMove.PromoteToQueenFlag;
         boolean isEnPassant = moveFlag == bitMove.EnPassantCaptureFlag;
 
         int movedPiece = square[startSquare];
@@ -104,8 +125,8 @@ public class bitBoard {
 
             // Remove captured piece from bitboards and piece list
             allPieceLists[capturedPiece].removePieceAtSquare(captureSquare);
-            BitBoardUtility.toggleSquare(pieceBitboards[capturedPiece], captureSquare);
-            BitBoardUtility.toggleSquare(colourBitboards[opponentColourIndex], captureSquare);
+            pieceBitboards[capturedPiece] = BitBoardUtility.toggleSquare(pieceBitboards[capturedPiece], captureSquare);
+            colourBitboards[opponentColourIndex] = BitBoardUtility.toggleSquare(colourBitboards[opponentColourIndex], captureSquare);
             newZobristKey ^= Zobrist.piecesArray[capturedPiece][captureSquare];
         }
 
@@ -122,8 +143,8 @@ public class bitBoard {
                 int castlingRookToIndex = (kingside) ? targetSquare - 1 : targetSquare + 1;
 
                 //Update rook position
-                BitBoardUtility.toggleSquares(pieceBitboards[rookPiece], castlingRookFromIndex, castlingRookToIndex);
-                BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], castlingRookFromIndex, castlingRookToIndex);
+                pieceBitboards[rookPiece] = BitBoardUtility.toggleSquares(pieceBitboards[rookPiece], castlingRookFromIndex, castlingRookToIndex);
+                colourBitboards[moveColourIndex] = BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], castlingRookFromIndex, castlingRookToIndex);
                 allPieceLists[rookPiece].movePiece(castlingRookFromIndex, castlingRookToIndex);
                 square[castlingRookFromIndex] = bitPiece.NONE;
                 square[castlingRookToIndex] = bitPiece.ROOK | moveColour;
@@ -136,12 +157,12 @@ public class bitBoard {
         // Handle promotion
         if (isPromotion) {
             totalPieceCountWithoutPawnsAndKings++;
-            int promotionPieceType = move.getPromotionPieceType();
+            int promotionPieceType = bitMove.promotionPieceType(move);
             int promotionPiece = bitPiece.makePiece(promotionPieceType, moveColour);
 
             // Remove pawn from promotion square and add promoted piece instead
-            BitBoardUtility.toggleSquare(pieceBitboards[movedPiece], targetSquare);
-            BitBoardUtility.toggleSquare(pieceBitboards[promotionPiece], targetSquare);
+            pieceBitboards[movedPiece] = BitBoardUtility.toggleSquare(pieceBitboards[movedPiece], targetSquare);
+            pieceBitboards[promotionPiece] = BitBoardUtility.toggleSquare(pieceBitboards[promotionPiece], targetSquare);
             allPieceLists[movedPiece].removePieceAtSquare(targetSquare);
             allPieceLists[promotionPiece].addPieceAtSquare(targetSquare);
             square[targetSquare] = promotionPiece;
@@ -181,6 +202,7 @@ public class bitBoard {
 
         // Switch side to move
         isWhiteToMove = !isWhiteToMove;
+        updateSideToMove();
         plyCount++;
         int newFiftyMoveCounter = currentGameState.fiftyMoveCounter + 1;
 
@@ -194,31 +216,34 @@ public class bitBoard {
             newFiftyMoveCounter = 0;
         }
 
-        bitGameState newState = new bitGameState(capturedPieceType, newEnPassantFile, newCastlingRights, newFiftyMoveCounter, newZobristKey);
-        gameStateHistory.push(newState);
-        currentGameState = newState;
+        currentGameState = pushGameState(capturedPieceType, newEnPassantFile, newCastlingRights, newFiftyMoveCounter, newZobristKey);
         hasCachedInCheckValue = false;
 
         if (!inSearch) {
-            repetitionPositionHistory.push(newState.zobristKey);
-            allGameMoves.add(move);
+            repetitionPositionHistory.push(newZobristKey);
+            allGameMoves.add(new bitMove(move));
         }
     }
 
     // Unmake a move on the board (reverse the move)
     public void unmakeMove(bitMove move, boolean inSearch) {
+        unmakeMove(move.getValue(), inSearch);
+    }
+
+    public void unmakeMove(short move, boolean inSearch) {
         // Swap colour to move
         isWhiteToMove = !isWhiteToMove;
+        updateSideToMove();
 
         boolean undoingWhiteMove = isWhiteToMove;
 
         // Get move info
-        int movedFrom = move.getStartSquare();
-        int movedTo = move.getTargetSquare();
-        int moveFlag = move.getMoveFlag();
+        int movedFrom = bitMove.startSquare(move);
+        int movedTo = bitMove.targetSquare(move);
+        int moveFlag = bitMove.moveFlag(move);
 
         boolean undoingEnPassant = moveFlag == bitMove.EnPassantCaptureFlag;
-        boolean undoingPromotion = move.isPromotion();
+        boolean undoingPromotion = moveFlag >= bitMove.PromoteToQueenFlag;
         boolean undoingCapture = currentGameState.capturedPieceType != bitPiece.NONE;
 
         int movedPiece = undoingPromotion ? bitPiece.makePiece(bitPiece.PAWN, moveColour) : square[movedTo];
@@ -233,8 +258,8 @@ public class bitBoard {
 
             allPieceLists[promotedPiece].removePieceAtSquare(movedTo);
             allPieceLists[movedPiece].addPieceAtSquare(movedTo);
-            BitBoardUtility.toggleSquare(pieceBitboards[promotedPiece], movedTo);
-            BitBoardUtility.toggleSquare(pieceBitboards[pawnPiece], movedTo);
+            pieceBitboards[promotedPiece] = BitBoardUtility.toggleSquare(pieceBitboards[promotedPiece], movedTo);
+            pieceBitboards[pawnPiece] = BitBoardUtility.toggleSquare(pieceBitboards[pawnPiece], movedTo);
         }
 
         movePiece(movedPiece, movedTo, movedFrom);
@@ -252,8 +277,8 @@ public class bitBoard {
             }
 
             // Add back captured piece
-            BitBoardUtility.toggleSquare(pieceBitboards[capturedPiece], captureSquare);
-            BitBoardUtility.toggleSquare(colourBitboards[opponentColourIndex], captureSquare);
+            pieceBitboards[capturedPiece] = BitBoardUtility.toggleSquare(pieceBitboards[capturedPiece], captureSquare);
+            colourBitboards[opponentColourIndex] = BitBoardUtility.toggleSquare(colourBitboards[opponentColourIndex], captureSquare);
             allPieceLists[capturedPiece].addPieceAtSquare(captureSquare);
             square[captureSquare] = capturedPiece;
         }
@@ -270,8 +295,8 @@ public class bitBoard {
                 int rookSquareAfterCastling = kingside ? movedTo - 1 : movedTo + 1;
 
                 // Undo castling by returning rook to original square
-                BitBoardUtility.toggleSquares(pieceBitboards[rookPiece], rookSquareAfterCastling, rookSquareBeforeCastling);
-                BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], rookSquareAfterCastling, rookSquareBeforeCastling);
+                pieceBitboards[rookPiece] = BitBoardUtility.toggleSquares(pieceBitboards[rookPiece], rookSquareAfterCastling, rookSquareBeforeCastling);
+                colourBitboards[moveColourIndex] = BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], rookSquareAfterCastling, rookSquareBeforeCastling);
                 square[rookSquareAfterCastling] = bitPiece.NONE;
                 square[rookSquareBeforeCastling] = rookPiece;
                 allPieceLists[rookPiece].movePiece(rookSquareAfterCastling, rookSquareBeforeCastling);
@@ -289,14 +314,14 @@ public class bitBoard {
         }
 
         // Go back to previous state
-        gameStateHistory.pop();
-        currentGameState = gameStateHistory.peek();
+        currentGameState = popGameState();
         plyCount--;
         hasCachedInCheckValue = false;
     }
 
     public void makeNullMove() {
         isWhiteToMove = !isWhiteToMove;
+        updateSideToMove();
 
         plyCount++;
 
@@ -304,9 +329,7 @@ public class bitBoard {
         newZobristKey ^= Zobrist.sideToMove;
         newZobristKey ^= Zobrist.enPassantFile[currentGameState.enPassantFile];
 
-        bitGameState newState = new bitGameState(bitPiece.NONE, 0, currentGameState.castlingRights, currentGameState.fiftyMoveCounter + 1, newZobristKey);
-        currentGameState = newState;
-        gameStateHistory.push(currentGameState);
+        currentGameState = pushGameState(bitPiece.NONE, 0, currentGameState.castlingRights, currentGameState.fiftyMoveCounter + 1, newZobristKey);
         updateSliderBitboards();
         hasCachedInCheckValue = true;
         cachedInCheckValue = false;
@@ -314,9 +337,9 @@ public class bitBoard {
 
     public void unmakeNullMove() {
         isWhiteToMove = !isWhiteToMove;
+        updateSideToMove();
         plyCount--;
-        gameStateHistory.pop();
-        currentGameState = gameStateHistory.peek();
+        currentGameState = popGameState();
         updateSliderBitboards();
         hasCachedInCheckValue = true;
         cachedInCheckValue = false;
@@ -371,50 +394,63 @@ public class bitBoard {
     }
 
     public void loadPosition(FenUtility.PositionInfo posInfo) {
+        int[] squares = new int[64];
+        for(int squareIndex = 0; squareIndex < 64; squareIndex++) {
+            squares[squareIndex] = posInfo.squares.get(squareIndex);
+        }
+
+        //create gamestate
+        int whiteCastle = ((posInfo.whiteCastleKingside ? 1 << 0 : 0) | ((posInfo.whiteCastleQueenside ? 1 << 1 : 0)));
+        int blackCastle = ((posInfo.blackCastleKingside ? 1 << 2 : 0) | ((posInfo.blackCastleQueenside ? 1 << 3 : 0)));
+        int castlingRights = whiteCastle | blackCastle;
+
+        loadPosition(squares, posInfo.whiteToMove, castlingRights, posInfo.epFile, posInfo.fiftyMovePlyCount, posInfo.moveCount);
         startPositionInfo = posInfo;
+    }
+
+    /**
+     * Load a position from its parts: the piece code on every square (a1 = 0), castling rights
+     * in the bitGameState layout and the en passant file (1 is the a-file, 0 means none).
+     * Used to set up the board from the mailbox Board at the root of a search.
+     */
+    public void loadPosition(int[] squares, boolean whiteToMove, int castlingRights, int epFile, int fiftyMovePlyCount, int moveCount) {
+        startPositionInfo = null;
         Initialize();
 
         for(int squareIndex = 0; squareIndex < 64; squareIndex++) {
-            int piece = posInfo.squares.get(squareIndex);
+            int piece = squares[squareIndex];
             int pieceType = bitPiece.pieceType(piece);
             int colourIndex = bitPiece.isWhite(piece) ? WhiteIndex : BlackIndex;
             square[squareIndex] = piece;
 
             if(piece != bitPiece.NONE) {
-                BitBoardUtility.setSquare(pieceBitboards[pieceType], squareIndex);
-                BitBoardUtility.setSquare(colourBitboards[colourIndex], squareIndex);
+                pieceBitboards[piece] = BitBoardUtility.setSquare(pieceBitboards[piece], squareIndex);
+                colourBitboards[colourIndex] = BitBoardUtility.setSquare(colourBitboards[colourIndex], squareIndex);
 
                 if(pieceType == bitPiece.KING) {
                     kingSquare[colourIndex] = squareIndex;
-                } else {
-                    allPieceLists[piece].addPieceAtSquare(squareIndex);
                 }
+                allPieceLists[piece].addPieceAtSquare(squareIndex);
                 totalPieceCountWithoutPawnsAndKings += (pieceType == bitPiece.PAWN || pieceType == bitPiece.KING) ? 0 : 1;
             }
         }
 
         //side to move
-        isWhiteToMove = posInfo.whiteToMove;
+        isWhiteToMove = whiteToMove;
+        updateSideToMove();
 
         //set extra bitboards
         allPiecesBitboard = colourBitboards[WhiteIndex] | colourBitboards[BlackIndex];
         updateSliderBitboards();
 
-        //create gamestate
-        int whiteCastle = ((posInfo.whiteCastleKingside ? 1 << 0 : 0) | ((posInfo.whiteCastleQueenside ? 1 << 1 : 0)));
-        int blackCastle = ((posInfo.blackCastleKingside ? 1 << 2 : 0) | ((posInfo.blackCastleQueenside ? 1 << 3 : 0)));
-        int castlingRights = whiteCastle | blackCastle;
-
-        plyCount = (posInfo.moveCount - 1) * 2 + (isWhiteToMove ? 0 : 1);
+        plyCount = (Math.max(moveCount, 1) - 1) * 2 + (isWhiteToMove ? 0 : 1);
 
         //Set gamestate (note: calculating zobrist key relies on current game state)
-        currentGameState = new bitGameState(bitPiece.NONE, posInfo.epFile, castlingRights, posInfo.fiftyMovePlyCount, 0);
+        currentGameState = new bitGameState(bitPiece.NONE, epFile, castlingRights, fiftyMovePlyCount, 0);
         long zobristKey = Zobrist.calculateZobristKey(this);
-        currentGameState = new bitGameState(bitPiece.NONE, posInfo.epFile, castlingRights, posInfo.fiftyMovePlyCount, zobristKey);
+        currentGameState = pushGameState(bitPiece.NONE, epFile, castlingRights, fiftyMovePlyCount, zobristKey);
 
         repetitionPositionHistory.push(zobristKey);
-
-        gameStateHistory.push(currentGameState);
     }
 
     @Override
@@ -430,7 +466,7 @@ public class bitBoard {
 
     public static bitBoard createBoard(bitBoard source) {
         bitBoard board = new bitBoard();
-        board.loadPosition(source.startPositionInfo);
+        board.loadPosition(source.startPositionInfo != null ? source.startPositionInfo : FenUtility.positionFromFen(FenUtility.currentFen(source, true)));
         for(int i = 0; i < source.allGameMoves.size(); i++) {
             board.makeMove(source.allGameMoves.get(i), false);
         }
@@ -447,14 +483,37 @@ public class bitBoard {
 
     private void movePiece(int piece, int startSquare, int targetSquare) {
         // Move a piece from one square to another (update bitboards)
-        BitBoardUtility.toggleSquares(pieceBitboards[piece], startSquare, targetSquare);
-        BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], targetSquare, startSquare);
+        pieceBitboards[piece] = BitBoardUtility.toggleSquares(pieceBitboards[piece], startSquare, targetSquare);
+        colourBitboards[moveColourIndex] = BitBoardUtility.toggleSquares(colourBitboards[moveColourIndex], targetSquare, startSquare);
 
         allPieceLists[piece].movePiece(startSquare, targetSquare);
         square[startSquare ] = bitPiece.NONE;
         square[targetSquare] = piece;
     }
 
+    private void updateSideToMove() {
+        moveColour = isWhiteToMove ? bitPiece.WHITE : bitPiece.BLACK;
+        opponentColour = isWhiteToMove ? bitPiece.BLACK : bitPiece.WHITE;
+        moveColourIndex = isWhiteToMove ? WhiteIndex : BlackIndex;
+        opponentColourIndex = isWhiteToMove ? BlackIndex : WhiteIndex;
+    }
+
+    private bitGameState pushGameState(int capturedPieceType, int enPassantFile, int castlingRights, int fiftyMoveCounter, long zobristKey) {
+        if (gameStateCount == gameStateHistory.length) {
+            int oldLength = gameStateHistory.length;
+            gameStateHistory = Arrays.copyOf(gameStateHistory, oldLength * 2);
+            for (int i = oldLength; i < gameStateHistory.length; i++) {
+                gameStateHistory[i] = new bitGameState();
+            }
+        }
+        return gameStateHistory[gameStateCount++].set(capturedPieceType, enPassantFile, castlingRights, fiftyMoveCounter, zobristKey);
+    }
+
+    private bitGameState popGameState() {
+        gameStateCount--;
+        return gameStateHistory[gameStateCount - 1];
+    }
+
     void updateSliderBitboards() {
         int friendlyRook = bitPiece.makePiece(bitPiece.ROOK, moveColour);
         int friendlyQueen = bitPiece.makePiece(bitPiece.QUEEN, moveColour);
@@ -477,7 +536,11 @@ public class bitBoard {
         Arrays.fill(square, 0);
         
         repetitionPositionHistory = new Stack<Long>();
-        gameStateHistory = new Stack<bitGameState>();
+        gameStateHistory = new bitGameState[INITIAL_GAME_STATE_CAPACITY];
+        for (int i = 0; i < gameStateHistory.length; i++) {
+            gameStateHistory[i] = new bitGameState();
+        }
+        gameStateCount = 0;
 
         currentGameState = new bitGameState(bitPiece.NONE, 0, 0, 0, 0);
         plyCount = 0;
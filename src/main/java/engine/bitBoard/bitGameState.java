@@ -1,23 +1,32 @@
 package engine.bitBoard;
 
+// Mutable so that the board can keep a preallocated stack of states and reuse them during search
 public final class bitGameState {
-    final int capturedPieceType;
-    public final int enPassantFile;
-    public final int castlingRights;
-    public final int fiftyMoveCounter;
-    final long zobristKey;
+    int capturedPieceType;
+    public int enPassantFile;
+    public int castlingRights;
+    public int fiftyMoveCounter;
+    long zobristKey;
 
     public static final int CLEAR_WHITE_KINGSIDE_MASK = 0b1110;
     public static final int CLEAR_WHITE_QUEENSIDE_MASK = 0b1101;
     public static final int CLEAR_BLACK_KINGSIDE_MASK = 0b1011;
     public static final int CLEAR_BLACK_QUEENSIDE_MASK = 0b0111;
 
+    public bitGameState() {
+    }
+
     public bitGameState(int capturedPieceType, int enPassantFile, int castlingRights, int fiftyMoveCounter, long zobristKey) {
+        set(capturedPieceType, enPassantFile, castlingRights, fiftyMoveCounter, zobristKey);
+    }
+
+    bitGameState set(int capturedPieceType, int enPassantFile, int castlingRights, int fiftyMoveCounter, long zobristKey) {
         this.capturedPieceType = capturedPieceType;
         this.enPassantFile = enPassantFile;
         this.castlingRights = castlingRights;
         this.fiftyMoveCounter = fiftyMoveCounter;
         this.zobristKey = zobristKey;
+        return this;
     }
 
     public int getCapturedPieceType() {
@@ -30,12 +30,44 @@ public class bitMove {
 
     // Constructor using start square and target square
     public bitMove(int startSquare, int targetSquare) {
-        this.moveValue = (short) (startSquare | (targetSquare << 6));
+        this.moveValue = encode(startSquare, targetSquare, NoFlag);
     }
 
     // Constructor using start square, target square, and flag
     public bitMove(int startSquare, int targetSquare, int flag) {
-        this.moveValue = (short) (startSquare | (targetSquare << 6) | (flag << 12));
+        this.moveValue = encode(startSquare, targetSquare, flag);
+    }
+
+    // Static versions of the accessors, so the search can keep moves as plain shorts in preallocated arrays
+    public static short encode(int startSquare, int targetSquare, int flag) {
+        return (short) (startSquare | (targetSquare << 6) | (flag << 12));
+    }
+
+    public static int startSquare(short moveValue) {
+        return moveValue & startSquareMask;
+    }
+
+    public static int targetSquare(short moveValue) {
+        return (moveValue & targetSquareMask) >> 6;
+    }
+
+    public static int moveFlag(short moveValue) {
+        return (moveValue & flagMask) >> 12;
+    }
+
+    public static int promotionPieceType(short moveValue) {
+        switch (moveFlag(moveValue)) {
+            case PromoteToRookFlag:
+                return bitPiece.ROOK;
+            case PromoteToKnightFlag:
+                return bitPiece.KNIGHT;
+            case PromoteToBishopFlag:
+                return bitPiece.BISHOP;
+            case PromoteToQueenFlag:
+                return bitPiece.QUEEN;
+            default:
+                return bitPiece.NONE;
+        }
     }
 
     // Getter for moveValue
@@ -50,12 +82,12 @@ public class bitMove {
 
     // Get start square
     public int getStartSquare() {
-        return moveValue & startSquareMask;
+        return startSquare(moveValue);
     }
 
     // Get target square
     public int getTargetSquare() {
-        return (moveValue & targetSquareMask) >> 6;
+        return targetSquare(moveValue);
     }
 
     // Check if the move is a promotion
@@ -65,23 +97,12 @@ public class bitMove {
 
     // Get move flag
     public int getMoveFlag() {
-        return (moveValue & flagMask) >> 12;
+        return moveFlag(moveValue);
     }
 
     // Get the promotion piece type
     public int getPromotionPieceType() {
-        switch (getMoveFlag()) {
-            case PromoteToRookFlag:
-                return bitPiece.ROOK;
-            case PromoteToKnightFlag:
-                return bitPiece.KNIGHT;
-            case PromoteToBishopFlag:
-                return bitPiece.BISHOP;
-            case PromoteToQueenFlag:
-                return bitPiece.QUEEN;
-            default:
-                return bitPiece.NONE;
-        }
+        return promotionPieceType(moveValue);
     }
 
     // Null move (equivalent to `Move.NullMove` in C#)
@@ -130,7 +130,7 @@ public final class BoardHelper {
                     result.append("Fen         : ").append(FenUtility.currentFen(board, true)).append("\n");
                 }
                 if (includeZobristKey) {
-                    result.append("Zobrist Key : ").append(board.zobristKey).append("\n");
+                    result.append("Zobrist Key : ").append(board.getZobristKey()).append("\n");
                 }
             }
         }
@@ -111,8 +111,7 @@ public class FenUtility {
 
     private static boolean canCapture(Coord from, int friendlyPawn, int epCaptureSquare, bitBoard bitBoard) {
 
-        boolean isPawnOnSquare = bitBoard.square[from.getSquareIndex()] == friendlyPawn;
-        if (from.isValidSquare() && isPawnOnSquare) {
+        if (from.isValidSquare() && bitBoard.square[from.getSquareIndex()] == friendlyPawn) {
 
             bitMove move = new bitMove(from.getSquareIndex(), epCaptureSquare, bitMove.EnPassantCaptureFlag);
             bitBoard.makeMove(move, false);
@@ -1,6 +1,4 @@
-/* package engine.bitBoard.moveGeneration;
-
-import java.util.Arrays;
+package engine.bitBoard.moveGeneration;
 
 import engine.bitBoard.bitBoard;
 import engine.bitBoard.bitMove;
@@ -9,251 +7,291 @@ import engine.bitBoard.helpers.BoardHelper;
 import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
 import engine.bitBoard.moveGeneration.bitBoardsUtil.Bits;
 import engine.bitBoard.moveGeneration.magics.Magic;
-import engine.board.Move;
-import engine.pieces.Piece;
 
+/*
+ * Legal move generation for the bitboard backend. Moves are written as 16 bit bitMove values
+ * into an array supplied by the caller, so a search can preallocate one array per ply and
+ * generate without creating any objects.
+ *
+ * Legality is decided up front instead of by making the move and testing for check: the king
+ * only steps to squares the opponent does not attack, a check restricts the other pieces to the
+ * squares between the checker and the king (or the checker itself), and a pinned piece may only
+ * move along the line through its king. En passant, which can uncover a check along the rank,
+ * is the one move that is verified on the resulting occupancy.
+ */
 public class MoveGenerator {
 
-    public static final int MaxMoves = 218;
-
-    public enum PromotionMode { All, QueenOnly, QueenAndKnight }
-
-    public PromotionMode promotionsToGenerate = PromotionMode.All;
-
-    // ---- Instance variables ----
-    boolean isWhiteToMove;
-    int friendlyColour;
-    int opponentColour;
-    int friendlyKingSquare;
-    int friendlyIndex;
-    int enemyIndex;
-
-    boolean inCheck;
-    boolean inDoubleCheck;
-
-    // If in check, this bitboard contains squares in line from checking piece up to king
-    // If not in check, all bits are set to 1
-    long checkRayBitmask;
-
-    long pinRays;
-    long notPinRays;
-    long opponentAttackMapNoPawns;
-    public long opponentAttackMap;
-    public long opponentPawnAttackMap;
-    long opponentSlidingAttackMap;
-
-    boolean generateQuietMoves;
-    bitBoard board;
-    int currMoveIndex;
-
-    long enemyPieces;
-    long friendlyPieces;
-    long allPieces;
-    long emptySquares;
-    long emptyOrEnemySquares;
-    long moveTypeMask;
-
-    public bitMove[] GenerateMoves(bitBoard board, boolean capturesOnly) {
-        bitMove[] moves = new bitMove[MaxMoves];
-        GenerateMoves(board, moves, capturesOnly);
-        return moves;
+    public static final int MAX_MOVES = 218;
+
+    // Squares strictly between two squares on a shared rank, file or diagonal (0 if not aligned)
+    private static final long[][] BETWEEN = new long[64][64];
+    // The whole rank, file or diagonal through two aligned squares (0 if not aligned)
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int a = 0; a < 64; a++) {
+            long rookRays = Magic.getRookAttacks(a, 0);
+            long bishopRays = Magic.getBishopAttacks(a, 0);
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = 1L << a | 1L << b;
+                if ((rookRays & 1L << b) != 0) {
+                    BETWEEN[a][b] = Magic.getRookAttacks(a, 1L << b) & Magic.getRookAttacks(b, 1L << a);
+                    LINE[a][b] = (rookRays & Magic.getRookAttacks(b, 0)) | ends;
+                } else if ((bishopRays & 1L << b) != 0) {
+                    BETWEEN[a][b] = Magic.getBishopAttacks(a, 1L << b) & Magic.getBishopAttacks(b, 1L << a);
+                    LINE[a][b] = (bishopRays & Magic.getBishopAttacks(b, 0)) | ends;
+                }
+            }
+        }
     }
 
-    // Generates list of legal moves in current position.
-    // Quiet moves (non captures) can optionally be excluded. This is used in quiescence search.
-    public int GenerateMoves(bitBoard board, bitMove[] moves, boolean capturesOnly) {
-        this.board = board;
-        generateQuietMoves = !capturesOnly;
+    // ---- State of the position being generated ----
+    private bitBoard board;
+    private short[] moves;
+    private int currMoveIndex;
+    private boolean capturesOnly;
+
+    private boolean isWhiteToMove;
+    private int friendlyColour;
+    private int opponentColour;
+    private int friendlyKingSquare;
+
+    private long friendlyPieces;
+    private long enemyPieces;
+    private long allPieces;
+
+    private long checkers;
+    private long pinnedPieces;
+    // If in check, the squares from the checking piece up to the king; otherwise all bits are set
+    private long checkRayBitmask;
+    // Squares a non-king piece may move to: not friendly, blocking any check, and captures only if asked
+    private long targetMask;
+
+    public bitMove[] generateMoves(bitBoard board, boolean capturesOnly) {
+        short[] values = new short[MAX_MOVES];
+        int count = generateMoves(board, values, capturesOnly);
+        bitMove[] result = new bitMove[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new bitMove(values[i]);
+        }
+        return result;
+    }
 
-        Init();
+    // Generates the legal moves of the side to move into the given array and returns how many there are.
+    // Quiet moves can be left out for the quiescence search; pushes that promote to a queen are still included.
+    public int generateMoves(bitBoard board, short[] moves, boolean capturesOnly) {
+        this.board = board;
+        this.moves = moves;
+        this.capturesOnly = capturesOnly;
+        init();
 
-        GenerateKingMoves(moves);
+        generateKingMoves();
 
         // Only king moves are valid in a double check position, so can return early.
-        if (!inDoubleCheck) {
-            GenerateSlidingMoves(moves);
-            GenerateKnightMoves(moves);
-            GeneratePawnMoves(moves);
+        if (Long.bitCount(checkers) < 2) {
+            generateSlidingMoves();
+            generateKnightMoves();
+            generatePawnMoves();
         }
-
-        moves = Arrays.copyOfRange(moves, 0, currMoveIndex);
-
-        return moves.length;
+        return currMoveIndex;
     }
 
-    // Note, this will only return correct value after GenerateMoves() has been called in the current position
-    public boolean InCheck() {
-        return inCheck;
+    // Note, this will only return correct value after generateMoves() has been called in the current position
+    public boolean inCheck() {
+        return checkers != 0;
     }
 
-    void Init() {
-        // Reset state
+    private void init() {
         currMoveIndex = 0;
-        inCheck = false;
-        inDoubleCheck = false;
-        checkRayBitmask = 0;
-        pinRays = 0;
-
-        // Store some info for convenience
-        isWhiteToMove = board.moveColour == bitPiece.WHITE;
+        isWhiteToMove = board.isWhiteToMove;
         friendlyColour = board.moveColour;
         opponentColour = board.opponentColour;
         friendlyKingSquare = board.kingSquare[board.moveColourIndex];
-        friendlyIndex = board.moveColourIndex;
-        enemyIndex = 1 - friendlyIndex;
 
-        // Store some bitboards for convenience
-        enemyPieces = board.colourBitboards[enemyIndex];
-        friendlyPieces = board.colourBitboards[friendlyIndex];
+        friendlyPieces = board.colourBitboards[board.moveColourIndex];
+        enemyPieces = board.colourBitboards[board.opponentColourIndex];
         allPieces = board.allPiecesBitboard;
-        emptySquares = ~allPieces;
-        emptyOrEnemySquares = emptySquares | enemyPieces;
-        moveTypeMask = generateQuietMoves ? ~0L : enemyPieces;
 
-        CalculateAttackData();
+        checkers = enemyAttackersTo(friendlyKingSquare, allPieces);
+        checkRayBitmask = checkers == 0 ? ~0L :
+                          BETWEEN[friendlyKingSquare][Long.numberOfTrailingZeros(checkers)] | checkers;
+        targetMask = ~friendlyPieces & checkRayBitmask & (capturesOnly ? enemyPieces : ~0L);
+
+        // An enemy slider that sees the king through exactly one friendly piece pins that piece
+        pinnedPieces = 0;
+        long snipers = (Magic.getRookAttacks(friendlyKingSquare, enemyPieces) & board.enemyOrthogonalSliders) |
+                       (Magic.getBishopAttacks(friendlyKingSquare, enemyPieces) & board.enemyDiagonalSliders);
+        while (snipers != 0) {
+            long blockers = BETWEEN[friendlyKingSquare][Long.numberOfTrailingZeros(snipers)] & allPieces;
+            if (Long.bitCount(blockers) == 1 && (blockers & friendlyPieces) != 0) {
+                pinnedPieces |= blockers;
+            }
+            snipers &= snipers - 1;
+        }
     }
 
-    void GenerateKingMoves(bitMove[] moves) {
-        long legalMask = ~(opponentAttackMap | friendlyPieces);
-        long kingMoves = BitBoardUtility.KING_MOVES[friendlyKingSquare] & legalMask & moveTypeMask;
+    private void generateKingMoves() {
+        // The king is taken off the board first, so it cannot hide behind itself from a slider
+        long occupancyWithoutKing = allPieces ^ 1L << friendlyKingSquare;
+        long kingMoves = BitBoardUtility.KING_MOVES[friendlyKingSquare] & ~friendlyPieces & (capturesOnly ? enemyPieces : ~0L);
         while (kingMoves != 0) {
-            int targetSquare = BitBoardUtility.popLSB(kingMoves);
-            moves[currMoveIndex++] = new bitMove(friendlyKingSquare, targetSquare);
+            int targetSquare = Long.numberOfTrailingZeros(kingMoves);
+            if (enemyAttackersTo(targetSquare, occupancyWithoutKing) == 0) {
+                addMove(friendlyKingSquare, targetSquare, bitMove.NoFlag);
+            }
+            kingMoves &= kingMoves - 1;
         }
 
         // Castling
-        if (!inCheck && generateQuietMoves) {
-            long castleBlockers = opponentAttackMap | board.allPiecesBitboard;
-            if (board.currentGameState.hasKingsideCastleRight(board.isWhiteToMove)) {
-                long castleMask = board.isWhiteToMove ? Bits.WhiteKingsideMask : Bits.BlackKingsideMask;
-                if ((castleMask & castleBlockers) == 0) {
-                    int targetSquare = board.isWhiteToMove ? BoardHelper.G1 : BoardHelper.G8;
-                    moves[currMoveIndex++] = new bitMove(friendlyKingSquare, targetSquare, bitMove.CastleFlag);
+        if (checkers == 0 && !capturesOnly) {
+            if (board.currentGameState.hasKingsideCastleRight(isWhiteToMove)) {
+                long castleMask = isWhiteToMove ? Bits.WhiteKingsideMask : Bits.BlackKingsideMask;
+                if ((castleMask & allPieces) == 0 && !anyAttacked(castleMask)) {
+                    addMove(friendlyKingSquare, isWhiteToMove ? BoardHelper.G1 : BoardHelper.G8, bitMove.CastleFlag);
                 }
             }
-            if (board.currentGameState.hasQueensideCastleRight(board.isWhiteToMove)) {
-                long castleMask = board.isWhiteToMove ? Bits.WhiteQueensideMask2 : Bits.BlackQueensideMask2;
-                long castleBlockMask = board.isWhiteToMove ? Bits.WhiteQueensideMask : Bits.BlackQueensideMask;
-                if ((castleMask & castleBlockers) == 0 && (castleBlockMask & board.allPiecesBitboard) == 0) {
-                    int targetSquare = board.isWhiteToMove ? BoardHelper.C1 : BoardHelper.C8;
-                    moves[currMoveIndex++] = new bitMove(friendlyKingSquare, targetSquare, bitMove.CastleFlag);
+            if (board.currentGameState.hasQueensideCastleRight(isWhiteToMove)) {
+                long castleMask = isWhiteToMove ? Bits.WhiteQueensideMask2 : Bits.BlackQueensideMask2;
+                long castleBlockMask = isWhiteToMove ? Bits.WhiteQueensideMask : Bits.BlackQueensideMask;
+                if ((castleBlockMask & allPieces) == 0 && !anyAttacked(castleMask)) {
+                    addMove(friendlyKingSquare, isWhiteToMove ? BoardHelper.C1 : BoardHelper.C8, bitMove.CastleFlag);
                 }
             }
         }
     }
 
-    void GenerateSlidingMoves(bitMove[] moves) {
-        // Limit movement to empty or enemy squares, and must block check if king is in check.
-        long moveMask = emptyOrEnemySquares & checkRayBitmask & moveTypeMask;
-
+    private void generateSlidingMoves() {
         long orthogonalSliders = board.friendlyOrthogonalSliders;
         long diagonalSliders = board.friendlyDiagonalSliders;
 
-        // Pinned pieces cannot move if king is in
-         if (inCheck) {
-            orthogonalSliders &= ~pinRays;
-            diagonalSliders &= ~pinRays;
-        }
-
         // Ortho
         while (orthogonalSliders != 0) {
-            int startSquare = BitBoardUtility.popLSB(orthogonalSliders);
-            long moveSquares = Magic.getRookAttacks(startSquare, allPieces) & moveMask;
-
-            // If piece is pinned, it can only move along the pin ray
-            if (IsPinned(startSquare)) {
-                moveSquares &= alignMask[startSquare][friendlyKingSquare];
-            }
-
-            while (moveSquares != 0) {
-                int targetSquare = BitBoardUtility.popLSB(moveSquares);
-                moves[currMoveIndex++] = new bitMove(startSquare, targetSquare);
-            }
+            int startSquare = Long.numberOfTrailingZeros(orthogonalSliders);
+            addMoves(startSquare, Magic.getRookAttacks(startSquare, allPieces) & targetMask & pinMask(startSquare));
+            orthogonalSliders &= orthogonalSliders - 1;
         }
 
         // Diag
         while (diagonalSliders != 0) {
-            int startSquare = BitBoardUtility.popLSB(diagonalSliders);
-            long moveSquares = Magic.getBishopAttacks(startSquare, allPieces) & moveMask;
-
-            // If piece is pinned, it can only move along the pin ray
-            if (IsPinned(startSquare)) {
-                moveSquares &= alignMask[startSquare][friendlyKingSquare];
-            }
-
-            while (moveSquares != 0) {
-                int targetSquare = BitBoardUtility.popLSB(moveSquares);
-                moves[currMoveIndex++] = new bitMove(startSquare, targetSquare);
-            }
+            int startSquare = Long.numberOfTrailingZeros(diagonalSliders);
+            addMoves(startSquare, Magic.getBishopAttacks(startSquare, allPieces) & targetMask & pinMask(startSquare));
+            diagonalSliders &= diagonalSliders - 1;
         }
     }
 
-    void GenerateKnightMoves(bitMove[] moves) {
-        int friendlyKnightPiece = bitPiece.makePiece(bitPiece.KNIGHT, board.moveColour);
-        // bitboard of all non-pinned knights
-        long knights = board.pieceBitboards[friendlyKnightPiece] & notPinRays;
-        long moveMask = emptyOrEnemySquares & checkRayBitmask & moveTypeMask;
-
+    private void generateKnightMoves() {
+        // A pinned knight can never stay on the pin line, so only unpinned knights move
+        long knights = board.pieceBitboards[bitPiece.makePiece(bitPiece.KNIGHT, friendlyColour)] & ~pinnedPieces;
         while (knights != 0) {
-            int knightSquare = BitBoardUtility.popLSB(knights);
-            long moveSquares = BitBoardUtility.KNIGHT_ATTACKS[knightSquare] & moveMask;
-
-            while (moveSquares != 0) {
-                int targetSquare = BitBoardUtility.popLSB(moveSquares);
-                moves[currMoveIndex++] = new bitMove(knightSquare, targetSquare);
-            }
+            int knightSquare = Long.numberOfTrailingZeros(knights);
+            addMoves(knightSquare, BitBoardUtility.KNIGHT_ATTACKS[knightSquare] & targetMask);
+            knights &= knights - 1;
         }
     }
 
-    void GeneratePawnMoves(bitMove[] moves) {
-        int pushDir = board.isWhiteToMove ? 1 : -1;
-        int pushOffset = pushDir * 8;
-
-        int friendlyPawnPiece = bitPiece.makePiece(bitPiece.PAWN, board.moveColour);
-        long pawns = board.pieceBitboards[friendlyPawnPiece];
-
-        long promotionRankMask = board.isWhiteToMove ? BitBoardUtility.RANK_8 : BitBoardUtility.RANK_1;
-
-        long singlePush = (BitBoardUtility.shift(pawns, pushOffset)) & emptySquares;
-
-        long pushPromotions = singlePush & promotionRankMask & checkRayBitmask;
+    private void generatePawnMoves() {
+        int pushOffset = isWhiteToMove ? 8 : -8;
+        long startRankMask = isWhiteToMove ? BitBoardUtility.RANK_2 : BitBoardUtility.RANK_7;
+        long promotionRankMask = isWhiteToMove ? BitBoardUtility.RANK_8 : BitBoardUtility.RANK_1;
+        long[] pawnAttacks = isWhiteToMove ? BitBoardUtility.WHITE_PAWN_ATTACKS : BitBoardUtility.BLACK_PAWN_ATTACKS;
+
+        int epFile = board.currentGameState.enPassantFile;
+        int epSquare = epFile == 0 ? -1 : BoardHelper.indexFromCoord(epFile - 1, isWhiteToMove ? 5 : 2);
+
+        long pawns = board.pieceBitboards[bitPiece.makePiece(bitPiece.PAWN, friendlyColour)];
+        while (pawns != 0) {
+            int startSquare = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkRayBitmask & pinMask(startSquare);
+
+            // Single / double push
+            int oneUp = startSquare + pushOffset;
+            if ((allPieces & 1L << oneUp) == 0) {
+                if ((allowed & 1L << oneUp) != 0) {
+                    if ((promotionRankMask & 1L << oneUp) != 0) {
+                        addPromotions(startSquare, oneUp, capturesOnly);
+                    } else if (!capturesOnly) {
+                        addMove(startSquare, oneUp, bitMove.NoFlag);
+                    }
+                }
+                int twoUp = oneUp + pushOffset;
+                if (!capturesOnly && (startRankMask & 1L << startSquare) != 0 &&
+                    (allPieces & 1L << twoUp) == 0 && (allowed & 1L << twoUp) != 0) {
+                    addMove(startSquare, twoUp, bitMove.PawnTwoUpFlag);
+                }
+            }
 
-        long captureEdgeFileMask = board.isWhiteToMove ? BitBoardUtility.NOT_A_FILE : BitBoardUtility.NOT_H_FILE;
-        long captureEdgeFileMask2 = board.isWhiteToMove ? BitBoardUtility.NOT_H_FILE : BitBoardUtility.NOT_A_FILE;
-        long captureA = BitBoardUtility.shift(pawns & captureEdgeFileMask, pushDir * 7) & enemyPieces;
-        long captureB = BitBoardUtility.shift(pawns & captureEdgeFileMask2, pushDir * 9) & enemyPieces;
+            // Captures
+            long captures = pawnAttacks[startSquare] & enemyPieces & allowed;
+            while (captures != 0) {
+                int targetSquare = Long.numberOfTrailingZeros(captures);
+                if ((promotionRankMask & 1L << targetSquare) != 0) {
+                    addPromotions(startSquare, targetSquare, false);
+                } else {
+                    addMove(startSquare, targetSquare, bitMove.NoFlag);
+                }
+                captures &= captures - 1;
+            }
 
-        long singlePushNoPromotions = singlePush & ~promotionRankMask & checkRayBitmask;
+            // En passant
+            if (epSquare >= 0 && (pawnAttacks[startSquare] & 1L << epSquare) != 0 &&
+                isLegalEnPassant(startSquare, epSquare, epSquare - pushOffset)) {
+                addMove(startSquare, epSquare, bitMove.EnPassantCaptureFlag);
+            }
+        }
+    }
 
-        long capturePromotionsA = captureA & promotionRankMask & checkRayBitmask;
-        long capturePromotionsB = captureB & promotionRankMask & checkRayBitmask;
+    // Both pawns leave their squares at once, which can expose the king along the rank, and the
+    // captured pawn may be the piece giving check; so test the king on the resulting occupancy.
+    private boolean isLegalEnPassant(int startSquare, int targetSquare, int capturedPawnSquare) {
+        long occupancy = (allPieces ^ 1L << startSquare ^ 1L << capturedPawnSquare) | 1L << targetSquare;
+        return (enemyAttackersTo(friendlyKingSquare, occupancy) & ~(1L << capturedPawnSquare)) == 0;
+    }
 
-        captureA &= checkRayBitmask & ~promotionRankMask;
-        captureB &= checkRayBitmask & ~promotionRankMask;
+    private long enemyAttackersTo(int square, long occupancy) {
+        long[] pieceBitboards = board.pieceBitboards;
+        long pawnAttackMask = isWhiteToMove ? BitBoardUtility.WHITE_PAWN_ATTACKS[square] : BitBoardUtility.BLACK_PAWN_ATTACKS[square];
+        return (pawnAttackMask & pieceBitboards[bitPiece.makePiece(bitPiece.PAWN, opponentColour)]) |
+               (BitBoardUtility.KNIGHT_ATTACKS[square] & pieceBitboards[bitPiece.makePiece(bitPiece.KNIGHT, opponentColour)]) |
+               (BitBoardUtility.KING_MOVES[square] & pieceBitboards[bitPiece.makePiece(bitPiece.KING, opponentColour)]) |
+               (Magic.getRookAttacks(square, occupancy) & board.enemyOrthogonalSliders) |
+               (Magic.getBishopAttacks(square, occupancy) & board.enemyDiagonalSliders);
+    }
 
-        // Single / double push
-        if (generateQuietMoves) {
-            // Generate single pawn pushes
-            while (singlePushNoPromotions != 0) {
-                int targetSquare = BitBoardUtility.popLSB(singlePushNoPromotions);
-                int startSquare = targetSquare - pushOffset;
-                moves[currMoveIndex++] = new bitMove(startSquare, targetSquare);
+    private boolean anyAttacked(long squares) {
+        while (squares != 0) {
+            if (enemyAttackersTo(Long.numberOfTrailingZeros(squares), allPieces) != 0) {
+                return true;
             }
+            squares &= squares - 1;
         }
+        return false;
+    }
+
+    private long pinMask(int square) {
+        return (pinnedPieces & 1L << square) != 0 ? LINE[friendlyKingSquare][square] : ~0L;
+    }
 
-        // En passant and other pawn moves would be handled here
+    private void addMoves(int startSquare, long targets) {
+        while (targets != 0) {
+            addMove(startSquare, Long.numberOfTrailingZeros(targets), bitMove.NoFlag);
+            targets &= targets - 1;
+        }
     }
 
-    void CalculateAttackData() {
-        // Calculate data about opponent's attacks (without king)
-        opponentPawnAttackMap = AttackMaps.PawnAttacks(board.opponentColour, board.pieceBitboards[bitPiece.makePiece(bitPiece.PAWN, opponentColour)]);
-        opponentAttackMapNoPawns = AttackMaps.AllAttacks(board, opponentColour, true);
-        opponentSlidingAttackMap = AttackMaps.SlidingAttacks(board, opponentColour);
-        opponentAttackMap = opponentPawnAttackMap | opponentAttackMapNoPawns;
+    private void addPromotions(int startSquare, int targetSquare, boolean queenOnly) {
+        addMove(startSquare, targetSquare, bitMove.PromoteToQueenFlag);
+        if (!queenOnly) {
+            addMove(startSquare, targetSquare, bitMove.PromoteToKnightFlag);
+            addMove(startSquare, targetSquare, bitMove.PromoteToRookFlag);
+            addMove(startSquare, targetSquare, bitMove.PromoteToBishopFlag);
+        }
     }
 
-    boolean IsPinned(int square) {
-        return (pinRays & BitBoardUtility.squareToBitboard(square)) != 0;
+    private void addMove(int startSquare, int targetSquare, int flag) {
+        moves[currMoveIndex++] = bitMove.encode(startSquare, targetSquare, flag);
     }
 }
- */
\ No newline at end of file
@@ -27,20 +27,21 @@ public class BitBoardUtility {
         return i;
     }
 
-    public static void setSquare(long bitboard, int squareIndex) {
-        bitboard |= 1L << squareIndex;
+    // Java passes the long by value, so these return the updated bitboard instead of changing it in place
+    public static long setSquare(long bitboard, int squareIndex) {
+        return bitboard | 1L << squareIndex;
     }
 
-    public static void clearSquare(long bitboard, int squareIndex) {
-        bitboard &= ~(1L << squareIndex);
+    public static long clearSquare(long bitboard, int squareIndex) {
+        return bitboard & ~(1L << squareIndex);
     }
 
-    public static void toggleSquare(long bitboard, int squareIndex) {
-        bitboard ^= 1L << squareIndex;
+    public static long toggleSquare(long bitboard, int squareIndex) {
+        return bitboard ^ 1L << squareIndex;
     }
 
-    public static void toggleSquares(long bitboard, int squareA, int squareB) {
-        bitboard ^= (1L << squareA) | (1L << squareB);
+    public static long toggleSquares(long bitboard, int squareA, int squareB) {
+        return bitboard ^ ((1L << squareA) | (1L << squareB));
     }
 
     public static boolean containsSquare(long bitboard, int square) {
@@ -59,14 +60,14 @@ public class BitBoardUtility {
         if (isWhite) {
             return ((pawnBitboard << 9) & NOT_A_FILE) | ((pawnBitboard << 7) & NOT_H_FILE);
         }
-        return ((pawnBitboard >> 7) & NOT_A_FILE) | ((pawnBitboard >> 9) & NOT_H_FILE);
+        return ((pawnBitboard >>> 7) & NOT_A_FILE) | ((pawnBitboard >>> 9) & NOT_H_FILE);
     }
 
     public static long shift(long bitboard, int numSquaresToShift) {
         if (numSquaresToShift > 0) {
             return bitboard << numSquaresToShift;
         } else {
-            return bitboard >> -numSquaresToShift;
+            return bitboard >>> -numSquaresToShift;
         }
     }
 
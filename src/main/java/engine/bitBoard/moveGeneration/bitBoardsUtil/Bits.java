@@ -58,7 +58,8 @@ public class Bits {
             long adjacentFiles = FileA << Math.max(0, file -1) | FileA << Math.min(7, file + 1);
 
             //Passed pawn mask
-            long whiteForwardMask = ~(Long.MAX_VALUE >> (64 - 8* (rank + 1)));
+            // every rank above this one; a shift of 64 would wrap round to 0, so the top rank is done apart
+            long whiteForwardMask = rank == 7 ? 0 : -1L << 8 * (rank + 1);
             long blackForwardMask = ((1L << 8 * rank) - 1);
 
             WhitePassedPawnMask[square] = (FileA << file | adjacentFiles) & whiteForwardMask;
@@ -6,9 +6,9 @@ import java.math.BigInteger;
 public class Magic {
     
     static int[] rookShifts = PrecomputedMagics.RookShifts;
-    static BigInteger[] rookMagics = PrecomputedMagics.RookMagics;  // Change to BigInteger
+    static long[] rookMagics = toLongs(PrecomputedMagics.RookMagics);
     static int[] bishopShifts = PrecomputedMagics.BishopShifts;
-    static BigInteger[] bishopMagics = PrecomputedMagics.BishopMagics; // Change to BigInteger
+    static long[] bishopMagics = toLongs(PrecomputedMagics.BishopMagics);
 
     //Rook and bishop mask bitboards for each origin square
     //A mask is simply the legal moves available to the piece from the origin square
@@ -23,20 +23,19 @@ public class Magic {
         return ortho ? getRookAttacks(square, blockers) : getBishopAttacks(square, blockers);
     }
 
+    // The magic multiply has to wrap around at 64 bits, which plain long arithmetic does;
+    // the unsigned shift then leaves the top (64 - shift) bits as the table index.
     public static long getRookAttacks(int square, long blockers) {
-        // Use BigInteger for calculations
-        BigInteger key = BigInteger.valueOf(blockers & rookMasks[square]).multiply(rookMagics[square]).shiftRight(rookShifts[square]);
-        return rookAttacks[square][key.intValue()]; // Convert BigInteger to int
+        int key = (int) (((blockers & rookMasks[square]) * rookMagics[square]) >>> rookShifts[square]);
+        return rookAttacks[square][key];
     }
 
     public static long getBishopAttacks(int square, long blockers) {
-        // Use BigInteger for calculations
-        BigInteger key = BigInteger.valueOf(blockers & bishopMasks[square]).multiply(bishopMagics[square]).shiftRight(bishopShifts[square]);
-        return bishopAttacks[square][key.intValue()]; // Convert BigInteger to int
+        int key = (int) (((blockers & bishopMasks[square]) * bishopMagics[square]) >>> bishopShifts[square]);
+        return bishopAttacks[square][key];
     }
 
     static {
-        // Initialize masks and attacks as before
         for (int squareIndex = 0; squareIndex < 64; squareIndex++) {
             rookMasks[squareIndex] = MagicHelper.createMovementMask(squareIndex, true);
             bishopMasks[squareIndex] = MagicHelper.createMovementMask(squareIndex, false);
@@ -48,7 +47,7 @@ public class Magic {
         }
     }
 
-    private static long[] createTable(int square, boolean rook, BigInteger magic, int leftShift) {
+    private static long[] createTable(int square, boolean rook, long magic, int leftShift) {
         int numBits = 64 - leftShift;
         int lookupSize = 1 << numBits;
         long[] table = new long[lookupSize];
@@ -57,10 +56,19 @@ public class Magic {
         long[] blockerPatterns = MagicHelper.createAllBlockerBitboards(movementMask);
 
         for (long pattern : blockerPatterns) {
-            BigInteger index = BigInteger.valueOf(pattern).multiply(magic).shiftRight(leftShift);
+            int index = (int) ((pattern * magic) >>> leftShift);
             long moves = MagicHelper.legalMoveBitboardFromBlockers(square, pattern, rook);
-            table[index.intValue()] = moves; // Convert BigInteger to int
+            table[index] = moves;
         }
         return table;
     }
+
+    // The precomputed magics are unsigned 64 bit values; longValue keeps their bit pattern
+    private static long[] toLongs(BigInteger[] magics) {
+        long[] values = new long[magics.length];
+        for (int i = 0; i < magics.length; i++) {
+            values[i] = magics[i].longValue();
+        }
+        return values;
+    }
 }
@@ -45,7 +45,7 @@ public class MagicHelper {
                 Coord nextCoord = startCoord.add(scale(dir, dst + 1));
 
                 if (nextCoord.isValidSquare()) {
-                    BitBoardUtility.setSquare(mask, coord.getSquareIndex());
+                    mask = BitBoardUtility.setSquare(mask, coord.getSquareIndex());
                 } else {
                     break;
                 }
@@ -65,7 +65,7 @@ public class MagicHelper {
                 Coord coord = startCoord.add(scale(dir,dst));
 
                 if (coord.isValidSquare()) {
-                    BitBoardUtility.setSquare(bitboard, coord.getSquareIndex());
+                    bitboard = BitBoardUtility.setSquare(bitboard, coord.getSquareIndex());
                     if (BitBoardUtility.containsSquare(blockerBitboard, coord.getSquareIndex())) {
                         break;
                     }
@@ -11,7 +11,7 @@ public class PrecomputedMagics {
         52, 54, 53, 53, 53, 53, 54, 53, 
         52, 53, 54, 54, 53, 53, 54, 53, 
         53, 54, 54, 54, 53, 53, 54, 53, 
-        52, 53, 53, 53, 53, 53, 52 
+        52, 53, 53, 53, 53, 53, 53, 52 
     };
 
     public static final int[] BishopShifts = { 
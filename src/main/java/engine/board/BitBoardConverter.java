@@ -0,0 +1,110 @@
+package engine.board;
+
+import engine.Alliance;
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.bitMove;
+import engine.bitBoard.bitPiece;
+import engine.bitBoard.helpers.FenUtility;
+import engine.bitBoard.helpers.FenUtility.PositionInfo;
+import engine.board.Move.MoveFactory;
+import engine.pieces.Pawn;
+import engine.pieces.Piece;
+import engine.pieces.PieceUtils;
+
+/*
+ * Crossing between the mailbox Board and the bitboard backend, done once at the root of a
+ * bitboard search: the position goes in as a bitBoard with the same castling rights and en
+ * passant file, and the chosen 16 bit move comes back as the matching legal Move. The bitboard
+ * FEN parser also gives the way back, for building a Board from a FEN.
+ */
+public enum BitBoardConverter {
+
+    INSTANCE;
+
+    public static bitBoard toBitBoard(final Board board) {
+        final int[] squares = new int[BoardUtils.NUM_TILES];
+        for (final Piece piece : board.getAllPieces()) {
+            squares[ZobristUtils.toBitSquare(piece.getPiecePosition())] = ZobristUtils.bitPieceIndex(piece);
+        }
+        final Pawn enPassantPawn = board.getEnPassantPawn();
+        final int enPassantFile = enPassantPawn == null ? 0 :
+                                  enPassantPawn.getPiecePosition() % BoardUtils.NUM_TILES_PER_ROW + 1;
+        final bitBoard position = new bitBoard();
+        position.loadPosition(squares, board.currentPlayer().getAlliance().isWhite(),
+                board.getCastlingRights(), enPassantFile, 0, 1);
+        return position;
+    }
+
+    /*
+     * The board derives its castling rights from kings and rooks that have not moved, so a
+     * corner rook keeps its first move only when the FEN still allows castling with it.
+     */
+    public static Board createBoard(final String fen) {
+        final PositionInfo position = FenUtility.positionFromFen(fen);
+        final Board.Builder builder = new Board.Builder();
+        for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+            final int piece = position.squares.get(square);
+            if (piece != bitPiece.NONE) {
+                builder.setPiece(createPiece(piece, ZobristUtils.toBitSquare(square), position));
+            }
+        }
+        final Alliance moveMaker = position.whiteToMove ? Alliance.WHITE : Alliance.BLACK;
+        builder.setMoveMaker(moveMaker);
+        if (position.epFile != 0) {
+            // the pawn that just jumped stands on the fourth rank from its side
+            final int pawnCoordinate = (moveMaker.isWhite() ? 24 : 32) + position.epFile - 1;
+            final Piece pawn = builder.boardConfig[pawnCoordinate];
+            if (pawn != null && pawn.getPieceType() == Piece.PieceType.PAWN && pawn.getPieceAlliance() != moveMaker) {
+                builder.setEnPassantPawn((Pawn) pawn);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Piece createPiece(final int piece,
+                                     final int coordinate,
+                                     final PositionInfo position) {
+        final Alliance alliance = bitPiece.isWhite(piece) ? Alliance.WHITE : Alliance.BLACK;
+        final boolean kingSide = alliance.isWhite() ? position.whiteCastleKingside : position.blackCastleKingside;
+        final boolean queenSide = alliance.isWhite() ? position.whiteCastleQueenside : position.blackCastleQueenside;
+        final int pieceType = bitPiece.pieceType(piece);
+        switch (pieceType) {
+            case bitPiece.PAWN:
+            case bitPiece.KNIGHT:
+            case bitPiece.BISHOP:
+            case bitPiece.QUEEN:
+                return PieceUtils.INSTANCE.getPiece(Piece.PieceType.values()[pieceType - 1], alliance, coordinate, true);
+            case bitPiece.ROOK:
+                final int backRank = alliance.isWhite() ? 56 : 0;
+                return PieceUtils.INSTANCE.getPiece(Piece.PieceType.ROOK, alliance, coordinate,
+                                                    (coordinate == backRank + 7 && kingSide) ||
+                                                    (coordinate == backRank && queenSide));
+            case bitPiece.KING:
+                return PieceUtils.INSTANCE.getKing(alliance, coordinate, true, false, kingSide, queenSide);
+            default:
+                throw new RuntimeException("Unknown piece " + piece);
+        }
+    }
+
+    public static Move toMove(final Board board,
+                              final short move) {
+        final int currentCoordinate = ZobristUtils.toBitSquare(bitMove.startSquare(move));
+        final int destinationCoordinate = ZobristUtils.toBitSquare(bitMove.targetSquare(move));
+        final int promotionType = bitMove.promotionPieceType(move);
+        for (final Move candidate : board.currentPlayer().getLegalMoves()) {
+            if (candidate.getCurrentCoordinate() == currentCoordinate &&
+                candidate.getDestinationCoordinate() == destinationCoordinate &&
+                promotionType(candidate) == promotionType) {
+                return candidate;
+            }
+        }
+        return MoveFactory.getNullMove();
+    }
+
+    // bitPiece types follow the PieceType order, one higher to leave 0 for an empty square
+    private static int promotionType(final Move move) {
+        final Piece promotionPiece = move.getPromotionPiece();
+        return promotionPiece == null ? bitPiece.NONE : promotionPiece.getPieceType().ordinal() + 1;
+    }
+
+}
@@ -1,8 +1,7 @@
 package engine.board;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -10,6 +9,9 @@ import engine.Alliance;
 import engine.Player.BlackPlayer;
 import engine.Player.Player;
 import engine.Player.WhitePlayer;
+import engine.bitBoard.bitPiece;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.magics.Magic;
 import engine.board.Move.MoveFactory;
 import engine.pieces.*;
 import java.util.Collection;
@@ -18,7 +20,8 @@ import java.util.Collection;
 
 public final class Board {
 
-    private final Map<Integer, Piece> boardConfig;
+    // indexed by coordinate, null for an empty square
+    private final Piece[] boardConfig;
     private final Collection<Piece> whitePieces;
     private final Collection<Piece> blackPieces;
     private final WhitePlayer whitePlayer;
@@ -26,18 +29,54 @@ public final class Board {
     private final Player currentPlayer;
     private final Pawn enPassantPawn;
     private final Move transitionMove;
+    private final int castlingRights;
+    private final long zobristKey;
+    private final long pawnKey;
+    private final int whitePieceSquareScore;
+    private final int blackPieceSquareScore;
+    private final long[] pieceBitboards;
+    private final long whiteOccupancy;
+    private final long blackOccupancy;
+    // worked out on first request, see getStandardMoves
+    private volatile Collection<Move> whiteStandardMoves;
+    private volatile Collection<Move> blackStandardMoves;
 
     private static final Board STANDARD_BOARD = createStandardBoardImpl();
 
     private Board(final Builder builder) {
-        this.boardConfig = Collections.unmodifiableMap(builder.boardConfig);
-        this.whitePieces = calculateActivePieces(builder, Alliance.WHITE);
-        this.blackPieces = calculateActivePieces(builder, Alliance.BLACK);
+        this.boardConfig = builder.boardConfig;
+        this.pieceBitboards = new long[bitPiece.MAX_PIECE_INDEX + 1];
+        final Piece[] white = new Piece[BoardUtils.NUM_TILES];
+        final Piece[] black = new Piece[BoardUtils.NUM_TILES];
+        int whiteCount = 0;
+        int blackCount = 0;
+        for (final Piece piece : this.boardConfig) {
+            if (piece == null) {
+                continue;
+            }
+            this.pieceBitboards[ZobristUtils.bitPieceIndex(piece)] |= 1L << ZobristUtils.toBitSquare(piece.getPiecePosition());
+            if (piece.getPieceAlliance().isWhite()) {
+                white[whiteCount++] = piece;
+            } else {
+                black[blackCount++] = piece;
+            }
+        }
+        this.whitePieces = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(white, whiteCount)));
+        this.blackPieces = Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(black, blackCount)));
         this.enPassantPawn = builder.enPassantPawn;
-        final Collection<Move> whiteStandardMoves = calculateLegalMoves(this.whitePieces);
-        final Collection<Move> blackStandardMoves = calculateLegalMoves(this.blackPieces);
-        this.whitePlayer = new WhitePlayer(this, whiteStandardMoves, blackStandardMoves);
-        this.blackPlayer = new BlackPlayer(this, whiteStandardMoves, blackStandardMoves);
+        this.castlingRights = ZobristUtils.calculateCastlingRights(this.boardConfig);
+        this.whiteOccupancy = calculateOccupancy(this.pieceBitboards, Alliance.WHITE);
+        this.blackOccupancy = calculateOccupancy(this.pieceBitboards, Alliance.BLACK);
+        this.zobristKey = (builder.zobristKey != null ? builder.zobristKey :
+                ZobristUtils.calculatePositionKey(this.boardConfig, builder.nextMoveMaker, this.enPassantPawn)) ^
+                ZobristUtils.castlingKey(this.castlingRights);
+        this.pawnKey = builder.pawnKey != null ? builder.pawnKey : ZobristUtils.calculatePawnKey(this.boardConfig);
+        this.whitePieceSquareScore = builder.whitePieceSquareScore != null ? builder.whitePieceSquareScore :
+                PieceSquareTables.calculateScore(this.whitePieces);
+        this.blackPieceSquareScore = builder.blackPieceSquareScore != null ? builder.blackPieceSquareScore :
+                PieceSquareTables.calculateScore(this.blackPieces);
+        this.whitePlayer = new WhitePlayer(this);
+        this.blackPlayer = new BlackPlayer(this);
         this.currentPlayer = builder.nextMoveMaker.choosePlayerByAlliance(this.whitePlayer, this.blackPlayer);
         this.transitionMove = builder.transitionMove != null ? builder.transitionMove : MoveFactory.getNullMove();
     }
@@ -46,7 +85,7 @@ public final class Board {
     public String toString() {
         final StringBuilder builder = new StringBuilder();
         for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
-            final String tileText = prettyPrint(this.boardConfig.get(i));
+            final String tileText = prettyPrint(this.boardConfig[i]);
             builder.append(String.format("%3s", tileText));
             if ((i + 1) % 8 == 0) {
                 builder.append("\n");
@@ -81,6 +120,27 @@ public final class Board {
                              this.blackPlayer.getLegalMoves().stream()).collect(Collectors.toList());
     }
 
+    /*
+     * The moves of one side's pieces, castling aside, that may still leave their king in check.
+     * They are generated the first time that side's player, or the other player looking for
+     * attacks, asks for them, so a board that is only evaluated or thrown away after a legality
+     * test never generates the moves it does not need. Boards are shared by search threads; two
+     * threads may both generate the moves, and either of the equal lists is kept.
+     */
+    public Collection<Move> getStandardMoves(final Alliance alliance) {
+        Collection<Move> standardMoves = alliance.isWhite() ? this.whiteStandardMoves : this.blackStandardMoves;
+        if (standardMoves == null) {
+            standardMoves = Collections.unmodifiableCollection(
+                    calculateLegalMoves(alliance.isWhite() ? this.whitePieces : this.blackPieces));
+            if (alliance.isWhite()) {
+                this.whiteStandardMoves = standardMoves;
+            } else {
+                this.blackStandardMoves = standardMoves;
+            }
+        }
+        return standardMoves;
+    }
+
     public WhitePlayer whitePlayer() {
         return this.whitePlayer;
     }
@@ -93,8 +153,13 @@ public final class Board {
         return this.currentPlayer;
     }
 
+    // the state of the game for the side to move
+    public GameState getGameState() {
+        return this.currentPlayer.getGameState();
+    }
+
     public Piece getPiece(final int coordinate) {
-        return this.boardConfig.get(coordinate);
+        return this.boardConfig[coordinate];
     }
 
     public Pawn getEnPassantPawn() {
@@ -105,6 +170,111 @@ public final class Board {
         return this.transitionMove;
     }
 
+    public long getZobristKey() {
+        return this.zobristKey;
+    }
+
+    /*
+     * Zobrist key of the pawns alone, for caching pawn structure terms that only change when a
+     * pawn moves, is captured or promotes.
+     */
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    /*
+     * Material and piece-square score of one side's pieces, packed as in PieceSquareTables and
+     * carried from board to board by the moves instead of being summed at every evaluation.
+     */
+    public int getPieceSquareScore(final Alliance alliance) {
+        return alliance.isWhite() ? this.whitePieceSquareScore : this.blackPieceSquareScore;
+    }
+
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+
+    /*
+     * Bitboards are in the bitBoard package's orientation (a1 = 0, h8 = 63), so a mailbox
+     * coordinate maps to bit ZobristUtils.toBitSquare(coordinate).
+     */
+    public long getPieceBitboard(final Alliance alliance,
+                                 final Piece.PieceType pieceType) {
+        return this.pieceBitboards[ZobristUtils.bitPieceIndex(alliance, pieceType)];
+    }
+
+    public long getOccupancy(final Alliance alliance) {
+        return alliance.isWhite() ? this.whiteOccupancy : this.blackOccupancy;
+    }
+
+    public long getOccupancy() {
+        return this.whiteOccupancy | this.blackOccupancy;
+    }
+
+    /*
+     * Whether a piece of the given side attacks the square, read off the pawn, knight and king
+     * attack tables and one bishop and one rook lookup outward from the square. The coordinate
+     * is a mailbox coordinate, as for getPiece.
+     */
+    public boolean isSquareAttacked(final int coordinate,
+                                    final Alliance byAlliance) {
+        return attackers(ZobristUtils.toBitSquare(coordinate), byAlliance, getOccupancy(), -1L) != 0L;
+    }
+
+    /*
+     * Whether making the move would leave the mover's king attacked, worked out on this board
+     * rather than the next one: the king's square is looked at with the moved piece lifted and
+     * set down and the captured piece gone, which sees pins, discovered attacks and en passant
+     * captures that uncover the king. Castles are only generated across unattacked squares, so
+     * they are always legal here.
+     */
+    public boolean leavesKingInCheck(final Move move) {
+        if (move.isCastlingMove()) {
+            return false;
+        }
+        final Piece movedPiece = move.getMovedPiece();
+        final Alliance alliance = movedPiece.getPieceAlliance();
+        final long from = 1L << ZobristUtils.toBitSquare(move.getCurrentCoordinate());
+        final long to = 1L << ZobristUtils.toBitSquare(move.getDestinationCoordinate());
+        final long captured = move.isAttack() ?
+                1L << ZobristUtils.toBitSquare(move.getAttackedPiece().getPiecePosition()) : 0L;
+        final int kingSquare = movedPiece.getPieceType() == Piece.PieceType.KING ?
+                ZobristUtils.toBitSquare(move.getDestinationCoordinate()) :
+                Long.numberOfTrailingZeros(getPieceBitboard(alliance, Piece.PieceType.KING));
+        final Alliance enemy = alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+        return attackers(kingSquare, enemy, (getOccupancy() & ~from & ~captured) | to, ~captured) != 0L;
+    }
+
+    // pieces of one side that attack the bitboard square, given the occupancy and the pieces still standing
+    private long attackers(final int square,
+                           final Alliance byAlliance,
+                           final long occupancy,
+                           final long standing) {
+        final long queens = getPieceBitboard(byAlliance, Piece.PieceType.QUEEN);
+        // a pawn attacks the square from where a pawn of the other side on it would capture
+        final long pawnSquares = byAlliance.isWhite() ?
+                BitBoardUtility.BLACK_PAWN_ATTACKS[square] : BitBoardUtility.WHITE_PAWN_ATTACKS[square];
+        return ((pawnSquares & getPieceBitboard(byAlliance, Piece.PieceType.PAWN)) |
+                (BitBoardUtility.KNIGHT_ATTACKS[square] & getPieceBitboard(byAlliance, Piece.PieceType.KNIGHT)) |
+                (BitBoardUtility.KING_MOVES[square] & getPieceBitboard(byAlliance, Piece.PieceType.KING)) |
+                (Magic.getBishopAttacks(square, occupancy) & (getPieceBitboard(byAlliance, Piece.PieceType.BISHOP) | queens)) |
+                (Magic.getRookAttacks(square, occupancy) & (getPieceBitboard(byAlliance, Piece.PieceType.ROOK) | queens))) &
+               standing;
+    }
+
+    /*
+     * The same position with the other side to move and no en passant square, for null move
+     * pruning. Its transition move is the null move, so a search can tell two passes in a row.
+     */
+    public Board makeNullMove() {
+        final Builder builder = new Builder(this.boardConfig.clone());
+        builder.setMoveMaker(this.currentPlayer.getOpponent().getAlliance());
+        builder.setZobristKey(ZobristUtils.nextPositionKey(this));
+        builder.setPawnKey(this.pawnKey);
+        builder.setPieceSquareScores(this.whitePieceSquareScore, this.blackPieceSquareScore);
+        return builder.build();
+    }
+
     public static Board createStandardBoard() {
         return STANDARD_BOARD;
     }
@@ -112,70 +282,98 @@ public final class Board {
     private static Board createStandardBoardImpl() {
         final Builder builder = new Builder();
         // Black Layout
-        builder.setPiece(new Rook(Alliance.BLACK, 0));
-        builder.setPiece(new Knight(Alliance.BLACK, 1));
-        builder.setPiece(new Bishop(Alliance.BLACK, 2));
-        builder.setPiece(new Queen(Alliance.BLACK, 3));
-        builder.setPiece(new King(Alliance.BLACK, 4, true, true));
-        builder.setPiece(new Bishop(Alliance.BLACK, 5));
-        builder.setPiece(new Knight(Alliance.BLACK, 6));
-        builder.setPiece(new Rook(Alliance.BLACK, 7));
-        builder.setPiece(new Pawn(Alliance.BLACK, 8));
-        builder.setPiece(new Pawn(Alliance.BLACK, 9));
-        builder.setPiece(new Pawn(Alliance.BLACK, 10));
-        builder.setPiece(new Pawn(Alliance.BLACK, 11));
-        builder.setPiece(new Pawn(Alliance.BLACK, 12));
-        builder.setPiece(new Pawn(Alliance.BLACK, 13));
-        builder.setPiece(new Pawn(Alliance.BLACK, 14));
-        builder.setPiece(new Pawn(Alliance.BLACK, 15));
+        builder.setPiece(unmoved(Piece.PieceType.ROOK, Alliance.BLACK, 0));
+        builder.setPiece(unmoved(Piece.PieceType.KNIGHT, Alliance.BLACK, 1));
+        builder.setPiece(unmoved(Piece.PieceType.BISHOP, Alliance.BLACK, 2));
+        builder.setPiece(unmoved(Piece.PieceType.QUEEN, Alliance.BLACK, 3));
+        builder.setPiece(PieceUtils.INSTANCE.getKing(Alliance.BLACK, 4, true, false, true, true));
+        builder.setPiece(unmoved(Piece.PieceType.BISHOP, Alliance.BLACK, 5));
+        builder.setPiece(unmoved(Piece.PieceType.KNIGHT, Alliance.BLACK, 6));
+        builder.setPiece(unmoved(Piece.PieceType.ROOK, Alliance.BLACK, 7));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 8));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 9));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 10));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 11));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 12));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 13));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 14));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.BLACK, 15));
         // White Layout
-        builder.setPiece(new Pawn(Alliance.WHITE, 48));
-        builder.setPiece(new Pawn(Alliance.WHITE, 49));
-        builder.setPiece(new Pawn(Alliance.WHITE, 50));
-        builder.setPiece(new Pawn(Alliance.WHITE, 51));
-        builder.setPiece(new Pawn(Alliance.WHITE, 52));
-        builder.setPiece(new Pawn(Alliance.WHITE, 53));
-        builder.setPiece(new Pawn(Alliance.WHITE, 54));
-        builder.setPiece(new Pawn(Alliance.WHITE, 55));
-        builder.setPiece(new Rook(Alliance.WHITE, 56));
-        builder.setPiece(new Knight(Alliance.WHITE, 57));
-        builder.setPiece(new Bishop(Alliance.WHITE, 58));
-        builder.setPiece(new Queen(Alliance.WHITE, 59));
-        builder.setPiece(new King(Alliance.WHITE, 60, true, true));
-        builder.setPiece(new Bishop(Alliance.WHITE, 61));
-        builder.setPiece(new Knight(Alliance.WHITE, 62));
-        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 48));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 49));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 50));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 51));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 52));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 53));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 54));
+        builder.setPiece(unmoved(Piece.PieceType.PAWN, Alliance.WHITE, 55));
+        builder.setPiece(unmoved(Piece.PieceType.ROOK, Alliance.WHITE, 56));
+        builder.setPiece(unmoved(Piece.PieceType.KNIGHT, Alliance.WHITE, 57));
+        builder.setPiece(unmoved(Piece.PieceType.BISHOP, Alliance.WHITE, 58));
+        builder.setPiece(unmoved(Piece.PieceType.QUEEN, Alliance.WHITE, 59));
+        builder.setPiece(PieceUtils.INSTANCE.getKing(Alliance.WHITE, 60, true, false, true, true));
+        builder.setPiece(unmoved(Piece.PieceType.BISHOP, Alliance.WHITE, 61));
+        builder.setPiece(unmoved(Piece.PieceType.KNIGHT, Alliance.WHITE, 62));
+        builder.setPiece(unmoved(Piece.PieceType.ROOK, Alliance.WHITE, 63));
         //white to move
         builder.setMoveMaker(Alliance.WHITE);
         //build the board
         return builder.build();
     }
 
+    private static Piece unmoved(final Piece.PieceType pieceType,
+                                 final Alliance alliance,
+                                 final int position) {
+        return PieceUtils.INSTANCE.getPiece(pieceType, alliance, position, true);
+    }
+
     private Collection<Move> calculateLegalMoves(final Collection<Piece> pieces) {
         return pieces.stream().flatMap(piece -> piece.calculateLegalMoves(this).stream())
                       .collect(Collectors.toList());
     }
 
-    private static Collection<Piece> calculateActivePieces(final Builder builder,
-                                                           final Alliance alliance) {
-        return builder.boardConfig.values().stream()
-               .filter(piece -> piece.getPieceAlliance() == alliance)
-               .collect(Collectors.toList());
+    private static long calculateOccupancy(final long[] pieceBitboards,
+                                           final Alliance alliance) {
+        long occupancy = 0L;
+        for (final Piece.PieceType pieceType : Piece.PieceType.values()) {
+            occupancy |= pieceBitboards[ZobristUtils.bitPieceIndex(alliance, pieceType)];
+        }
+        return occupancy;
+    }
+
+    public enum GameState {
+
+        ONGOING,
+        CHECKMATE,
+        STALEMATE;
+
+        public boolean isOver() {
+            return this != ONGOING;
+        }
+
     }
 
     public static class Builder {
 
-        Map<Integer, Piece> boardConfig;
+        Piece[] boardConfig;
         Alliance nextMoveMaker;
         Pawn enPassantPawn;
         Move transitionMove;
+        Long zobristKey;
+        Long pawnKey;
+        Integer whitePieceSquareScore;
+        Integer blackPieceSquareScore;
 
         public Builder() {
-            this.boardConfig = new HashMap<>(32, 1.0f);
+            this(new Piece[BoardUtils.NUM_TILES]);
+        }
+
+        private Builder(final Piece[] boardConfig) {
+            this.boardConfig = boardConfig;
         }
 
         public Builder setPiece(final Piece piece) {
-            this.boardConfig.put(piece.getPiecePosition(), piece);
+            this.boardConfig[piece.getPiecePosition()] = piece;
             return this;
         }
 
@@ -194,6 +392,24 @@ public final class Board {
             return this;
         }
 
+        // key without the castling component, which the board derives from its pieces
+        Builder setZobristKey(final long zobristKey) {
+            this.zobristKey = zobristKey;
+            return this;
+        }
+
+        Builder setPawnKey(final long pawnKey) {
+            this.pawnKey = pawnKey;
+            return this;
+        }
+
+        Builder setPieceSquareScores(final int whitePieceSquareScore,
+                                     final int blackPieceSquareScore) {
+            this.whitePieceSquareScore = whitePieceSquareScore;
+            this.blackPieceSquareScore = blackPieceSquareScore;
+            return this;
+        }
+
         public Board build() {
             return new Board(this);
         }
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 
 import engine.Player.MoveTransition;
+import engine.Player.Player;
 import engine.board.Move.MoveFactory;
 import engine.pieces.King;
 import engine.pieces.Piece;
@@ -109,14 +110,6 @@ public enum  BoardUtils {
                piece.getPieceAlliance() != king.getPieceAlliance();
     }
 
-    public static int mvvlva(final Move move) {
-        final Piece movingPiece = move.getMovedPiece();
-        if(move.isAttack()) {
-            final Piece attackedPiece = move.getAttackedPiece();
-            return (attackedPiece.getPieceValue() - movingPiece.getPieceValue() +  Piece.PieceType.KING.getPieceValue()) * 100;
-        }
-        return Piece.PieceType.KING.getPieceValue() - movingPiece.getPieceValue();
-    }
 
     public static List<Move> lastNMoves(final Board board, int N) {
         final List<Move> moveHistory = new ArrayList<>();
@@ -131,7 +124,16 @@ public enum  BoardUtils {
     }
 
     public static boolean isEndGame(final Board board) {
-        return board.currentPlayer().isInCheckMate() ||
-               board.currentPlayer().isInStaleMate();
+        return board.getGameState().isOver();
+    }
+
+    public static int totalPieceCountWithoutPawnsAndKings(final Player player) {
+        int count = 0;
+        for (final Piece piece : player.getActivePieces()) {
+            if (piece.getPieceType() != Piece.PieceType.PAWN && piece.getPieceType() != Piece.PieceType.KING) {
+                count++;
+            }
+        }
+        return count;
     }
 }
\ No newline at end of file
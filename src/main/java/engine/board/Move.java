@@ -2,9 +2,11 @@ package engine.board;
 
 import java.util.Objects;
 
+import engine.Alliance;
 import engine.board.Board.Builder;
 import engine.pieces.Pawn;
 import engine.pieces.Piece;
+import engine.pieces.PieceUtils;
 import engine.pieces.Rook;
 
 
@@ -84,16 +86,55 @@ public abstract class Move {
         return null;
     }
 
+    public Piece getPromotionPiece() {
+        return null;
+    }
+
     public Board execute() {
         final Board.Builder builder = new Builder();
         this.board.currentPlayer().getActivePieces().stream().filter(piece -> !this.movedPiece.equals(piece)).forEach(builder::setPiece);
         this.board.currentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
-        builder.setPiece(this.movedPiece.movePiece(this));
+        final Piece movedPiece = this.movedPiece.movePiece(this);
+        builder.setPiece(movedPiece);
         builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
         builder.setMoveTransition(this);
+        builder.setZobristKey(calculateTransitionKey(movedPiece));
+        builder.setPawnKey(calculateTransitionPawnKey(movedPiece));
+        setTransitionPieceSquareScores(builder, PieceSquareTables.score(movedPiece) - PieceSquareTables.score(this.movedPiece));
         return builder.build();
     }
 
+    // the mover's score changes by the given amount and the opponent loses the captured piece's score
+    void setTransitionPieceSquareScores(final Board.Builder builder,
+                                        final int moverDelta) {
+        final int white = this.board.getPieceSquareScore(Alliance.WHITE);
+        final int black = this.board.getPieceSquareScore(Alliance.BLACK);
+        final int captured = PieceSquareTables.score(getAttackedPiece());
+        if (this.board.currentPlayer().getAlliance().isWhite()) {
+            builder.setPieceSquareScores(white + moverDelta, black - captured);
+        } else {
+            builder.setPieceSquareScores(white - captured, black + moverDelta);
+        }
+    }
+
+    long calculateTransitionPawnKey(final Piece movedPiece) {
+        return this.board.getPawnKey() ^
+               ZobristUtils.pawnKey(this.movedPiece) ^
+               ZobristUtils.pawnKey(movedPiece) ^
+               ZobristUtils.pawnKey(getAttackedPiece());
+    }
+
+    long calculateTransitionKey(final Piece movedPiece) {
+        long key = ZobristUtils.nextPositionKey(this.board) ^
+                   ZobristUtils.pieceKey(this.movedPiece) ^
+                   ZobristUtils.pieceKey(movedPiece);
+        final Piece attackedPiece = getAttackedPiece();
+        if (attackedPiece != null) {
+            key ^= ZobristUtils.pieceKey(attackedPiece);
+        }
+        return key;
+    }
+
     public Board undo() {
         final Board.Builder builder = new Builder();
         this.board.getAllPieces().forEach(builder::setPiece);
@@ -171,12 +212,33 @@ public abstract class Move {
             final Board.Builder builder = new Builder();
             pawnMovedBoard.currentPlayer().getActivePieces().stream().filter(piece -> !this.promotedPawn.equals(piece)).forEach(builder::setPiece);
             pawnMovedBoard.currentPlayer().getOpponent().getActivePieces().forEach(builder::setPiece);
-            builder.setPiece(this.promotionPiece.movePiece(this));
+            final Piece promotedPiece = this.promotionPiece.movePiece(this);
+            builder.setPiece(promotedPiece);
             builder.setMoveMaker(pawnMovedBoard.currentPlayer().getAlliance());
             builder.setMoveTransition(this);
+            builder.setZobristKey(pawnMovedBoard.getZobristKey() ^
+                                  ZobristUtils.castlingKey(pawnMovedBoard.getCastlingRights()) ^
+                                  ZobristUtils.pieceKey(pawnMovedBoard.getPiece(this.destinationCoordinate)) ^
+                                  ZobristUtils.pieceKey(promotedPiece));
+            builder.setPawnKey(pawnMovedBoard.getPawnKey() ^
+                               ZobristUtils.pawnKey(pawnMovedBoard.getPiece(this.destinationCoordinate)));
+            final int promotionDelta = PieceSquareTables.score(promotedPiece) -
+                                       PieceSquareTables.score(pawnMovedBoard.getPiece(this.destinationCoordinate));
+            if (promotedPiece.getPieceAlliance().isWhite()) {
+                builder.setPieceSquareScores(pawnMovedBoard.getPieceSquareScore(Alliance.WHITE) + promotionDelta,
+                                             pawnMovedBoard.getPieceSquareScore(Alliance.BLACK));
+            } else {
+                builder.setPieceSquareScores(pawnMovedBoard.getPieceSquareScore(Alliance.WHITE),
+                                             pawnMovedBoard.getPieceSquareScore(Alliance.BLACK) + promotionDelta);
+            }
             return builder.build();
         }
 
+        @Override
+        public Piece getPromotionPiece() {
+            return this.promotionPiece;
+        }
+
         @Override
         public boolean isAttack() {
             return this.decoratedMove.isAttack();
@@ -304,9 +366,13 @@ public abstract class Move {
             final Board.Builder builder = new Builder();
             this.board.currentPlayer().getActivePieces().stream().filter(piece -> !this.movedPiece.equals(piece)).forEach(builder::setPiece);
             this.board.currentPlayer().getOpponent().getActivePieces().stream().filter(piece -> !piece.equals(this.getAttackedPiece())).forEach(builder::setPiece);
-            builder.setPiece(this.movedPiece.movePiece(this));
+            final Piece movedPiece = this.movedPiece.movePiece(this);
+            builder.setPiece(movedPiece);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
             builder.setMoveTransition(this);
+            builder.setZobristKey(calculateTransitionKey(movedPiece));
+            builder.setPawnKey(calculateTransitionPawnKey(movedPiece));
+            setTransitionPieceSquareScores(builder, PieceSquareTables.score(movedPiece) - PieceSquareTables.score(this.movedPiece));
             return builder.build();
         }
 
@@ -345,6 +411,9 @@ public abstract class Move {
             builder.setEnPassantPawn(movedPawn);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
             builder.setMoveTransition(this);
+            builder.setZobristKey(calculateTransitionKey(movedPawn) ^ ZobristUtils.enPassantKey(movedPawn));
+            builder.setPawnKey(calculateTransitionPawnKey(movedPawn));
+            setTransitionPieceSquareScores(builder, PieceSquareTables.score(movedPawn) - PieceSquareTables.score(this.movedPiece));
             return builder.build();
         }
 
@@ -391,10 +460,20 @@ public abstract class Move {
                     builder.setPiece(piece);
                 }
             }
-            builder.setPiece(this.movedPiece.movePiece(this));
-            builder.setPiece(new Rook(this.castleRook.getPieceAlliance(), this.castleRookDestination, false));
+            final Piece movedKing = this.movedPiece.movePiece(this);
+            final Rook castledRook = (Rook) PieceUtils.INSTANCE.getPiece(Piece.PieceType.ROOK, this.castleRook.getPieceAlliance(),
+                                                                         this.castleRookDestination, false);
+            builder.setPiece(movedKing);
+            builder.setPiece(castledRook);
             builder.setMoveMaker(this.board.currentPlayer().getOpponent().getAlliance());
             builder.setMoveTransition(this);
+            builder.setZobristKey(calculateTransitionKey(movedKing) ^
+                                  ZobristUtils.pieceKey(this.castleRook) ^
+                                  ZobristUtils.pieceKey(castledRook));
+            builder.setPawnKey(this.board.getPawnKey());
+            setTransitionPieceSquareScores(builder,
+                    PieceSquareTables.score(movedKing) - PieceSquareTables.score(this.movedPiece) +
+                    PieceSquareTables.score(castledRook) - PieceSquareTables.score(this.castleRook));
             return builder.build();
         }
 
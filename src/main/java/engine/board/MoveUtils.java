@@ -3,6 +3,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import engine.board.Move.*;
+import engine.pieces.Piece;
 
 public enum MoveUtils {
 
@@ -12,12 +13,34 @@ public enum MoveUtils {
 
     public static int exchangeScore(final Move move) {
         if(move == MoveFactory.getNullMove()) {
-            return 1;
+            return 0;
         }
-        return move.isAttack() ?
-                5 * exchangeScore(move.getBoard().getTransitionMove()) :
-                exchangeScore(move.getBoard().getTransitionMove());
+        return StaticExchangeEvaluator.evaluate(move);
+    }
+
+    public static int encode(final Move move) {
+        if(move == null || move.getMovedPiece() == null) {
+            return 0;
+        }
+        final Piece promotionPiece = move.getPromotionPiece();
+        final int promotion = promotionPiece != null ? promotionPiece.getPieceType().ordinal() + 1 : 0;
+        return move.getCurrentCoordinate() | (move.getDestinationCoordinate() << 6) | (promotion << 12);
+    }
 
+    public static boolean matches(final Move move,
+                                  final int encodedMove) {
+        return encodedMove != 0 && encode(move) == encodedMove;
+    }
+
+    public static String toLineString(final List<Move> line) {
+        final StringBuilder builder = new StringBuilder();
+        for (final Move move : line) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(move);
+        }
+        return builder.toString();
     }
 
     public static class Line {
@@ -0,0 +1,91 @@
+package engine.board;
+
+import java.util.Collection;
+
+import engine.Alliance;
+import engine.Player.ai.EvaluationWeights;
+import engine.pieces.Piece;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * Material plus piece-square score of each piece on each square, in a middlegame and an
+ * endgame version packed into one int, built once from the EvaluationWeights in force at
+ * startup. Packed scores add and subtract like plain ints, so a board carries one sum per
+ * side and a move updates it with the scores of the pieces that moved, were taken or promoted.
+ *
+ * taper() blends the two halves by the game phase, which counts the pieces other than pawns
+ * and kings: a knight or bishop is 1, a rook 2 and a queen 4, so the starting position is
+ * MAX_PHASE and a pawn ending is 0.
+ */
+public enum PieceSquareTables {
+
+    INSTANCE;
+
+    public static final int MAX_PHASE = 24;
+
+    public static int pack(final int middlegame,
+                           final int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    // the endgame half is stored signed in the low 16 bits, so round the middlegame half back up
+    public static int middlegame(final int score) {
+        return (score + 0x8000) >> 16;
+    }
+
+    public static int endgame(final int score) {
+        return (short) score;
+    }
+
+    // extra queens from promotions would go past the start, so the phase is capped there
+    public static int gamePhase(final Board board) {
+        final long minorPieces = board.getPieceBitboard(Alliance.WHITE, PieceType.KNIGHT) | board.getPieceBitboard(Alliance.BLACK, PieceType.KNIGHT) |
+                                 board.getPieceBitboard(Alliance.WHITE, PieceType.BISHOP) | board.getPieceBitboard(Alliance.BLACK, PieceType.BISHOP);
+        final long rooks = board.getPieceBitboard(Alliance.WHITE, PieceType.ROOK) | board.getPieceBitboard(Alliance.BLACK, PieceType.ROOK);
+        final long queens = board.getPieceBitboard(Alliance.WHITE, PieceType.QUEEN) | board.getPieceBitboard(Alliance.BLACK, PieceType.QUEEN);
+        return Math.min(MAX_PHASE, Long.bitCount(minorPieces) + 2 * Long.bitCount(rooks) + 4 * Long.bitCount(queens));
+    }
+
+    // integer only and without branches: the middlegame half weighs phase, the endgame half the rest
+    public static int taper(final int score,
+                            final int phase) {
+        return (middlegame(score) * phase + endgame(score) * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    // 0 for no piece, so a move without a capture can pass its null attacked piece
+    public static int score(final Piece piece) {
+        return piece == null ? 0 :
+               SCORES[piece.getPieceAlliance().ordinal()][piece.getPieceType().ordinal()][piece.getPiecePosition()];
+    }
+
+    public static int calculateScore(final Collection<Piece> pieces) {
+        int score = 0;
+        for (final Piece piece : pieces) {
+            score += score(piece);
+        }
+        return score;
+    }
+
+    private static int[][][] initScores() {
+        final EvaluationWeights weights = EvaluationWeights.get();
+        final PieceType[] pieceTypes = PieceType.values();
+        final int[][][] scores = new int[Alliance.values().length][pieceTypes.length][BoardUtils.NUM_TILES];
+        for (final Alliance alliance : Alliance.values()) {
+            for (final PieceType pieceType : pieceTypes) {
+                final int material = EvaluationWeights.materialIndex(pieceType);
+                for (int coordinate = 0; coordinate < BoardUtils.NUM_TILES; coordinate++) {
+                    // the tables are laid out for white; black reads the square mirrored top to bottom
+                    final int square = EvaluationWeights.pieceSquareIndex(pieceType, alliance.isWhite() ? coordinate : coordinate ^ 56);
+                    scores[alliance.ordinal()][pieceType.ordinal()][coordinate] =
+                            pack(weights.middlegame(material) + weights.middlegame(square),
+                                 weights.endgame(material) + weights.endgame(square));
+                }
+            }
+        }
+        return scores;
+    }
+
+    // [alliance][piece type][coordinate]
+    private static final int[][][] SCORES = initScores();
+
+}
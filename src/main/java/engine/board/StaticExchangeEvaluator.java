@@ -0,0 +1,141 @@
+package engine.board;
+
+import engine.Alliance;
+import engine.bitBoard.moveGeneration.bitBoardsUtil.BitBoardUtility;
+import engine.bitBoard.moveGeneration.magics.Magic;
+import engine.pieces.Piece;
+import engine.pieces.Piece.PieceType;
+
+/*
+ * Static exchange evaluation: the material the side making a move wins or loses if both sides
+ * then keep recapturing on the destination square with their least valuable attacker, each
+ * free to stop when going on would lose more. It works on the board's attack bitboards with the
+ * swap list algorithm; whenever a slider or pawn leaves the square's lines, the magic lookups
+ * are repeated on the reduced occupancy so the x-ray attackers behind it join in.
+ */
+public enum StaticExchangeEvaluator {
+
+    INSTANCE;
+
+    private static final int MAX_EXCHANGES = 32;
+    private static final PieceType[] BY_VALUE = {
+            PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+
+    /*
+     * Material balance of the exchange from the moving side's point of view, in centipawns.
+     * A quiet move scores how much the moved piece loses if it can be taken on its new square.
+     */
+    public static int evaluate(final Move move) {
+        if (move.getMovedPiece() == null || move.isCastlingMove()) {
+            return 0;
+        }
+        final Board board = move.getBoard();
+        final int to = ZobristUtils.toBitSquare(move.getDestinationCoordinate());
+        final Piece promotionPiece = move.getPromotionPiece();
+        final Piece attackedPiece = move.isAttack() ? move.getAttackedPiece() : null;
+
+        long occupancy = board.getOccupancy() ^ (1L << ZobristUtils.toBitSquare(move.getCurrentCoordinate()));
+        if (attackedPiece != null) {
+            occupancy &= ~(1L << ZobristUtils.toBitSquare(attackedPiece.getPiecePosition()));
+        }
+        long attackers = attackersTo(board, to, occupancy) & occupancy;
+
+        final int[] gain = new int[MAX_EXCHANGES];
+        gain[0] = (attackedPiece != null ? attackedPiece.getPieceValue() : 0) +
+                  (promotionPiece != null ? promotionPiece.getPieceValue() - PieceType.PAWN.getPieceValue() : 0);
+        int pieceOnSquareValue = promotionPiece != null ? promotionPiece.getPieceValue() : move.getMovedPiece().getPieceValue();
+        Alliance side = opposite(move.getMovedPiece().getPieceAlliance());
+        int depth = 0;
+
+        while (depth < MAX_EXCHANGES - 1) {
+            final PieceType attackerType = leastValuableAttacker(board, attackers, side);
+            if (attackerType == null) {
+                break;
+            }
+            // the king may only recapture when nothing can take it back
+            if (attackerType == PieceType.KING && (attackers & board.getOccupancy(opposite(side))) != 0) {
+                break;
+            }
+            depth++;
+            gain[depth] = pieceOnSquareValue - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                break;
+            }
+            final long attackerBit = Long.lowestOneBit(attackers & board.getPieceBitboard(side, attackerType));
+            occupancy ^= attackerBit;
+            attackers ^= attackerBit;
+            attackers |= xRayAttackers(board, to, occupancy, attackerType) & occupancy;
+            pieceOnSquareValue = attackerType.getPieceValue();
+            side = opposite(side);
+        }
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    public static boolean isLosing(final Move move) {
+        return evaluate(move) < 0;
+    }
+
+    /*
+     * Every piece of either colour that attacks the bit square through the given occupancy.
+     */
+    public static long attackersTo(final Board board,
+                                   final int square,
+                                   final long occupancy) {
+        final long rookLikes = sliders(board, PieceType.ROOK);
+        final long bishopLikes = sliders(board, PieceType.BISHOP);
+        return (BitBoardUtility.BLACK_PAWN_ATTACKS[square] & board.getPieceBitboard(Alliance.WHITE, PieceType.PAWN)) |
+               (BitBoardUtility.WHITE_PAWN_ATTACKS[square] & board.getPieceBitboard(Alliance.BLACK, PieceType.PAWN)) |
+               (BitBoardUtility.KNIGHT_ATTACKS[square] & (board.getPieceBitboard(Alliance.WHITE, PieceType.KNIGHT) |
+                                                          board.getPieceBitboard(Alliance.BLACK, PieceType.KNIGHT))) |
+               (BitBoardUtility.KING_MOVES[square] & (board.getPieceBitboard(Alliance.WHITE, PieceType.KING) |
+                                                      board.getPieceBitboard(Alliance.BLACK, PieceType.KING))) |
+               (Magic.getRookAttacks(square, occupancy) & rookLikes) |
+               (Magic.getBishopAttacks(square, occupancy) & bishopLikes);
+    }
+
+    private static long xRayAttackers(final Board board,
+                                      final int square,
+                                      final long occupancy,
+                                      final PieceType removedAttacker) {
+        switch (removedAttacker) {
+            case PAWN:
+            case BISHOP:
+                return Magic.getBishopAttacks(square, occupancy) & sliders(board, PieceType.BISHOP);
+            case ROOK:
+                return Magic.getRookAttacks(square, occupancy) & sliders(board, PieceType.ROOK);
+            case QUEEN:
+                return (Magic.getBishopAttacks(square, occupancy) & sliders(board, PieceType.BISHOP)) |
+                       (Magic.getRookAttacks(square, occupancy) & sliders(board, PieceType.ROOK));
+            default:
+                return 0L;
+        }
+    }
+
+    // rooks or bishops of both colours together with the queens that move like them
+    private static long sliders(final Board board,
+                                final PieceType slider) {
+        return board.getPieceBitboard(Alliance.WHITE, slider) | board.getPieceBitboard(Alliance.BLACK, slider) |
+               board.getPieceBitboard(Alliance.WHITE, PieceType.QUEEN) | board.getPieceBitboard(Alliance.BLACK, PieceType.QUEEN);
+    }
+
+    private static PieceType leastValuableAttacker(final Board board,
+                                                   final long attackers,
+                                                   final Alliance side) {
+        for (final PieceType pieceType : BY_VALUE) {
+            if ((attackers & board.getPieceBitboard(side, pieceType)) != 0) {
+                return pieceType;
+            }
+        }
+        return null;
+    }
+
+    private static Alliance opposite(final Alliance alliance) {
+        return alliance.isWhite() ? Alliance.BLACK : Alliance.WHITE;
+    }
+
+}
@@ -0,0 +1,141 @@
+package engine.board;
+
+import java.util.Random;
+
+import engine.Alliance;
+import engine.bitBoard.Zobrist;
+import engine.bitBoard.bitPiece;
+import engine.pieces.King;
+import engine.pieces.Pawn;
+import engine.pieces.Piece;
+
+import static engine.pieces.Piece.PieceType.KING;
+import static engine.pieces.Piece.PieceType.PAWN;
+import static engine.pieces.Piece.PieceType.ROOK;
+
+/*
+ * Zobrist hashing for the mailbox board. The random numbers are shared with the bitboard
+ * backend (engine.bitBoard.Zobrist), so pieces are keyed on the a1 = 0 square numbering.
+ */
+public enum ZobristUtils {
+
+    INSTANCE;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    // a castled king scores differently from one that walked to the same square
+    private static final long[] CASTLED_KING_KEYS = initCastledKingKeys();
+
+    private static long[] initCastledKingKeys() {
+        final Random rng = new Random(0x5C0_4910L);
+        return new long[] { rng.nextLong(), rng.nextLong() };
+    }
+
+    public static int toBitSquare(final int coordinate) {
+        return coordinate ^ 56;
+    }
+
+    public static int bitPieceIndex(final Piece piece) {
+        return bitPieceIndex(piece.getPieceAlliance(), piece.getPieceType());
+    }
+
+    public static int bitPieceIndex(final Alliance alliance,
+                                    final Piece.PieceType pieceType) {
+        return bitPiece.makePiece(pieceType.ordinal() + 1, alliance.isWhite());
+    }
+
+    public static long pieceKey(final Piece piece) {
+        long key = Zobrist.piecesArray[bitPieceIndex(piece)][toBitSquare(piece.getPiecePosition())];
+        if (piece.getPieceType() == KING && ((King) piece).isCastled()) {
+            key ^= CASTLED_KING_KEYS[piece.getPieceAlliance().isWhite() ? 0 : 1];
+        }
+        return key;
+    }
+
+    // the piece key of a pawn and 0 for anything else, so the pawn key can be updated like the full key
+    public static long pawnKey(final Piece piece) {
+        return piece != null && piece.getPieceType() == PAWN ?
+               Zobrist.piecesArray[bitPieceIndex(piece)][toBitSquare(piece.getPiecePosition())] : 0L;
+    }
+
+    public static long castlingKey(final int castlingRights) {
+        return Zobrist.castlingRights[castlingRights];
+    }
+
+    public static long enPassantKey(final Pawn enPassantPawn) {
+        return enPassantPawn == null ? 0L :
+               Zobrist.enPassantFile[(enPassantPawn.getPiecePosition() % BoardUtils.NUM_TILES_PER_ROW) + 1];
+    }
+
+    public static long sideKey(final Alliance moveMaker) {
+        return moveMaker.isBlack() ? Zobrist.sideToMove : 0L;
+    }
+
+    /*
+     * Key of the given position without its castling component; the board folds that in
+     * itself once the castling rights have been derived from the pieces.
+     */
+    static long calculatePositionKey(final Piece[] boardConfig,
+                                     final Alliance moveMaker,
+                                     final Pawn enPassantPawn) {
+        long key = sideKey(moveMaker) ^ enPassantKey(enPassantPawn);
+        for (final Piece piece : boardConfig) {
+            if (piece != null) {
+                key ^= pieceKey(piece);
+            }
+        }
+        return key;
+    }
+
+    static long calculatePawnKey(final Piece[] boardConfig) {
+        long key = 0L;
+        for (final Piece piece : boardConfig) {
+            key ^= pawnKey(piece);
+        }
+        return key;
+    }
+
+    /*
+     * Strips the castling, en passant and side components from the board's key, leaving the
+     * pieces and the side to move after the next move.
+     */
+    static long nextPositionKey(final Board board) {
+        return board.getZobristKey() ^
+               castlingKey(board.getCastlingRights()) ^
+               enPassantKey(board.getEnPassantPawn()) ^
+               Zobrist.sideToMove;
+    }
+
+    static int calculateCastlingRights(final Piece[] boardConfig) {
+        int rights = 0;
+        if (isCastleReady(boardConfig[60], Alliance.WHITE)) {
+            rights |= isCastleRook(boardConfig[63], Alliance.WHITE) ? WHITE_KING_SIDE : 0;
+            rights |= isCastleRook(boardConfig[56], Alliance.WHITE) ? WHITE_QUEEN_SIDE : 0;
+        }
+        if (isCastleReady(boardConfig[4], Alliance.BLACK)) {
+            rights |= isCastleRook(boardConfig[7], Alliance.BLACK) ? BLACK_KING_SIDE : 0;
+            rights |= isCastleRook(boardConfig[0], Alliance.BLACK) ? BLACK_QUEEN_SIDE : 0;
+        }
+        return rights;
+    }
+
+    private static boolean isCastleReady(final Piece piece,
+                                         final Alliance alliance) {
+        if (piece == null || piece.getPieceType() != KING || piece.getPieceAlliance() != alliance) {
+            return false;
+        }
+        final King king = (King) piece;
+        return king.isFirstMove() && !king.isCastled() &&
+               (king.isKingSideCastleCapable() || king.isQueenSideCastleCapable());
+    }
+
+    private static boolean isCastleRook(final Piece piece,
+                                        final Alliance alliance) {
+        return piece != null && piece.getPieceType() == ROOK &&
+               piece.getPieceAlliance() == alliance && piece.isFirstMove();
+    }
+
+}
@@ -113,7 +113,7 @@ public final class King extends Piece {
 
     @Override
     public King movePiece(final Move move) {
-        return new King(this.pieceAlliance, move.getDestinationCoordinate(), false, move.isCastlingMove(), false, false);
+        return PieceUtils.INSTANCE.getKing(this.pieceAlliance, move.getDestinationCoordinate(), false, move.isCastlingMove(), false, false);
     }
 
     @Override
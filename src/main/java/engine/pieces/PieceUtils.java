@@ -1,95 +1,107 @@
 package engine.pieces;
 
-import com.google.common.collect.ImmutableTable;
-import com.google.common.collect.Table;
-
 import engine.Alliance;
 import engine.board.BoardUtils;
+import engine.pieces.Piece.PieceType;
 
-enum PieceUtils {
+/*
+ * Every piece a board can hold, built once. Pieces are immutable, so boards share them and a
+ * move looks up the piece on its destination square instead of constructing one. Pieces other
+ * than kings are indexed by type, alliance, square and whether they have moved; kings also by
+ * whether they have castled and on which sides they still may.
+ */
+public enum PieceUtils {
 
     INSTANCE;
 
-    private final Table<Alliance, Integer, Queen> ALL_POSSIBLE_QUEENS = PieceUtils.createAllPossibleMovedQueens();
-    private final Table<Alliance, Integer, Rook> ALL_POSSIBLE_ROOKS = PieceUtils.createAllPossibleMovedRooks();
-    private final Table<Alliance, Integer, Knight> ALL_POSSIBLE_KNIGHTS = PieceUtils.createAllPossibleMovedKnights();
-    private final Table<Alliance, Integer, Bishop> ALL_POSSIBLE_BISHOPS = PieceUtils.createAllPossibleMovedBishops();
-    private final Table<Alliance, Integer, Pawn> ALL_POSSIBLE_PAWNS = PieceUtils.createAllPossibleMovedPawns();
+    private static final int KING_VARIANTS = 16;
+
+    // [type ordinal][alliance ordinal][position][isFirstMove ? 1 : 0], null for kings
+    private final Piece[][][][] ALL_POSSIBLE_PIECES = PieceUtils.createAllPossiblePieces();
+    // [alliance ordinal][position][king variant]
+    private final King[][][] ALL_POSSIBLE_KINGS = PieceUtils.createAllPossibleKings();
+
+    public Piece getPiece(final PieceType pieceType,
+                          final Alliance alliance,
+                          final int position,
+                          final boolean isFirstMove) {
+        if (pieceType == PieceType.KING) {
+            throw new RuntimeException("Kings are looked up with getKing");
+        }
+        return ALL_POSSIBLE_PIECES[pieceType.ordinal()][alliance.ordinal()][position][isFirstMove ? 1 : 0];
+    }
 
-     Pawn getMovedPawn(final Alliance alliance,
+    public King getKing(final Alliance alliance,
+                        final int position,
+                        final boolean isFirstMove,
+                        final boolean isCastled,
+                        final boolean kingSideCastleCapable,
+                        final boolean queenSideCastleCapable) {
+        return ALL_POSSIBLE_KINGS[alliance.ordinal()][position]
+                [kingVariant(isFirstMove, isCastled, kingSideCastleCapable, queenSideCastleCapable)];
+    }
+
+    Pawn getMovedPawn(final Alliance alliance,
                       final int destinationCoordinate) {
-        return ALL_POSSIBLE_PAWNS.get(alliance, destinationCoordinate);
+        return (Pawn) getPiece(PieceType.PAWN, alliance, destinationCoordinate, false);
     }
 
     Knight getMovedKnight(final Alliance alliance,
                           final int destinationCoordinate) {
-        return ALL_POSSIBLE_KNIGHTS.get(alliance, destinationCoordinate);
+        return (Knight) getPiece(PieceType.KNIGHT, alliance, destinationCoordinate, false);
     }
 
     Bishop getMovedBishop(final Alliance alliance,
                           final int destinationCoordinate) {
-        return ALL_POSSIBLE_BISHOPS.get(alliance, destinationCoordinate);
+        return (Bishop) getPiece(PieceType.BISHOP, alliance, destinationCoordinate, false);
     }
 
     Rook getMovedRook(final Alliance alliance,
                       final int destinationCoordinate) {
-        return ALL_POSSIBLE_ROOKS.get(alliance, destinationCoordinate);
+        return (Rook) getPiece(PieceType.ROOK, alliance, destinationCoordinate, false);
     }
 
     Queen getMovedQueen(final Alliance alliance,
                         final int destinationCoordinate) {
-        return ALL_POSSIBLE_QUEENS.get(alliance, destinationCoordinate);
+        return (Queen) getPiece(PieceType.QUEEN, alliance, destinationCoordinate, false);
     }
 
-    private static Table<Alliance, Integer, Pawn> createAllPossibleMovedPawns() {
-        final ImmutableTable.Builder<Alliance, Integer, Pawn> pieces = ImmutableTable.builder();
-        for(final Alliance alliance : Alliance.values()) {
-            for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
-                pieces.put(alliance, i, new Pawn(alliance, i, false));
-            }
-        }
-        return pieces.build();
-    }
-
-    private static Table<Alliance, Integer, Knight> createAllPossibleMovedKnights() {
-        final ImmutableTable.Builder<Alliance, Integer, Knight> pieces = ImmutableTable.builder();
-        for(final Alliance alliance : Alliance.values()) {
-            for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
-                pieces.put(alliance, i, new Knight(alliance, i, false));
-            }
-        }
-        return pieces.build();
-    }
-
-    private static Table<Alliance, Integer, Bishop> createAllPossibleMovedBishops() {
-        final ImmutableTable.Builder<Alliance, Integer, Bishop> pieces = ImmutableTable.builder();
-        for(final Alliance alliance : Alliance.values()) {
-            for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
-                pieces.put(alliance, i, new Bishop(alliance, i, false));
-            }
-        }
-        return pieces.build();
+    private static int kingVariant(final boolean isFirstMove,
+                                   final boolean isCastled,
+                                   final boolean kingSideCastleCapable,
+                                   final boolean queenSideCastleCapable) {
+        return (isFirstMove ? 1 : 0) | (isCastled ? 2 : 0) |
+               (kingSideCastleCapable ? 4 : 0) | (queenSideCastleCapable ? 8 : 0);
     }
 
-    private static Table<Alliance, Integer, Rook> createAllPossibleMovedRooks() {
-        final ImmutableTable.Builder<Alliance, Integer, Rook> pieces = ImmutableTable.builder();
-        for(final Alliance alliance : Alliance.values()) {
-            for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
-                pieces.put(alliance, i, new Rook(alliance, i, false));
+    private static Piece[][][][] createAllPossiblePieces() {
+        final Piece[][][][] pieces = new Piece[PieceType.values().length][Alliance.values().length][BoardUtils.NUM_TILES][2];
+        for (final Alliance alliance : Alliance.values()) {
+            for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+                for (int firstMove = 0; firstMove < 2; firstMove++) {
+                    final boolean isFirstMove = firstMove == 1;
+                    pieces[PieceType.PAWN.ordinal()][alliance.ordinal()][i][firstMove] = new Pawn(alliance, i, isFirstMove);
+                    pieces[PieceType.KNIGHT.ordinal()][alliance.ordinal()][i][firstMove] = new Knight(alliance, i, isFirstMove);
+                    pieces[PieceType.BISHOP.ordinal()][alliance.ordinal()][i][firstMove] = new Bishop(alliance, i, isFirstMove);
+                    pieces[PieceType.ROOK.ordinal()][alliance.ordinal()][i][firstMove] = new Rook(alliance, i, isFirstMove);
+                    pieces[PieceType.QUEEN.ordinal()][alliance.ordinal()][i][firstMove] = new Queen(alliance, i, isFirstMove);
+                }
             }
         }
-        return pieces.build();
+        return pieces;
     }
 
-    private static Table<Alliance, Integer, Queen> createAllPossibleMovedQueens() {
-        final ImmutableTable.Builder<Alliance, Integer, Queen> pieces = ImmutableTable.builder();
-        for(final Alliance alliance : Alliance.values()) {
-            for(int i = 0; i < BoardUtils.NUM_TILES; i++) {
-                pieces.put(alliance, i, new Queen(alliance, i, false));
+    private static King[][][] createAllPossibleKings() {
+        final King[][][] kings = new King[Alliance.values().length][BoardUtils.NUM_TILES][KING_VARIANTS];
+        for (final Alliance alliance : Alliance.values()) {
+            for (int i = 0; i < BoardUtils.NUM_TILES; i++) {
+                for (int variant = 0; variant < KING_VARIANTS; variant++) {
+                    kings[alliance.ordinal()][i][variant] = new King(alliance, i, (variant & 1) != 0, (variant & 2) != 0,
+                                                                     (variant & 4) != 0, (variant & 8) != 0);
+                }
             }
         }
-        return pieces.build();
+        return kings;
     }
 
-    
 }
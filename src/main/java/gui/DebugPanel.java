@@ -4,9 +4,14 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import java.util.ArrayList;
 import java.util.List;
 
+import engine.Player.ai.PrincipalVariationSearch;
+import engine.board.Move;
+import engine.board.MoveUtils;
+
 // Define my custom Observable interface
 interface MyObservable {
     void addObserver(MyObserver observer);
@@ -18,7 +23,7 @@ interface MyObserver {
     void update(Object obj);
 }
 
-public class DebugPanel extends JPanel implements MyObserver {
+public class DebugPanel extends JPanel implements MyObserver, PrincipalVariationSearch.AlphaBetaObserver {
     
     private static final Dimension CHAT_PANEL_DIMENSION = new Dimension(600, 150);
     private final JTextArea jTextArea;
@@ -42,6 +47,26 @@ public class DebugPanel extends JPanel implements MyObserver {
         this.jTextArea.setText(obj.toString().trim());
         redo();
     }
+
+    // the search calls these from its worker thread, so the text area is updated on the EDT
+    @Override
+    public void onMoveEvaluated(final String message) {
+        SwingUtilities.invokeLater(() -> update(message));
+    }
+
+    @Override
+    public void onBestMoveSelected(final Move bestMove) {
+        final String line = "best move " + bestMove;
+        SwingUtilities.invokeLater(() -> update(line));
+    }
+
+    @Override
+    public void onPrincipalVariation(final int depth,
+                                     final int score,
+                                     final List<Move> principalVariation) {
+        final String line = "depth " + depth + " score " + score + " pv " + MoveUtils.toLineString(principalVariation);
+        SwingUtilities.invokeLater(() -> update(line));
+    }
 }
 
 // Custom observable class
@@ -11,6 +11,7 @@ import javax.swing.JTable;
 import javax.swing.table.DefaultTableModel;
 
 import engine.board.*;
+import engine.board.Board.GameState;
 
 import gui.Table.MoveLog;
 
@@ -62,7 +63,7 @@ public class GameHistoryPanel extends JPanel{
     }
 
     private String calculateCheckAndCheckMateHash(final Board board) {
-        if(board.currentPlayer().isInCheckMate()) {
+        if(board.getGameState() == GameState.CHECKMATE) {
             return "#";
         } else if(board.currentPlayer().isInCheck()) {
             return "+";
@@ -15,9 +15,13 @@ class GameSetup extends JDialog {
     private PlayerType whitePlayerType;
     private PlayerType blackPlayerType;
     private JSpinner searchDepthSpinner;
+    private JSpinner searchThreadsSpinner;
+    private JSpinner moveTimeSpinner;
 
     private static final String HUMAN_TEXT = "Human";
     private static final String COMPUTER_TEXT = "Computer";
+    private static final int MAX_SEARCH_DEPTH = 20;
+    private static final int MAX_MOVE_TIME_MILLIS = 10 * 60 * 1000;
 
     GameSetup(final JFrame frame,
               final boolean modal) {
@@ -46,7 +50,12 @@ class GameSetup extends JDialog {
         myPanel.add(blackHumanButton);
         myPanel.add(blackComputerButton);
 
-        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(4, 0, Integer.MAX_VALUE, 1));
+        this.searchDepthSpinner = addLabeledSpinner(myPanel, "Search Depth", new SpinnerNumberModel(4, 1, MAX_SEARCH_DEPTH, 1));
+        this.searchThreadsSpinner = addLabeledSpinner(myPanel, "Search Threads",
+                new SpinnerNumberModel(1, 1, Runtime.getRuntime().availableProcessors(), 1));
+        // 0 searches to the fixed depth, anything else deepens until the time is used up
+        this.moveTimeSpinner = addLabeledSpinner(myPanel, "Move Time (ms)",
+                new SpinnerNumberModel(0, 0, MAX_MOVE_TIME_MILLIS, 100));
 
         final JButton cancelButton = new JButton("Cancel");
         final JButton okButton = new JButton("OK");
@@ -108,4 +117,12 @@ class GameSetup extends JDialog {
     int getSearchDepth() {
         return (Integer)this.searchDepthSpinner.getValue();
     }
+
+    int getSearchThreads() {
+        return (Integer)this.searchThreadsSpinner.getValue();
+    }
+
+    int getMoveTime() {
+        return (Integer)this.moveTimeSpinner.getValue();
+    }
 }
@@ -14,12 +14,15 @@ import java.awt.Dimension;
 
 import engine.Player.MoveTransition;
 import engine.Player.Player;
-import engine.Player.ai.AlphaBetaWithMoveOrdering;
-import engine.Player.ai.MiniMax;
+import engine.Player.ai.IterativeDeepening;
+import engine.Player.ai.LazySMP;
 import engine.Player.ai.MoveStrategy;
+import engine.Player.ai.PrincipalVariationSearch;
 import engine.Player.ai.StandardBoardEvaluator;
-import engine.Player.ai.StockAlphaBeta;
+import engine.Player.ai.TimeControl;
+import engine.Player.ai.TranspositionTable;
 import engine.board.*;
+import engine.board.Board.GameState;
 import engine.board.Move.MoveFactory;
 import engine.pieces.Piece;
 import gui.Table.PlayerType;
@@ -51,6 +54,8 @@ public class Table {
     private final BoardPanel boardPanel;
     private final MoveLog moveLog;
     private final GameSetup gameSetup;
+    private final TranspositionTable transpositionTable;
+    private MoveStrategy computerStrategy;
     private Board chessBoard;
     private Move computerMove;
     private Piece sourceTile;
@@ -93,6 +98,7 @@ public class Table {
         this.observable = new MyObservable();
         this.observable.addObserver(new TableGameAIWatcher());
         this.gameSetup = new GameSetup(this.gameFrame, true);
+        this.transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
         this.gameFrame.add(this.takenPiecesPanel, BorderLayout.WEST);
         this.gameFrame.add(this.boardPanel, BorderLayout.CENTER);
         this.gameFrame.add(this.gameHistoryPanel, BorderLayout.EAST);
@@ -120,6 +126,29 @@ public class Table {
         return this.gameSetup;
     }
 
+    // built on first use and kept until the setup changes, so the computer searches every move of a
+    // game with the same transposition table and evaluation cache
+    private MoveStrategy getComputerStrategy() {
+        if (this.computerStrategy == null) {
+            if (this.gameSetup.getMoveTime() > 0 && this.gameSetup.getSearchThreads() > 1) {
+                this.computerStrategy = new LazySMP(TimeControl.moveTime(this.gameSetup.getMoveTime()),
+                        this.gameSetup.getSearchDepth(), this.gameSetup.getSearchThreads(), this.transpositionTable);
+            } else if (this.gameSetup.getMoveTime() > 0) {
+                this.computerStrategy = new IterativeDeepening(TimeControl.moveTime(this.gameSetup.getMoveTime()),
+                        this.gameSetup.getSearchDepth(), this.transpositionTable);
+            } else if (this.gameSetup.getSearchThreads() > 1) {
+                this.computerStrategy = new LazySMP(this.gameSetup.getSearchDepth(),
+                        this.gameSetup.getSearchThreads(), this.transpositionTable);
+            } else {
+                final PrincipalVariationSearch principalVariationSearch =
+                        new PrincipalVariationSearch(this.gameSetup.getSearchDepth(), this.transpositionTable);
+                principalVariationSearch.addObserver(this.debugPanel);
+                this.computerStrategy = principalVariationSearch;
+            }
+        }
+        return this.computerStrategy;
+    }
+
     private Board getGameBoard() {
         return this.chessBoard;
     }
@@ -389,7 +418,7 @@ public class Table {
     
     private static String playerInfo(final Player player) {
         return ("Player is: " +player.getAlliance() + "\nlegal moves (" +player.getLegalMoves().size()+ ") = " +player.getLegalMoves() + "\ninCheck = " +
-                player.isInCheck() + "\nisInCheckMate = " +player.isInCheckMate() +
+                player.isInCheck() + "\ngameState = " +player.getGameState() +
                 "\nisCastled = " +player.isCastled())+ "\n";
     }
     
@@ -408,6 +437,10 @@ public class Table {
             this.chessBoard = this.chessBoard.currentPlayer().unMakeMove(lastMove).getToBoard();
         }
         this.computerMove = null;
+        this.transpositionTable.clear();
+        if (this.computerStrategy != null) {
+            this.computerStrategy.newGame();
+        }
         Table.get().getMoveLog().clear();
         Table.get().getGameHistoryPanel().redo(chessBoard, Table.get().getMoveLog());
         Table.get().getTakenPiecesPanel().redo(Table.get().getMoveLog());
@@ -458,6 +491,7 @@ public class Table {
     }
 
     private void setupUpdate(final GameSetup gameSetup) {
+        this.computerStrategy = null;
         observable.notifyObservers(gameSetup);
     }
 
@@ -468,20 +502,19 @@ public class Table {
                            final Object arg) {
 
             if (Table.get().getGameSetup().isAIPlayer(Table.get().getGameBoard().currentPlayer()) &&
-                !Table.get().getGameBoard().currentPlayer().isInCheckMate() &&
-                !Table.get().getGameBoard().currentPlayer().isInStaleMate()) {
+                !Table.get().getGameBoard().getGameState().isOver()) {
                 System.out.println(Table.get().getGameBoard().currentPlayer() + " is set to AI, thinking....");
-                final AIThinkTank thinkTank = new AIThinkTank();
+                final AIThinkTank thinkTank = new AIThinkTank(Table.get().getComputerStrategy());
                 thinkTank.execute();
             }
 
-            if (Table.get().getGameBoard().currentPlayer().isInCheckMate()) {
+            if (Table.get().getGameBoard().getGameState() == GameState.CHECKMATE) {
                 JOptionPane.showMessageDialog(Table.get().getBoardPanel(),
                         "Game Over: Player " + Table.get().getGameBoard().currentPlayer() + " is in checkmate!", "Game Over",
                         JOptionPane.INFORMATION_MESSAGE);
             }
 
-            if (Table.get().getGameBoard().currentPlayer().isInStaleMate()) {
+            if (Table.get().getGameBoard().getGameState() == GameState.STALEMATE) {
                 JOptionPane.showMessageDialog(Table.get().getBoardPanel(),
                         "Game Over: Player " + Table.get().getGameBoard().currentPlayer() + " is in stalemate!", "Game Over",
                         JOptionPane.INFORMATION_MESSAGE);
@@ -498,25 +531,15 @@ public class Table {
 
     private static class AIThinkTank extends SwingWorker<Move, String> {
 
-        private AIThinkTank() {
+        private final MoveStrategy strategy;
+
+        private AIThinkTank(final MoveStrategy strategy) {
+            this.strategy = strategy;
         }
 
         @Override
         protected Move doInBackground() {
-            final Move bestMove;
-            final int quiescenceFactor = 4;
-            //GARBAGE DONT USE THIS GUY BELOW
-            //NEEDS WORK HES NOT SMART YET
-            final MoveStrategy strategy = new AlphaBetaWithMoveOrdering(Table.get().getGameSetup().getSearchDepth(), quiescenceFactor);
-            
-            //THIS GUY CHILL
-            //final MoveStrategy miniMax = new MiniMax(Table.get().getGameSetup().getSearchDepth());
-
-            //TRYING TO USE THIS GUY
-            //final MoveStrategy StockAlphaBeta = new StockAlphaBeta(Table.get().getGameSetup().getSearchDepth());
-            //strategy.addObserver(Table.get().getDebugPanel());
-            bestMove = strategy.execute(Table.get().getGameBoard());
-            return bestMove;
+            return this.strategy.execute(Table.get().getGameBoard());
         }
 
         @Override
@@ -0,0 +1,438 @@
+package tuning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import engine.Player.MoveTransition;
+import engine.Player.ai.EvaluationWeights;
+import engine.Player.ai.StandardBoardEvaluator;
+import engine.board.BitBoardConverter;
+import engine.board.Board;
+import engine.board.Move;
+import engine.board.PieceSquareTables;
+import engine.board.StaticExchangeEvaluator;
+import engine.pieces.Piece;
+import pgn.PGNUtilities;
+import pgn.ParsePGNException;
+
+/*
+ * Texel tuning of the EvaluationWeights. The corpus is EPD lines with a game result (c9 "1-0",
+ * [1.0], [0.5], ...) and/or PGN games, whose positions are all taken after the opening plies.
+ * Only quiet positions are kept, where the side to move is not in check and has no capture
+ * that wins material, since the static evaluation is not meant to score the others.
+ *
+ * Every position is reduced once to the sparse list of how many times each weight counts for
+ * white minus for black, so the evaluation becomes a dot product with the weights, blended by
+ * the game phase like StandardBoardEvaluator does. The weights are then fitted with Adam to
+ * minimise the squared error between the result and a sigmoid of the evaluation, after the
+ * sigmoid's scaling constant K has been fitted to the starting weights. Both the feature
+ * extraction and the error and gradient sums are split across cores with ForkJoin.
+ *
+ * usage: java -cp scorpion.jar tuning.TexelTuner <output> <epochs> <corpus.epd|corpus.pgn>...
+ */
+public final class TexelTuner {
+
+    private static final int OPENING_PLIES = 8;
+    private static final int TASK_SIZE = 4096;
+    private static final double LEARNING_RATE = 1.0;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final Pattern EPD_RESULT = Pattern.compile("\"(1-0|0-1|1/2-1/2)\"|\\[(1\\.0|0\\.5|0\\.0|1|0)\\]");
+    private static final Pattern PGN_RESULT = Pattern.compile("\\[Result \"(1-0|0-1|1/2-1/2)\"\\]");
+    private static final Pattern PGN_FEN = Pattern.compile("\\[FEN \"([^\"]+)\"\\]");
+    private static final Pattern RESULT_TOKEN = Pattern.compile("(1-0|0-1|1/2-1/2|\\*)\\s*$");
+
+    // position p's features are features[offsets[p]] until offsets[p + 1], each weight index << 16 | count
+    private final int[] offsets;
+    private final int[] features;
+    private final byte[] phases;
+    private final float[] results;
+    private final ForkJoinPool pool;
+    private double scalingConstant = 1.0;
+
+    public TexelTuner(final List<File> corpus) throws IOException {
+        this.pool = ForkJoinPool.commonPool();
+        final List<String> records = new ArrayList<>();
+        for (final File file : corpus) {
+            final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            records.addAll(file.getName().toLowerCase().endsWith(".pgn") ? splitGames(lines) : lines);
+        }
+        final List<int[]> positions = this.pool.submit(() -> records.parallelStream()
+                .flatMap(record -> readRecord(record).stream())
+                .collect(Collectors.toList())).join();
+        this.offsets = new int[positions.size() + 1];
+        this.phases = new byte[positions.size()];
+        this.results = new float[positions.size()];
+        int total = 0;
+        for (final int[] position : positions) {
+            total += position.length - 2;
+        }
+        this.features = new int[total];
+        for (int p = 0; p < positions.size(); p++) {
+            final int[] position = positions.get(p);
+            this.results[p] = Float.intBitsToFloat(position[0]);
+            this.phases[p] = (byte) position[1];
+            System.arraycopy(position, 2, this.features, this.offsets[p], position.length - 2);
+            this.offsets[p + 1] = this.offsets[p] + position.length - 2;
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("usage: tuning.TexelTuner <output> <epochs> <corpus.epd|corpus.pgn>...");
+            return;
+        }
+        final File output = new File(args[0]);
+        final int epochs = Integer.parseInt(args[1]);
+        final List<File> corpus = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            corpus.add(new File(args[i]));
+        }
+        long start = System.nanoTime();
+        final TexelTuner tuner = new TexelTuner(corpus);
+        System.out.printf("%d quiet positions read in %d ms%n", tuner.size(), (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        final EvaluationWeights weights = tuner.tune(EvaluationWeights.get(), epochs, true);
+        System.out.printf("tuned in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        weights.save(output);
+        System.out.println("weights written to " + output);
+    }
+
+    public int size() {
+        return this.results.length;
+    }
+
+    public double getScalingConstant() {
+        return this.scalingConstant;
+    }
+
+    public double error(final EvaluationWeights weights) {
+        return sum(toDoubles(weights.middlegameWeights()), toDoubles(weights.endgameWeights()), false)[0] / size();
+    }
+
+    // K is scanned rather than solved, ten steps at a time around the best value so far
+    public double fitScalingConstant(final EvaluationWeights weights) {
+        double best = this.scalingConstant;
+        double step = 1.0;
+        for (int round = 0; round < 5; round++) {
+            final double centre = best;
+            double bestError = Double.MAX_VALUE;
+            for (int i = -10; i <= 10; i++) {
+                final double candidate = centre + i * step / 10;
+                if (candidate <= 0) {
+                    continue;
+                }
+                this.scalingConstant = candidate;
+                final double error = error(weights);
+                if (error < bestError) {
+                    bestError = error;
+                    best = candidate;
+                }
+            }
+            step /= 10;
+        }
+        this.scalingConstant = best;
+        return best;
+    }
+
+    public EvaluationWeights tune(final EvaluationWeights start,
+                                  final int epochs,
+                                  final boolean verbose) {
+        if (size() == 0) {
+            throw new RuntimeException("No quiet positions to tune on");
+        }
+        fitScalingConstant(start);
+        final double[] middlegame = toDoubles(start.middlegameWeights());
+        final double[] endgame = toDoubles(start.endgameWeights());
+        final double[] moments = new double[2 * EvaluationWeights.SIZE];
+        final double[] velocities = new double[2 * EvaluationWeights.SIZE];
+        if (verbose) {
+            System.out.printf("K = %.4f, error %.6f%n", this.scalingConstant, error(start));
+        }
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            final double[] sums = sum(middlegame, endgame, true);
+            for (int i = 0; i < 2 * EvaluationWeights.SIZE; i++) {
+                final double gradient = sums[i + 1] / size();
+                moments[i] = BETA1 * moments[i] + (1 - BETA1) * gradient;
+                velocities[i] = BETA2 * velocities[i] + (1 - BETA2) * gradient * gradient;
+                final double step = LEARNING_RATE * (moments[i] / (1 - Math.pow(BETA1, epoch))) /
+                                    (Math.sqrt(velocities[i] / (1 - Math.pow(BETA2, epoch))) + EPSILON);
+                if (i < EvaluationWeights.SIZE) {
+                    middlegame[i] -= step;
+                } else {
+                    endgame[i - EvaluationWeights.SIZE] -= step;
+                }
+            }
+            if (verbose && (epoch % 10 == 0 || epoch == epochs)) {
+                System.out.printf("epoch %d, error %.6f%n", epoch, sums[0] / size());
+            }
+        }
+        return new EvaluationWeights(toInts(middlegame), toInts(endgame));
+    }
+
+    // the evaluation the tuner fits, from white's point of view; it is StandardBoardEvaluator's less its rounding
+    public static double linearEvaluation(final Board board,
+                                          final EvaluationWeights weights) {
+        final int[] position = features(board, 0);
+        return evaluate(position, 2, position.length, position[1],
+                        toDoubles(weights.middlegameWeights()), toDoubles(weights.endgameWeights()));
+    }
+
+    private double[] sum(final double[] middlegame,
+                         final double[] endgame,
+                         final boolean gradient) {
+        return this.pool.invoke(new ErrorTask(middlegame, endgame, gradient, 0, size()));
+    }
+
+    /*
+     * The squared error over a range of positions in slot 0, followed by its gradient with
+     * respect to the middlegame and then the endgame weights if asked for. Ranges are halved
+     * until they are small enough to sum in one go.
+     */
+    private final class ErrorTask extends RecursiveTask<double[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] middlegame;
+        private final double[] endgame;
+        private final boolean gradient;
+        private final int from;
+        private final int to;
+
+        ErrorTask(final double[] middlegame,
+                  final double[] endgame,
+                  final boolean gradient,
+                  final int from,
+                  final int to) {
+            this.middlegame = middlegame;
+            this.endgame = endgame;
+            this.gradient = gradient;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (this.to - this.from > TASK_SIZE) {
+                final int middle = (this.from + this.to) >>> 1;
+                final ErrorTask left = new ErrorTask(this.middlegame, this.endgame, this.gradient, this.from, middle);
+                left.fork();
+                final double[] sums = new ErrorTask(this.middlegame, this.endgame, this.gradient, middle, this.to).compute();
+                final double[] leftSums = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += leftSums[i];
+                }
+                return sums;
+            }
+            final double[] sums = new double[this.gradient ? 1 + 2 * EvaluationWeights.SIZE : 1];
+            final double slope = TexelTuner.this.scalingConstant * Math.log(10) / 400;
+            for (int p = this.from; p < this.to; p++) {
+                final int phase = TexelTuner.this.phases[p];
+                final int start = TexelTuner.this.offsets[p];
+                final int end = TexelTuner.this.offsets[p + 1];
+                final double probability = sigmoid(evaluate(TexelTuner.this.features, start, end, phase, this.middlegame, this.endgame));
+                final double difference = TexelTuner.this.results[p] - probability;
+                sums[0] += difference * difference;
+                if (this.gradient) {
+                    final double factor = -2 * difference * probability * (1 - probability) * slope / PieceSquareTables.MAX_PHASE;
+                    for (int f = start; f < end; f++) {
+                        final int index = TexelTuner.this.features[f] >>> 16;
+                        final int count = (short) TexelTuner.this.features[f];
+                        sums[1 + index] += factor * count * phase;
+                        sums[1 + EvaluationWeights.SIZE + index] += factor * count * (PieceSquareTables.MAX_PHASE - phase);
+                    }
+                }
+            }
+            return sums;
+        }
+
+    }
+
+    private double sigmoid(final double evaluation) {
+        return 1 / (1 + Math.pow(10, -this.scalingConstant * evaluation / 400));
+    }
+
+    private static double evaluate(final int[] features,
+                                   final int start,
+                                   final int end,
+                                   final int phase,
+                                   final double[] middlegame,
+                                   final double[] endgame) {
+        double middlegameScore = 0;
+        double endgameScore = 0;
+        for (int f = start; f < end; f++) {
+            final int index = features[f] >>> 16;
+            final int count = (short) features[f];
+            middlegameScore += count * middlegame[index];
+            endgameScore += count * endgame[index];
+        }
+        return (middlegameScore * phase + endgameScore * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    /*
+     * The result as float bits and the game phase, then the features: each piece counts once
+     * for its value and once for its square, black's negatively and read mirrored, and every
+     * tapered term counts as often as StandardBoardEvaluator multiplies its weight.
+     */
+    private static int[] features(final Board board,
+                                  final float result) {
+        final int[] counts = new int[EvaluationWeights.SIZE];
+        for (final Piece piece : board.getAllPieces()) {
+            final int sign = piece.getPieceAlliance().isWhite() ? 1 : -1;
+            final int whiteCoordinate = piece.getPieceAlliance().isWhite() ? piece.getPiecePosition() : piece.getPiecePosition() ^ 56;
+            counts[EvaluationWeights.pieceSquareIndex(piece.getPieceType(), whiteCoordinate)] += sign;
+            counts[EvaluationWeights.materialIndex(piece.getPieceType())] += sign;
+        }
+        final int[] whiteTerms = StandardBoardEvaluator.termCounts(board.whitePlayer());
+        final int[] blackTerms = StandardBoardEvaluator.termCounts(board.blackPlayer());
+        for (int term = 0; term < whiteTerms.length; term++) {
+            counts[EvaluationWeights.termIndex(term)] = whiteTerms[term] - blackTerms[term];
+        }
+        int size = 2;
+        for (final int count : counts) {
+            if (count != 0) {
+                size++;
+            }
+        }
+        final int[] position = new int[size];
+        position[0] = Float.floatToIntBits(result);
+        position[1] = PieceSquareTables.gamePhase(board);
+        int next = 2;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] != 0) {
+                position[next++] = index << 16 | (counts[index] & 0xFFFF);
+            }
+        }
+        return position;
+    }
+
+    private static boolean isQuiet(final Board board) {
+        if (board.currentPlayer().isInCheck() || board.currentPlayer().getLegalMoves().isEmpty()) {
+            return false;
+        }
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            if (move.isAttack() && StaticExchangeEvaluator.evaluate(move) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // an EPD line or a whole PGN game, to the features of its quiet positions
+    private static List<int[]> readRecord(final String record) {
+        try {
+            return record.startsWith("[") ? readGame(record) : readEpd(record);
+        } catch (final RuntimeException | ParsePGNException e) {
+            System.out.println("problem reading: " + record + " skipping!");
+            return Collections.emptyList();
+        }
+    }
+
+    private static List<int[]> readEpd(final String line) {
+        final String[] fields = line.trim().split("\\s+");
+        final Matcher matcher = EPD_RESULT.matcher(line);
+        if (fields.length < 4 || !matcher.find()) {
+            return Collections.emptyList();
+        }
+        final float result = parseResult(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        final Board board = BitBoardConverter.createBoard(fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3] + " 0 1");
+        return isQuiet(board) ? Collections.singletonList(features(board, result)) : Collections.emptyList();
+    }
+
+    private static List<int[]> readGame(final String game) throws ParsePGNException {
+        final Matcher resultMatcher = PGN_RESULT.matcher(game);
+        if (!resultMatcher.find()) {
+            return Collections.emptyList();
+        }
+        final float result = parseResult(resultMatcher.group(1));
+        final Matcher fenMatcher = PGN_FEN.matcher(game);
+        Board board = fenMatcher.find() ? BitBoardConverter.createBoard(fenMatcher.group(1)) : Board.createStandardBoard();
+        final StringBuilder moveText = new StringBuilder();
+        for (final String line : game.split("\n")) {
+            if (!line.startsWith("[")) {
+                moveText.append(line).append(' ');
+            }
+        }
+        final List<int[]> positions = new ArrayList<>();
+        int ply = 0;
+        for (final String san : PGNUtilities.processMoveText(RESULT_TOKEN.matcher(moveText.toString().trim()).replaceAll(""))) {
+            final MoveTransition transition = board.currentPlayer().makeMove(PGNUtilities.createMove(board, san));
+            if (!transition.getMoveStatus().isDone()) {
+                break;
+            }
+            board = transition.getToBoard();
+            if (++ply >= OPENING_PLIES && isQuiet(board)) {
+                positions.add(features(board, result));
+            }
+        }
+        return positions;
+    }
+
+    private static List<String> splitGames(final List<String> lines) {
+        final List<String> games = new ArrayList<>();
+        StringBuilder game = new StringBuilder();
+        boolean inMoveText = false;
+        for (final String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.startsWith("[") && inMoveText) {
+                games.add(game.toString());
+                game = new StringBuilder();
+                inMoveText = false;
+            }
+            if (!trimmed.isEmpty()) {
+                inMoveText |= !trimmed.startsWith("[");
+                game.append(trimmed).append('\n');
+            }
+        }
+        if (game.length() > 0) {
+            games.add(game.toString());
+        }
+        return games;
+    }
+
+    private static float parseResult(final String result) {
+        switch (result) {
+            case "1-0":
+            case "1.0":
+            case "1":
+                return 1.0f;
+            case "0-1":
+            case "0.0":
+            case "0":
+                return 0.0f;
+            case "1/2-1/2":
+            case "0.5":
+                return 0.5f;
+            default:
+                throw new RuntimeException("Unknown result " + result);
+        }
+    }
+
+    private static double[] toDoubles(final int[] weights) {
+        final double[] doubles = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            doubles[i] = weights[i];
+        }
+        return doubles;
+    }
+
+    private static int[] toInts(final double[] weights) {
+        final int[] ints = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            ints[i] = (int) Math.round(weights[i]);
+        }
+        return ints;
+    }
+
+}
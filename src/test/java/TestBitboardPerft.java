@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.helpers.FenUtility;
+import engine.bitBoard.moveGeneration.MoveGenerator;
+import engine.board.BitBoardConverter;
+import engine.board.Board;
+
+public class TestBitboardPerft {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final short[][] moves = new short[8][MoveGenerator.MAX_MOVES];
+
+    @Test
+    public void testStartPosition() {
+        assertEquals(197281, perft(bitBoard.createBoard(FenUtility.START_POSITION_FEN), 4, 0));
+    }
+
+    @Test
+    public void testKiwipete() {
+        final bitBoard board = bitBoard.createBoard(KIWIPETE);
+        final long key = board.getZobristKey();
+        assertEquals(97862, perft(board, 3, 0));
+        assertEquals(key, board.getZobristKey());
+        assertEquals(KIWIPETE, board.getCurrentFEN());
+    }
+
+    @Test
+    public void testConvertedStandardBoard() {
+        final bitBoard board = BitBoardConverter.toBitBoard(Board.createStandardBoard());
+        assertEquals(FenUtility.START_POSITION_FEN, board.getCurrentFEN());
+        assertEquals(8902, perft(board, 3, 0));
+    }
+
+    private long perft(final bitBoard board,
+                       final int depth,
+                       final int ply) {
+        final int moveCount = this.moveGenerator.generateMoves(board, this.moves[ply], false);
+        if (depth == 1) {
+            return moveCount;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            final short move = this.moves[ply][i];
+            board.makeMove(move, true);
+            nodes += perft(board, depth - 1, ply + 1);
+            board.unmakeMove(move, true);
+        }
+        return nodes;
+    }
+
+}
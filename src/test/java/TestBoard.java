@@ -6,11 +6,13 @@ import org.junit.jupiter.api.Assertions;
 
 import engine.Alliance;
 import engine.Player.MoveTransition;
+import engine.board.BitBoardConverter;
 import engine.board.Board;
 import engine.board.Board.Builder;
 import engine.board.BoardUtils;
 import engine.board.Move;
 import engine.board.Move.MoveFactory;
+import engine.board.PieceSquareTables;
 import engine.pieces.Bishop;
 import engine.pieces.King;
 import engine.pieces.Knight;
@@ -19,6 +21,8 @@ import engine.pieces.Piece;
 import engine.pieces.Queen;
 import engine.pieces.Rook;
 
+import java.util.Collection;
+
 
 public class TestBoard {
 
@@ -234,4 +238,63 @@ public class TestBoard {
         }
         return count;
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMovesAreMemoized() {
+        final Board board = BitBoardConverter.createBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        final Collection<Move> legalMoves = board.whitePlayer().getLegalMoves();
+        assertSame(legalMoves, board.whitePlayer().getLegalMoves());
+        assertSame(board.getStandardMoves(Alliance.BLACK), board.getStandardMoves(Alliance.BLACK));
+        // both castles are added to the player's moves, not to the pieces' standard moves
+        assertEquals(board.getStandardMoves(Alliance.WHITE).size() + 2, legalMoves.size());
+        assertEquals(2, legalMoves.stream().filter(Move::isCastlingMove).count());
+    }
+
+    @Test
+    public void testAttackQueriesMatchMoveGeneration() {
+        for (final String fen : new String[] {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                // the b4 pawn is pinned, and taking en passant on c3 would open the rank to the king
+                "8/8/3p4/KPp4r/1R3p1k/8/4P1P1/8 w - c6 0 1",
+                "8/2p5/3p4/KP5r/1R2Pp1k/8/6P1/8 b - e3 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"}) {
+            final Board board = BitBoardConverter.createBoard(fen);
+            for (final Alliance alliance : Alliance.values()) {
+                for (int square = 0; square < BoardUtils.NUM_TILES; square++) {
+                    final Piece piece = board.getPiece(square);
+                    if (piece != null && piece.getPieceAlliance() != alliance) {
+                        final int target = square;
+                        assertEquals(board.getStandardMoves(alliance).stream().anyMatch(move -> move.getDestinationCoordinate() == target),
+                                     board.isSquareAttacked(square, alliance), fen + " " + square);
+                    }
+                }
+            }
+            for (final Move move : board.currentPlayer().getLegalMoves()) {
+                assertEquals(move.execute().currentPlayer().getOpponent().isInCheck(), board.leavesKingInCheck(move),
+                             fen + " " + move);
+            }
+        }
+    }
+
+    @Test
+    public void testPieceSquareScore() {
+        final Board board = Board.createStandardBoard();
+        for (final Alliance alliance : Alliance.values()) {
+            int material = 0;
+            for (final Piece piece : board.getAllPieces()) {
+                if (piece.getPieceAlliance() == alliance) {
+                    material += piece.getPieceValue() + piece.locationBonus();
+                }
+            }
+            assertEquals(material, PieceSquareTables.middlegame(board.getPieceSquareScore(alliance)));
+        }
+        assertEquals(-1234, PieceSquareTables.middlegame(PieceSquareTables.pack(-1234, -56)));
+        assertEquals(-56, PieceSquareTables.endgame(PieceSquareTables.pack(-1234, -56)));
+        assertEquals(PieceSquareTables.pack(7, -3), PieceSquareTables.pack(10, -5) - PieceSquareTables.pack(3, -2));
+        assertEquals(PieceSquareTables.MAX_PHASE, PieceSquareTables.gamePhase(board));
+        assertEquals(-1234, PieceSquareTables.taper(PieceSquareTables.pack(-1234, -56), PieceSquareTables.MAX_PHASE));
+        assertEquals(-56, PieceSquareTables.taper(PieceSquareTables.pack(-1234, -56), 0));
+        assertEquals(-645, PieceSquareTables.taper(PieceSquareTables.pack(-1234, -56), PieceSquareTables.MAX_PHASE / 2));
+    }
+
+}
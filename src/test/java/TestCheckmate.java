@@ -1,13 +1,24 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import engine.Player.MoveTransition;
 import engine.Player.ai.AlphaBetaWithMoveOrdering;
+import engine.Player.ai.BitboardAlphaBeta;
+import engine.Player.ai.IterativeDeepening;
+import engine.Player.ai.LazySMP;
+import engine.Player.ai.PrincipalVariationSearch;
+import engine.Player.ai.TimeControl;
+import engine.Player.ai.TranspositionTable;
 //import engine.Player.ai.MiniMax;
 import engine.Player.ai.MoveStrategy;
+import engine.board.BitBoardConverter;
 import engine.board.Board;
+import engine.board.Board.GameState;
 import engine.board.BoardUtils;
 import engine.board.Move;
 import engine.board.Move.MoveFactory;
@@ -48,6 +59,124 @@ public class TestCheckmate {
        assertEquals(aiMove, bestMove);
     }
 
+    @Test
+    public void testFoolsMateWithinMoveTime() {
+        Board board = Board.createStandardBoard();
+        final String[] moves = {"f2", "f3", "e7", "e5", "g2", "g4"};
+        for (int i = 0; i < moves.length; i += 2) {
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+
+        final IterativeDeepening strategy = new IterativeDeepening(TimeControl.moveTime(1000));
+        final long start = System.currentTimeMillis();
+        final Move aiMove = strategy.execute(board);
+        final long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("d8"),
+                BoardUtils.INSTANCE.getCoordinateAtPosition("h4")), aiMove);
+        assertTrue(strategy.getCompletedDepth() >= 1);
+        assertTrue(elapsed < 3000, "search overran its move time: " + elapsed + " ms");
+    }
+
+    @Test
+    public void testFoolsMateWithPrincipalVariation() {
+        Board board = Board.createStandardBoard();
+        final String[] moves = {"f2", "f3", "e7", "e5", "g2", "g4"};
+        for (int i = 0; i < moves.length; i += 2) {
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+
+        final PrincipalVariationSearch strategy = new PrincipalVariationSearch(4);
+        final List<List<Move>> reported = new ArrayList<>();
+        strategy.addObserver(new PrincipalVariationSearch.AlphaBetaObserver() {
+            @Override
+            public void onMoveEvaluated(final String message) {
+            }
+
+            @Override
+            public void onBestMoveSelected(final Move bestMove) {
+            }
+
+            @Override
+            public void onPrincipalVariation(final int depth, final int score, final List<Move> principalVariation) {
+                reported.add(principalVariation);
+            }
+        });
+        final Move aiMove = strategy.execute(board);
+
+        assertEquals(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("d8"),
+                BoardUtils.INSTANCE.getCoordinateAtPosition("h4")), aiMove);
+        assertEquals(4, reported.size());
+        assertEquals(aiMove, strategy.getPrincipalVariation().get(0));
+    }
+
+    @Test
+    public void testFoolsMateWithLazySMP() {
+        Board board = Board.createStandardBoard();
+        final String[] moves = {"f2", "f3", "e7", "e5", "g2", "g4"};
+        for (int i = 0; i < moves.length; i += 2) {
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+
+        final Move aiMove = new LazySMP(4, 4).execute(board);
+
+        assertEquals(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("d8"),
+                BoardUtils.INSTANCE.getCoordinateAtPosition("h4")), aiMove);
+        // the helpers only feed the table; the move returned is the one the main thread finds alone
+        assertEquals(new LazySMP(4, 1).execute(board), aiMove);
+    }
+
+    @Test
+    public void testFoolsMateWithTimedLazySMP() {
+        Board board = Board.createStandardBoard();
+        final String[] moves = {"f2", "f3", "e7", "e5", "g2", "g4"};
+        for (int i = 0; i < moves.length; i += 2) {
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final Move aiMove = new LazySMP(TimeControl.moveTime(300), IterativeDeepening.MAX_SEARCH_DEPTH, 4,
+                new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB)).execute(board);
+
+        assertEquals(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("d8"),
+                BoardUtils.INSTANCE.getCoordinateAtPosition("h4")), aiMove);
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+
+    @Test
+    public void testFoolsMateOnBitboards() {
+        Board board = Board.createStandardBoard();
+        final String[] moves = {"f2", "f3", "e7", "e5", "g2", "g4"};
+        for (int i = 0; i < moves.length; i += 2) {
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(moves[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+
+        final Move aiMove = new BitboardAlphaBeta(4).execute(board);
+
+        assertEquals(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("d8"),
+                BoardUtils.INSTANCE.getCoordinateAtPosition("h4")), aiMove);
+    }
+
     @Test
     public void testScholarsMate() {
 
@@ -102,4 +231,17 @@ public class TestCheckmate {
         assertTrue(t7.getToBoard().currentPlayer().isInCheckMate());
 
     }
+
+    @Test
+    public void testGameState() {
+        assertEquals(GameState.ONGOING, Board.createStandardBoard().getGameState());
+        final Board mated = BitBoardConverter.createBoard("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        assertEquals(GameState.CHECKMATE, mated.getGameState());
+        assertTrue(mated.currentPlayer().isInCheckMate());
+        assertEquals(GameState.ONGOING, mated.currentPlayer().getOpponent().getGameState());
+        final Board stalemated = BitBoardConverter.createBoard("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertEquals(GameState.STALEMATE, stalemated.getGameState());
+        assertTrue(stalemated.currentPlayer().isInStaleMate());
+        assertTrue(BoardUtils.isEndGame(stalemated));
+    }
 }
@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import engine.Player.MoveTransition;
+import engine.Player.ai.nnue.Accumulator;
+import engine.Player.ai.nnue.Network;
+import engine.Player.ai.nnue.NetworkKernels;
+import engine.Player.ai.nnue.NnueEvaluator;
+import engine.bitBoard.bitBoard;
+import engine.bitBoard.moveGeneration.MoveGenerator;
+import engine.board.BitBoardConverter;
+import engine.board.Board;
+import engine.board.BoardUtils;
+import engine.board.Move.MoveFactory;
+
+public class TestNnue {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String PROMOTIONS = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1";
+    // not a multiple of any vector length, so the kernels' one lane tails are run too
+    private static final int HIDDEN_SIZE = 40;
+
+    private final Network network = randomNetwork(HIDDEN_SIZE, 17);
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+    private final short[][] moves = new short[8][MoveGenerator.MAX_MOVES];
+
+    @Test
+    public void testIncrementalMatchesRefresh() {
+        for (final String fen : new String[] {KIWIPETE, PROMOTIONS}) {
+            final bitBoard position = bitBoard.createBoard(fen);
+            final Accumulator incremental = new Accumulator(this.network, NetworkKernels.best(), 8);
+            incremental.refresh(position);
+            walk(position, incremental, new Accumulator(this.network, NetworkKernels.scalar(), 0), 3, 0);
+            assertEquals(fen, position.getCurrentFEN());
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir final Path directory) throws IOException {
+        final File file = directory.resolve("scorpion.nnue").toFile();
+        this.network.save(file);
+        final Network loaded = Network.load(file);
+        final Board board = Board.createStandardBoard();
+        assertEquals(HIDDEN_SIZE, loaded.getHiddenSize());
+        assertEquals(new NnueEvaluator(this.network).evaluate(board, 0), new NnueEvaluator(loaded).evaluate(board, 0));
+    }
+
+    @Test
+    public void testBoardEvaluatorIsFromWhitesPointOfView() {
+        final Board board = Board.createStandardBoard();
+        final MoveTransition transition = board.currentPlayer().makeMove(MoveFactory.createMove(board,
+                BoardUtils.INSTANCE.getCoordinateAtPosition("e2"), BoardUtils.INSTANCE.getCoordinateAtPosition("e4")));
+        final Board e4 = transition.getToBoard();
+        final Accumulator accumulator = new Accumulator(this.network, NetworkKernels.scalar(), 0);
+        final bitBoard position = BitBoardConverter.toBitBoard(e4);
+        accumulator.refresh(position);
+        final int blackToMove = accumulator.evaluate(position);
+        assertNotEquals(0, blackToMove);
+        assertEquals(-blackToMove, new NnueEvaluator(this.network, NetworkKernels.best()).evaluate(e4, 0));
+        assertEquals(-blackToMove, new NnueEvaluator(this.network, NetworkKernels.scalar()).evaluate(e4, 0));
+    }
+
+    private void walk(final bitBoard position,
+                      final Accumulator incremental,
+                      final Accumulator fresh,
+                      final int depth,
+                      final int ply) {
+        fresh.refresh(position);
+        assertEquals(fresh.evaluate(position), incremental.evaluate(position), position.getCurrentFEN());
+        if (depth == 0) {
+            return;
+        }
+        final int moveCount = this.moveGenerator.generateMoves(position, this.moves[ply], false);
+        for (int i = 0; i < moveCount; i++) {
+            final short move = this.moves[ply][i];
+            incremental.push(position, move);
+            position.makeMove(move, true);
+            walk(position, incremental, fresh, depth - 1, ply + 1);
+            position.unmakeMove(move, true);
+            incremental.pop();
+        }
+    }
+
+    // small weights, so that no sum can overflow a short
+    private static Network randomNetwork(final int hiddenSize,
+                                         final long seed) {
+        final Random random = new Random(seed);
+        final short[] featureWeights = new short[Network.INPUTS * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(17) - 8);
+        }
+        final short[] featureBiases = new short[hiddenSize];
+        for (int i = 0; i < featureBiases.length; i++) {
+            featureBiases[i] = (short) (random.nextInt(129) - 32);
+        }
+        final byte[] outputWeights = new byte[2 * hiddenSize];
+        random.nextBytes(outputWeights);
+        return new Network(hiddenSize, featureWeights, featureBiases, outputWeights, random.nextInt(2001) - 1000);
+    }
+
+}
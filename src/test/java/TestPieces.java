@@ -1,6 +1,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Assertions;
@@ -21,6 +22,7 @@ import engine.pieces.King;
 import engine.pieces.Knight;
 import engine.pieces.Pawn;
 import engine.pieces.Piece;
+import engine.pieces.PieceUtils;
 import engine.pieces.Queen;
 import engine.pieces.Rook;
 
@@ -506,4 +508,16 @@ public class TestPieces {
         assertTrue(whitePieceSet.size() == 16);
         assertTrue(blackPieceSet.size() == 16);
     }
+    @Test
+    public void testMovedPiecesAreShared() {
+        final Board board = Board.createStandardBoard();
+        assertSame(PieceUtils.INSTANCE.getPiece(Piece.PieceType.KNIGHT, Alliance.WHITE, 62, true), board.getPiece(62));
+        assertSame(PieceUtils.INSTANCE.getKing(Alliance.BLACK, 4, true, false, true, true), board.getPiece(4));
+        final Move move = Move.MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition("g1"),
+                                                      BoardUtils.INSTANCE.getCoordinateAtPosition("f3"));
+        final Board first = board.currentPlayer().makeMove(move).getToBoard();
+        final Board second = board.currentPlayer().makeMove(move).getToBoard();
+        assertSame(first.getPiece(move.getDestinationCoordinate()), second.getPiece(move.getDestinationCoordinate()));
+        assertFalse(first.getPiece(move.getDestinationCoordinate()).isFirstMove());
+    }
 }
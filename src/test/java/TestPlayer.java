@@ -1,4 +1,4 @@
-//import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -6,6 +6,13 @@ import org.junit.jupiter.api.Test;
 
 import engine.Alliance;
 import engine.Player.MoveTransition;
+import engine.Player.ai.AttackAnalyzer;
+import engine.Player.ai.KingSafetyAnalyzer;
+import engine.Player.ai.OutpostAnalyzer;
+import engine.Player.ai.PawnStructureAnalyzer;
+import engine.Player.ai.RookStructureAnalyzer;
+import engine.Player.ai.StandardBoardEvaluator;
+import engine.board.BitBoardConverter;
 import engine.board.Board;
 import engine.board.Board.Builder;
 import engine.board.BoardUtils;
@@ -56,6 +63,63 @@ public class TestPlayer {
         assertFalse(t4.getMoveStatus().isDone());
     }
 
+    @Test
+    public void testAttackBitboardMobility() {
+        Board board = Board.createStandardBoard();
+        // no pins, checks or castling along this line, so the bitboard counts equal the legal move counts
+        for (final String[] move : new String[][] {{"e2", "e4"}, {"d7", "d5"}, {"g1", "f3"}, {"b8", "c6"}}) {
+            assertEquals(board.whitePlayer().getLegalMoves().size(), AttackAnalyzer.get().mobility(board.whitePlayer()));
+            assertEquals(board.blackPlayer().getLegalMoves().size(), AttackAnalyzer.get().mobility(board.blackPlayer()));
+            final MoveTransition transition = board.currentPlayer()
+                    .makeMove(MoveFactory.createMove(board, BoardUtils.INSTANCE.getCoordinateAtPosition(move[0]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(move[1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            board = transition.getToBoard();
+        }
+        // exd5 and dxe4 are the only captures on the board
+        assertEquals(1, AttackAnalyzer.get().attackCount(board.whitePlayer()));
+        assertEquals(1, AttackAnalyzer.get().attackCount(board.blackPlayer()));
+    }
+
+    @Test
+    public void testKingSafety() {
+        final Board board = BitBoardConverter.createBoard("6k1/5ppp/8/8/3q2pn/8/5PPP/6K1 w - - 0 1");
+        // the queen hits f2 (5 units) and the knight g2 (2 units), two attackers
+        assertEquals(14, KingSafetyAnalyzer.get().kingDanger(board.whitePlayer()));
+        assertEquals(0, KingSafetyAnalyzer.get().kingDanger(board.blackPlayer()));
+        // f2, g2 and h2 shelter the king, the g4 pawn storms it
+        assertEquals(5, KingSafetyAnalyzer.get().pawnShelter(board.whitePlayer()));
+        assertEquals(6, KingSafetyAnalyzer.get().pawnShelter(board.blackPlayer()));
+    }
+
+    @Test
+    public void testPassedPawnsRookFilesAndOutposts() {
+        final Board board = BitBoardConverter.createBoard("6k1/8/8/3N4/2P1p3/8/P7/R2R2K1 w - - 0 1");
+        // a2 has not left its rank, c4 is two ranks up and e4 three
+        assertEquals(2, PawnStructureAnalyzer.get().passedPawnScore(board.whitePlayer()));
+        assertEquals(3, PawnStructureAnalyzer.get().passedPawnScore(board.blackPlayer()));
+        assertEquals(1, RookStructureAnalyzer.getInstance().openFileRooks(board.whitePlayer()));
+        assertEquals(0, RookStructureAnalyzer.getInstance().semiOpenFileRooks(board.whitePlayer()));
+        assertEquals(1, RookStructureAnalyzer.getInstance().connectedRooks(board.whitePlayer()));
+        // the knight on d5 is defended by c4 and no black pawn can reach c6 or e6
+        assertEquals(2, OutpostAnalyzer.get().outpostScore(board.whitePlayer()));
+        assertEquals(0, OutpostAnalyzer.get().outpostScore(board.blackPlayer()));
+    }
+
+    @Test
+    public void testLazyEvaluation() {
+        final StandardBoardEvaluator evaluator = new StandardBoardEvaluator(300);
+        // white is a queen up
+        final Board board = BitBoardConverter.createBoard("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        final int score = evaluator.evaluate(board, 0);
+        assertEquals(score, evaluator.evaluate(board, 0, score - 1, score + 1));
+        assertEquals(0, evaluator.getLazyCutoffs());
+        assertEquals(1, evaluator.getFullEvaluations());
+        final int lazyScore = evaluator.evaluate(board, 0, -50, 50);
+        assertEquals(1, evaluator.getLazyCutoffs());
+        assertTrue(lazyScore > 350 && Math.abs(lazyScore - score) < 300, lazyScore + " against " + score);
+    }
+
     @Test
     public void testDiscoveredCheck() {
         final Builder builder = new Builder();
@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import engine.Alliance;
+import engine.bitBoard.moveGeneration.magics.Magic;
+import engine.bitBoard.moveGeneration.magics.MagicHelper;
+import engine.board.Board;
+import engine.board.Board.Builder;
+import engine.board.BoardUtils;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+import engine.board.StaticExchangeEvaluator;
+import engine.pieces.King;
+import engine.pieces.Knight;
+import engine.pieces.Pawn;
+import engine.pieces.Rook;
+
+public class TestStaticExchangeEvaluator {
+
+    @Test
+    public void testMagicLookupsMatchRayWalk() {
+        for (int square = 0; square < 64; square++) {
+            for (final boolean rook : new boolean[] {true, false}) {
+                final long mask = rook ? Magic.rookMasks[square] : Magic.bishopMasks[square];
+                for (final long blockers : MagicHelper.createAllBlockerBitboards(mask)) {
+                    assertEquals(MagicHelper.legalMoveBitboardFromBlockers(square, blockers, rook),
+                            Magic.GetSliderAttacks(square, blockers, rook));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPawnTakesDefendedKnight() {
+        final Builder builder = kings();
+        builder.setPiece(new Pawn(Alliance.WHITE, at("d4")));
+        builder.setPiece(new Knight(Alliance.BLACK, at("e5")));
+        builder.setPiece(new Pawn(Alliance.BLACK, at("f6")));
+        builder.setMoveMaker(Alliance.WHITE);
+        final Board board = builder.build();
+        assertEquals(200, StaticExchangeEvaluator.evaluate(move(board, "d4", "e5")));
+    }
+
+    @Test
+    public void testRookTakesDefendedPawnLoses() {
+        final Builder builder = kings();
+        builder.setPiece(new Rook(Alliance.WHITE, at("d1")));
+        builder.setPiece(new Pawn(Alliance.BLACK, at("d5")));
+        builder.setPiece(new Pawn(Alliance.BLACK, at("e6")));
+        builder.setMoveMaker(Alliance.WHITE);
+        final Board board = builder.build();
+        final Move capture = move(board, "d1", "d5");
+        assertEquals(-400, StaticExchangeEvaluator.evaluate(capture));
+        assertTrue(StaticExchangeEvaluator.isLosing(capture));
+    }
+
+    @Test
+    public void testXRayRecaptureBehindRook() {
+        final Builder builder = kings();
+        builder.setPiece(new Rook(Alliance.WHITE, at("d1")));
+        builder.setPiece(new Rook(Alliance.WHITE, at("d2")));
+        builder.setPiece(new Pawn(Alliance.BLACK, at("d5")));
+        builder.setPiece(new Rook(Alliance.BLACK, at("d8")));
+        builder.setMoveMaker(Alliance.WHITE);
+        final Board board = builder.build();
+        assertEquals(100, StaticExchangeEvaluator.evaluate(move(board, "d2", "d5")));
+    }
+
+    private static Builder kings() {
+        final Builder builder = new Builder();
+        builder.setPiece(new King(Alliance.WHITE, at("h1"), false, false));
+        builder.setPiece(new King(Alliance.BLACK, at("a8"), false, false));
+        return builder;
+    }
+
+    private static Move move(final Board board,
+                             final String from,
+                             final String to) {
+        return MoveFactory.createMove(board, at(from), at(to));
+    }
+
+    private static int at(final String square) {
+        return BoardUtils.INSTANCE.getCoordinateAtPosition(square);
+    }
+
+}
@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import engine.Player.ai.EvaluationWeights;
+import engine.Player.ai.StandardBoardEvaluator;
+import engine.board.BitBoardConverter;
+import engine.board.Board;
+import tuning.TexelTuner;
+
+public class TestTexelTuner {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String EN_PASSANT = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 1";
+    private static final String[] QUIET = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r1bqk2r/2ppbppp/p1n2n2/1p2p3/4P3/1B3N2/PPPP1PPP/RNBQR1K1 b kq - 0 1",
+            "8/5pk1/6p1/8/3K4/8/5PP1/8 w - - 0 1",
+            "2r3k1/5ppp/8/8/8/8/5PPP/3R2K1 b - - 0 1"
+    };
+
+    @Test
+    public void testBoardFromFen() {
+        for (final String fen : new String[] {QUIET[0], QUIET[1], KIWIPETE, EN_PASSANT}) {
+            assertEquals(fen, BitBoardConverter.toBitBoard(BitBoardConverter.createBoard(fen)).getCurrentFEN());
+        }
+    }
+
+    @Test
+    public void testWeightsSaveAndLoad(@TempDir final Path directory) throws IOException {
+        final int[] middlegame = EvaluationWeights.defaults().middlegameWeights();
+        final int[] endgame = EvaluationWeights.defaults().endgameWeights();
+        for (int i = 0; i < EvaluationWeights.SIZE; i++) {
+            middlegame[i] += i % 7 - 3;
+            endgame[i] -= i % 5;
+        }
+        final File file = directory.resolve("evaluation.weights").toFile();
+        new EvaluationWeights(middlegame, endgame).save(file);
+        final EvaluationWeights loaded = EvaluationWeights.load(file);
+        assertArrayEquals(middlegame, loaded.middlegameWeights());
+        assertArrayEquals(endgame, loaded.endgameWeights());
+    }
+
+    @Test
+    public void testLinearEvaluationMatchesEvaluator() {
+        for (final String fen : QUIET) {
+            final Board board = BitBoardConverter.createBoard(fen);
+            final double linear = TexelTuner.linearEvaluation(board, EvaluationWeights.get());
+            // each side is tapered and rounded on its own by the evaluator
+            assertEquals(StandardBoardEvaluator.get().evaluate(board, 0), linear, 2.0, fen);
+        }
+    }
+
+    @Test
+    public void testTuningLowersError(@TempDir final Path directory) throws IOException {
+        final File epd = directory.resolve("quiet.epd").toFile();
+        Files.write(epd.toPath(), Arrays.asList(
+                QUIET[0] + " c9 \"1/2-1/2\";",
+                QUIET[1] + " [0.5]",
+                "8/5pk1/6p1/8/3K4/8/5PP1/8 w - - [1.0]",
+                "2r3k1/5ppp/8/8/8/8/5PPP/3R2K1 b - - c9 \"0-1\";"), StandardCharsets.UTF_8);
+        final File pgn = directory.resolve("games.pgn").toFile();
+        Files.write(pgn.toPath(), Arrays.asList(
+                "[Event \"Test\"]",
+                "[Result \"1-0\"]",
+                "",
+                "1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 4. Ba4 Nf6 5. O-O Be7",
+                "6. Re1 b5 7. Bb3 d6 8. c3 O-O 1-0"), StandardCharsets.UTF_8);
+        final TexelTuner tuner = new TexelTuner(Arrays.asList(epd, pgn));
+        assertTrue(tuner.size() > 4, "quiet positions " + tuner.size());
+        final EvaluationWeights tuned = tuner.tune(EvaluationWeights.defaults(), 50, false);
+        assertTrue(tuner.getScalingConstant() > 0);
+        assertTrue(tuner.error(tuned) < tuner.error(EvaluationWeights.defaults()));
+    }
+
+}
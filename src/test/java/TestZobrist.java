@@ -0,0 +1,178 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import engine.Alliance;
+import engine.Player.MoveTransition;
+import engine.Player.ai.EvaluationCache;
+import engine.Player.ai.PawnHashTable;
+import engine.Player.ai.PawnStructureAnalyzer;
+import engine.Player.ai.TranspositionTable;
+import engine.Player.ai.TranspositionTable.BoundType;
+import engine.board.Board;
+import engine.board.Board.Builder;
+import engine.board.BoardUtils;
+import engine.board.Move;
+import engine.board.Move.MoveFactory;
+import engine.pieces.King;
+import engine.pieces.Pawn;
+import engine.pieces.Rook;
+
+public class TestZobrist {
+
+    @Test
+    public void testIncrementalKeyMatchesStandardBoard() {
+        assertIncrementalKeys(Board.createStandardBoard(), 3);
+    }
+
+    @Test
+    public void testIncrementalKeyWithCastlingEnPassantAndPromotion() {
+        final Builder builder = new Builder();
+        builder.setPiece(new Rook(Alliance.BLACK, 0));
+        builder.setPiece(new King(Alliance.BLACK, 4, true, true));
+        builder.setPiece(new Rook(Alliance.BLACK, 7));
+        builder.setPiece(new Pawn(Alliance.WHITE, 9, false));
+        builder.setPiece(new Pawn(Alliance.BLACK, 35, false));
+        builder.setPiece(new Pawn(Alliance.WHITE, 52));
+        builder.setPiece(new Rook(Alliance.WHITE, 56));
+        builder.setPiece(new King(Alliance.WHITE, 60, true, true));
+        builder.setPiece(new Rook(Alliance.WHITE, 63));
+        builder.setMoveMaker(Alliance.WHITE);
+        assertIncrementalKeys(builder.build(), 3);
+    }
+
+    @Test
+    public void testTranspositionsShareKey() {
+        final Board board = Board.createStandardBoard();
+        final Board afterKnights = play(board, "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8");
+        assertEquals(board.getZobristKey(), afterKnights.getZobristKey());
+        final Board e3e6 = play(board, "e2", "e3", "e7", "e6", "d2", "d3");
+        final Board d3e6 = play(board, "d2", "d3", "e7", "e6", "e2", "e3");
+        assertEquals(e3e6.getZobristKey(), d3e6.getZobristKey());
+        final Board e4 = play(board, "e2", "e4");
+        final Builder withoutEnPassant = new Builder();
+        e4.getAllPieces().forEach(withoutEnPassant::setPiece);
+        withoutEnPassant.setMoveMaker(Alliance.BLACK);
+        assertNotEquals(e4.getZobristKey(), withoutEnPassant.build().getZobristKey());
+    }
+
+    @Test
+    public void testNullMoveKey() {
+        final Board e4 = play(Board.createStandardBoard(), "e2", "e4");
+        final Board passed = e4.makeNullMove();
+        assertEquals(Alliance.WHITE, passed.currentPlayer().getAlliance());
+        assertEquals(null, passed.getEnPassantPawn());
+        assertEquals(rebuild(passed).getZobristKey(), passed.getZobristKey());
+        final Builder withoutEnPassant = new Builder();
+        e4.getAllPieces().forEach(withoutEnPassant::setPiece);
+        withoutEnPassant.setMoveMaker(Alliance.BLACK);
+        assertEquals(withoutEnPassant.build().getZobristKey(), passed.makeNullMove().getZobristKey());
+    }
+
+    @Test
+    public void testTranspositionTableStoreAndProbe() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = Board.createStandardBoard().getZobristKey();
+        assertEquals(0L, table.probe(key));
+        table.store(key, 5, -123, BoundType.LOWER, 0x1ABC);
+        final long entry = table.probe(key);
+        assertEquals(5, TranspositionTable.depth(entry));
+        assertEquals(-123, TranspositionTable.score(entry));
+        assertEquals(BoundType.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0x1ABC, TranspositionTable.move(entry));
+        assertTrue(TranspositionTable.canCutOff(entry, 5, -500, -200));
+        table.store(key, 3, 40, BoundType.UPPER, 0);
+        assertEquals(5, TranspositionTable.depth(table.probe(key)));
+        table.store(key, 6, 40, BoundType.EXACT, 0);
+        assertEquals(0x1ABC, TranspositionTable.move(table.probe(key)));
+        assertEquals(0L, table.probe(key ^ 1L));
+    }
+    @Test
+    public void testEvaluationCache() {
+        final int[] evaluations = new int[1];
+        final EvaluationCache cache = new EvaluationCache((board, depth) -> {
+            evaluations[0]++;
+            return depth == 0 ? 0 : -(int) (board.getZobristKey() >>> 40);
+        }, 1);
+        final Board board = Board.createStandardBoard();
+        final Board transposed = play(board, "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8");
+        assertEquals(0, cache.evaluate(board, 0));
+        assertEquals(0, cache.evaluate(transposed, 0));
+        assertEquals(1, evaluations[0]);
+        assertEquals(-(int) (board.getZobristKey() >>> 40), cache.evaluate(board, 3));
+        assertEquals(2, evaluations[0]);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testPawnHashTable() {
+        final Board board = Board.createStandardBoard();
+        final Board knights = play(board, "g1", "f3", "b8", "c6");
+        assertEquals(board.getPawnKey(), knights.getPawnKey());
+        assertNotEquals(board.getPawnKey(), play(board, "e2", "e4").getPawnKey());
+
+        final PawnHashTable table = new PawnHashTable(1);
+        assertEquals(0L, table.probe(board.getPawnKey()));
+        table.store(board.getPawnKey(), -30, 20, 40, 3);
+        final long entry = table.probe(knights.getPawnKey());
+        assertEquals(-30, PawnHashTable.score(entry, Alliance.WHITE));
+        assertEquals(20, PawnHashTable.score(entry, Alliance.BLACK));
+        assertEquals(40, PawnHashTable.passedPawns(entry, Alliance.WHITE));
+        assertEquals(3, PawnHashTable.passedPawns(entry, Alliance.BLACK));
+        assertEquals(2, table.getProbes());
+        assertEquals(1, table.getHits());
+
+        // black recaptures exf6 and doubles its f pawns; the score comes back the same once cached
+        final Board doubled = play(board, "b1", "c3", "d7", "d5", "e2", "e4", "d5", "e4", "c3", "e4", "d8", "d2",
+                "c1", "d2", "g8", "f6", "e4", "f6", "e7", "f6");
+        final PawnStructureAnalyzer analyzer = PawnStructureAnalyzer.get();
+        final int white = analyzer.pawnStructureScore(doubled.whitePlayer());
+        final int black = analyzer.pawnStructureScore(doubled.blackPlayer());
+        assertEquals(0, white);
+        assertEquals(2 * PawnStructureAnalyzer.DOUBLED_PAWN_PENALTY, black);
+        assertEquals(analyzer.doubledPawnPenalty(doubled.blackPlayer()) + analyzer.isolatedPawnPenalty(doubled.blackPlayer()),
+                analyzer.pawnStructureScore(doubled.blackPlayer()));
+    }
+
+    private static void assertIncrementalKeys(final Board board,
+                                              final int depth) {
+        assertEquals(rebuild(board).getZobristKey(), board.getZobristKey(), board.toString());
+        assertEquals(rebuild(board).getPawnKey(), board.getPawnKey(), board.toString());
+        assertEquals(rebuild(board).getPieceSquareScore(Alliance.WHITE), board.getPieceSquareScore(Alliance.WHITE), board.toString());
+        assertEquals(rebuild(board).getPieceSquareScore(Alliance.BLACK), board.getPieceSquareScore(Alliance.BLACK), board.toString());
+        if (depth == 0) {
+            return;
+        }
+        for (final Move move : board.currentPlayer().getLegalMoves()) {
+            final MoveTransition transition = board.currentPlayer().makeMove(move);
+            if (transition.getMoveStatus().isDone()) {
+                assertIncrementalKeys(transition.getToBoard(), depth - 1);
+            }
+        }
+    }
+
+    private static Board rebuild(final Board board) {
+        final Builder builder = new Builder();
+        board.getAllPieces().forEach(builder::setPiece);
+        builder.setMoveMaker(board.currentPlayer().getAlliance());
+        builder.setEnPassantPawn(board.getEnPassantPawn());
+        return builder.build();
+    }
+
+    private static Board play(final Board board,
+                              final String... squares) {
+        Board current = board;
+        for (int i = 0; i < squares.length; i += 2) {
+            final MoveTransition transition = current.currentPlayer()
+                    .makeMove(MoveFactory.createMove(current, BoardUtils.INSTANCE.getCoordinateAtPosition(squares[i]),
+                            BoardUtils.INSTANCE.getCoordinateAtPosition(squares[i + 1])));
+            assertTrue(transition.getMoveStatus().isDone());
+            current = transition.getToBoard();
+        }
+        return current;
+    }
+
+}